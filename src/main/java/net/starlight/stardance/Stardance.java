@@ -14,6 +14,7 @@ import net.minecraft.server.level.ServerLevel;
 import net.starlight.stardance.core.LocalGrid;
 import net.starlight.stardance.item.ModItems;
 import net.starlight.stardance.physics.EngineManager;
+import net.starlight.stardance.utils.BlockEventHandler;
 import net.starlight.stardance.utils.CommandRegistry;
 import net.starlight.stardance.utils.SLogger;
 import net.starlight.stardance.utils.SchemManager;
@@ -76,6 +77,9 @@ public class Stardance implements ModInitializer {
 		// Register world unload/stopping event for proper GridSpace cleanup
 		ServerWorldEvents.UNLOAD.register((server, world) -> {engineManager.unload(world);});
 		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {engineManager.shutdown();});
+
+		// Keep terrain collision in step with block changes and chunk loads
+		BlockEventHandler.register();
 	}
 
 	// --------------------------------------------------
@@ -1,6 +1,5 @@
 package net.starlight.stardance;
 
-import com.bulletphysics.dynamics.DynamicsWorld;
 import com.mojang.blaze3d.vertex.PoseStack;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
@@ -238,9 +237,8 @@ public class StardanceClient implements ClientModInitializer, ILoggingControl {
             return;
         }
 
-        // Draw collision shapes in the bullet dynamics world
-        DynamicsWorld dynamicsWorld = physicsEngine.getDynamicsWorld();
-        new CollisionShapeRenderer().render(dynamicsWorld, matrices, vertexConsumers, tickDelta, physicsEngine);
+        // Draw collision shapes from the last finished physics step
+        new CollisionShapeRenderer().render(physicsEngine.getSnapshot(), matrices, vertexConsumers, tickDelta);
 
         matrices.popPose();
     }
@@ -0,0 +1,196 @@
+package net.starlight.stardance.core;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.linearmath.Transform;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.EmptyBlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collision class and Bullet shape of every block state, shared by all grids.
+ * Entries are built the first time a state is seen and stored in a flat array indexed by
+ * {@link Block#getId}, so a rebuild looks each block up without VoxelShape work or hashing.
+ * The array is sized to the block state registry, which bounds it.
+ * This class is package-private - external code should use LocalGrid instead.
+ */
+final class BlockShapeRegistry {
+    // ----------------------------------------------
+    // CONSTANTS
+    // ----------------------------------------------
+    private static final float COLLISION_MARGIN = 0.002f; // Small margin to prevent stuck entities
+    private static final float MIN_HALF_EXTENT = 0.001f;  // Thinner boxes are dropped
+    private static final double FULL_CUBE_EPSILON = 0.001;
+
+    // ----------------------------------------------
+    // ENTRIES
+    // ----------------------------------------------
+    private static volatile Entry[] entries = new Entry[0];
+
+    private BlockShapeRegistry() {
+    }
+
+    /**
+     * Gets the entry for a block state, building it on first use.
+     */
+    static Entry get(BlockState state) {
+        int id = Block.getId(state);
+        Entry[] table = entries;
+        if (id >= 0 && id < table.length) {
+            Entry entry = table[id];
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return create(state, id);
+    }
+
+    private static synchronized Entry create(BlockState state, int id) {
+        Entry[] table = entries;
+        if (id >= 0 && id < table.length && table[id] != null) {
+            return table[id];
+        }
+
+        Entry entry = classify(state);
+        if (id < 0) {
+            return entry;
+        }
+
+        if (id >= table.length) {
+            Entry[] grown = new Entry[Math.max(id + 1, Block.BLOCK_STATE_REGISTRY.size())];
+            System.arraycopy(table, 0, grown, 0, table.length);
+            table = grown;
+        }
+        table[id] = entry;
+
+        // Entries are immutable, so publishing the array again is enough for other threads
+        entries = table;
+        return entry;
+    }
+
+    // ----------------------------------------------
+    // CLASSIFICATION
+    // ----------------------------------------------
+    private static Entry classify(BlockState state) {
+        if (isFullCube(state)) {
+            return Entry.FULL_CUBE;
+        }
+
+        VoxelShape voxelShape = state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+        if (voxelShape.isEmpty()) {
+            return Entry.EMPTY;
+        }
+
+        List<AABB> boxes = new ArrayList<>();
+        for (AABB box : voxelShape.toAabbs()) {
+            if ((box.maxX - box.minX) / 2.0 >= MIN_HALF_EXTENT
+                    && (box.maxY - box.minY) / 2.0 >= MIN_HALF_EXTENT
+                    && (box.maxZ - box.minZ) / 2.0 >= MIN_HALF_EXTENT) {
+                boxes.add(box);
+            }
+        }
+
+        if (boxes.isEmpty()) {
+            // Only degenerate boxes - keep a minimal shape so the block still registers contacts
+            return new Entry(ShapeClass.SINGLE_BOX, box(0.01f, 0.01f, 0.01f), new Vector3f());
+        }
+
+        if (boxes.size() == 1) {
+            AABB box = boxes.get(0);
+            Vector3f offset = new Vector3f(
+                    (float) ((box.minX + box.maxX) / 2.0) - 0.5f,
+                    (float) ((box.minY + box.maxY) / 2.0) - 0.5f,
+                    (float) ((box.minZ + box.maxZ) / 2.0) - 0.5f);
+            return new Entry(ShapeClass.SINGLE_BOX, halfExtentBox(box), offset);
+        }
+
+        CompoundShape compound = new CompoundShape();
+        Transform localTransform = new Transform();
+        localTransform.setIdentity();
+        for (AABB box : boxes) {
+            // Position within local block space, relative to the block center
+            localTransform.origin.set(
+                    (float) ((box.minX + box.maxX) / 2.0) - 0.5f,
+                    (float) ((box.minY + box.maxY) / 2.0) - 0.5f,
+                    (float) ((box.minZ + box.maxZ) / 2.0) - 0.5f);
+            compound.addChildShape(localTransform, halfExtentBox(box));
+        }
+        return new Entry(ShapeClass.BOX_SET, compound, new Vector3f());
+    }
+
+    /**
+     * Whether the block fills its whole cell, in which case it is merged with its neighbours.
+     */
+    private static boolean isFullCube(BlockState state) {
+        try {
+            // Returns true for blocks like stone, dirt, etc.
+            return Block.isShapeFullBlock(state.getShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO));
+        } catch (Exception e) {
+            // Fall back to the collision bounds being a 1x1x1 cube
+            AABB bounds = state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO).bounds();
+            return Math.abs(bounds.minX) < FULL_CUBE_EPSILON &&
+                    Math.abs(bounds.minY) < FULL_CUBE_EPSILON &&
+                    Math.abs(bounds.minZ) < FULL_CUBE_EPSILON &&
+                    Math.abs(bounds.maxX - 1.0) < FULL_CUBE_EPSILON &&
+                    Math.abs(bounds.maxY - 1.0) < FULL_CUBE_EPSILON &&
+                    Math.abs(bounds.maxZ - 1.0) < FULL_CUBE_EPSILON;
+        }
+    }
+
+    private static BoxShape halfExtentBox(AABB box) {
+        return box((float) (box.maxX - box.minX) / 2.0f, (float) (box.maxY - box.minY) / 2.0f, (float) (box.maxZ - box.minZ) / 2.0f);
+    }
+
+    private static BoxShape box(float hx, float hy, float hz) {
+        BoxShape boxShape = new BoxShape(new Vector3f(hx, hy, hz));
+        boxShape.setMargin(COLLISION_MARGIN);
+        return boxShape;
+    }
+
+    // ----------------------------------------------
+    // NESTED CLASSES
+    // ----------------------------------------------
+    /**
+     * How a block state collides.
+     */
+    enum ShapeClass {
+        EMPTY,          // No collision
+        FULL_CUBE,      // Fills the cell; merged into boxes with its neighbours
+        SINGLE_BOX,     // One box, possibly off the cell center
+        BOX_SET         // Several boxes in a compound around the cell center
+    }
+
+    /**
+     * Collision class of a state and, unless it is empty or a full cube, its shared shape.
+     */
+    static final class Entry {
+        static final Entry EMPTY = new Entry(ShapeClass.EMPTY, null, new Vector3f());
+        static final Entry FULL_CUBE = new Entry(ShapeClass.FULL_CUBE, null, new Vector3f());
+
+        final ShapeClass shapeClass;
+        final CollisionShape shape;
+        private final Vector3f offset;      // Shape center relative to the cell center
+
+        private Entry(ShapeClass shapeClass, CollisionShape shape, Vector3f offset) {
+            this.shapeClass = shapeClass;
+            this.shape = shape;
+            this.offset = offset;
+        }
+
+        /**
+         * Shape center relative to the cell center.
+         */
+        Vector3f getOffset(Vector3f out) {
+            out.set(offset);
+            return out;
+        }
+    }
+}
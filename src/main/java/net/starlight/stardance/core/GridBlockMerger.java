@@ -4,6 +4,7 @@ import com.bulletphysics.collision.shapes.BoxShape;
 import com.bulletphysics.collision.shapes.CompoundShape;
 import com.bulletphysics.linearmath.Transform;
 import net.minecraft.core.BlockPos;
+import net.starlight.stardance.physics.PhysicsConfig;
 import net.starlight.stardance.utils.SLogger;
 import org.joml.Vector3i;
 
@@ -19,6 +20,11 @@ import java.util.Map;
  * This class is package-private - external code should use LocalGrid instead.
  */
 class GridBlockMerger {
+    // ----------------------------------------------
+    // CONSTANTS
+    // ----------------------------------------------
+    private static final float BOX_MARGIN = 0.01f;
+
     // ----------------------------------------------
     // PARENT REFERENCE
     // ----------------------------------------------
@@ -27,7 +33,7 @@ class GridBlockMerger {
     // ----------------------------------------------
     // BLOCK MAP
     // ----------------------------------------------
-    private boolean[][][] blockMap; // Boolean map of occupied spaces for merging
+    private OccupancyMerger occupancy; // Bit-packed map of occupied spaces for merging
 
     // ----------------------------------------------
     // CONSTRUCTOR
@@ -54,7 +60,7 @@ class GridBlockMerger {
     }
 
     /**
-     * Updates the blockMap array for shape merging optimization.
+     * Updates the occupancy bitset for shape merging optimization.
      *
      * @param blocks The blocks to map
      * @param aabbMin Minimum AABB point
@@ -66,20 +72,21 @@ class GridBlockMerger {
         int sizeY = aabbMax.y - aabbMin.y + 1;
         int sizeZ = aabbMax.z - aabbMin.z + 1;
 
-        // Create map
-        this.blockMap = new boolean[sizeX][sizeY][sizeZ];
+        // One bit per cell, rows along X packed into longs
+        this.occupancy = new OccupancyMerger(sizeX, sizeY, sizeZ);
 
         // Fill map with all occupied locations
         for (LocalBlock localBlock : blocks.values()) {
             int x = localBlock.getPosition().getX() - aabbMin.x;
             int y = localBlock.getPosition().getY() - aabbMin.y;
             int z = localBlock.getPosition().getZ() - aabbMin.z;
-            blockMap[x][y][z] = true;
+            occupancy.set(x, y, z);
         }
     }
 
     /**
      * Adds a box shape to the compound shape with the appropriate transform.
+     * The shape itself comes from the engine's pool, shared with every other box of that size.
      *
      * @param box The box shape data
      * @param compound The compound shape to add to
@@ -96,9 +103,7 @@ class GridBlockMerger {
         float halfY = (box.height * 0.5f);
         float halfZ = (box.depth * 0.5f);
 
-        // Create box shape
-        BoxShape boxShape = new BoxShape(new Vector3f(halfX, halfY, halfZ));
-        boxShape.setMargin(0.01f);
+        BoxShape boxShape = grid.getEngine().getBoxShapePool().get(box.width, box.height, box.depth, BOX_MARGIN);
 
         // Position relative to centroid
         Transform localTransform = new Transform();
@@ -116,91 +121,20 @@ class GridBlockMerger {
 
     /**
      * Merges adjacent blocks into larger box shapes to reduce collision complexity.
-     * Uses a greedy algorithm to create as few boxes as possible.
+     * Uses a greedy algorithm to create as few boxes as possible, trying every greedy order
+     * when {@link PhysicsConfig#THOROUGH_MERGING} is on.
      *
      * @return List of merged box shapes
      */
     public List<BoxShapeData> generateMergedBoxes() {
-        if (blockMap == null) {
+        if (occupancy == null) {
             return Collections.emptyList();
         }
 
-        List<BoxShapeData> boxes = new ArrayList<>();
-        int sizeX = blockMap.length;
-        if (sizeX == 0) return boxes;
-
-        int sizeY = blockMap[0].length;
-        if (sizeY == 0) return boxes;
-
-        int sizeZ = blockMap[0][0].length;
-        if (sizeZ == 0) return boxes;
-
-        // Track which blocks have been processed
-        boolean[][][] visited = new boolean[sizeX][sizeY][sizeZ];
-
-        // Process in Y, Z, X order for better merging of common structures
-        for (int y = 0; y < sizeY; y++) {
-            for (int z = 0; z < sizeZ; z++) {
-                for (int x = 0; x < sizeX; x++) {
-                    // Skip if empty or already processed
-                    if (!blockMap[x][y][z] || visited[x][y][z]) {
-                        continue;
-                    }
-
-                    // Start with a 1x1x1 box
-                    int width = 1;
-                    int height = 1;
-                    int depth = 1;
-
-                    // Extend along X-axis first
-                    while (x + width < sizeX && blockMap[x + width][y][z] && !visited[x + width][y][z]) {
-                        width++;
-                    }
-
-                    // Then extend along Z-axis
-                    boolean canExtendZ = true;
-                    while ((z + depth) < sizeZ && canExtendZ) {
-                        for (int i = x; i < x + width; i++) {
-                            if (!blockMap[i][y][z + depth] || visited[i][y][z + depth]) {
-                                canExtendZ = false;
-                                break;
-                            }
-                        }
-                        if (canExtendZ) {
-                            depth++;
-                        }
-                    }
-
-                    // Finally extend along Y-axis
-                    boolean canExtendY = true;
-                    while ((y + height) < sizeY && canExtendY) {
-                        for (int i = x; i < x + width; i++) {
-                            for (int j = z; j < z + depth; j++) {
-                                if (!blockMap[i][y + height][j] || visited[i][y + height][j]) {
-                                    canExtendY = false;
-                                    break;
-                                }
-                            }
-                            if (!canExtendY) break;
-                        }
-                        if (canExtendY) {
-                            height++;
-                        }
-                    }
-
-                    // Mark all blocks in this box as visited
-                    for (int i = x; i < x + width; i++) {
-                        for (int j = y; j < y + height; j++) {
-                            for (int k = z; k < z + depth; k++) {
-                                visited[i][j][k] = true;
-                            }
-                        }
-                    }
-
-                    // Add box to list
-                    boxes.add(new BoxShapeData(x, y, z, width, height, depth));
-                }
-            }
+        List<OccupancyMerger.Box> merged = occupancy.merge(PhysicsConfig.THOROUGH_MERGING);
+        List<BoxShapeData> boxes = new ArrayList<>(merged.size());
+        for (OccupancyMerger.Box box : merged) {
+            boxes.add(new BoxShapeData(box.x, box.y, box.z, box.width, box.height, box.depth));
         }
 
         SLogger.log(grid, "Generated " + boxes.size() + " merged box shapes");
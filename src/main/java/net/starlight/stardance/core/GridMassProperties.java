@@ -0,0 +1,119 @@
+package net.starlight.stardance.core;
+
+import net.minecraft.core.BlockPos;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Running mass, first moment and second moment of a grid's blocks, each block treated as a
+ * solid unit cube of uniform density. Adding or removing a block is O(1), and the center of
+ * mass and inertia tensor are derived from the sums on demand.
+ * This class is package-private - external code should use LocalGrid instead.
+ */
+class GridMassProperties {
+    // ----------------------------------------------
+    // CONSTANTS
+    // ----------------------------------------------
+    private static final double CUBE_INERTIA = 1.0 / 6.0; // Inertia of a unit cube about its own center, per unit mass
+
+    // ----------------------------------------------
+    // RUNNING SUMS
+    // ----------------------------------------------
+    private int blockCount = 0;
+    private double mass = 0.0;
+
+    // Sum of m * p over block centers p
+    private double momentX, momentY, momentZ;
+
+    // Diagonal of the sum of m * p * p^T over block centers p
+    private double xx, yy, zz;
+
+    // ----------------------------------------------
+    // UPDATES
+    // ----------------------------------------------
+    /**
+     * Adds a block of the given mass at a grid-local position.
+     */
+    void add(BlockPos pos, float blockMass) {
+        accumulate(pos, blockMass);
+        blockCount++;
+    }
+
+    /**
+     * Removes a block previously added with the same position and mass.
+     */
+    void remove(BlockPos pos, float blockMass) {
+        if (--blockCount <= 0) {
+            // Start over exactly rather than keep the rounding left by the subtractions
+            clear();
+            return;
+        }
+        accumulate(pos, -blockMass);
+    }
+
+    void clear() {
+        blockCount = 0;
+        mass = 0.0;
+        momentX = momentY = momentZ = 0.0;
+        xx = yy = zz = 0.0;
+    }
+
+    private void accumulate(BlockPos pos, double m) {
+        double x = pos.getX() + 0.5;
+        double y = pos.getY() + 0.5;
+        double z = pos.getZ() + 0.5;
+
+        mass += m;
+        momentX += m * x;
+        momentY += m * y;
+        momentZ += m * z;
+        xx += m * x * x;
+        yy += m * y * y;
+        zz += m * z * z;
+    }
+
+    // ----------------------------------------------
+    // GETTERS
+    // ----------------------------------------------
+    float getMass() {
+        return (float) mass;
+    }
+
+    /**
+     * Center of mass in grid-local space, or the origin for a massless grid.
+     */
+    Vector3f getCenterOfMass() {
+        if (mass <= 0.0) {
+            return new Vector3f();
+        }
+        return new Vector3f((float) (momentX / mass), (float) (momentY / mass), (float) (momentZ / mass));
+    }
+
+    /**
+     * Moments of inertia about the grid's X, Y and Z axes through the center of mass.
+     * These are the diagonal of the full tensor. Bullet keeps a diagonal inertia in the body
+     * frame, and the body frame is the grid frame, so the products of inertia are left out:
+     * spin about each grid axis is exact, coupling between axes of an oblique grid is lost.
+     *
+     * @param out Receives the moments
+     * @return out
+     */
+    Vector3f getLocalInertia(Vector3f out) {
+        if (mass <= 0.0) {
+            out.set(0, 0, 0);
+            return out;
+        }
+
+        // Second moments about the center of mass, by the parallel axis theorem
+        double cx = momentX / mass;
+        double cy = momentY / mass;
+        double cz = momentZ / mass;
+        double cxx = xx - mass * cx * cx;
+        double cyy = yy - mass * cy * cy;
+        double czz = zz - mass * cz * cz;
+
+        double own = mass * CUBE_INERTIA;
+        out.set((float) (cyy + czz + own), (float) (cxx + czz + own), (float) (cxx + cyy + own));
+        return out;
+    }
+}
@@ -3,26 +3,23 @@ package net.starlight.stardance.core;
 import com.bulletphysics.collision.dispatch.CollisionFlags;
 import com.bulletphysics.collision.shapes.BoxShape;
 import com.bulletphysics.collision.shapes.CompoundShape;
-import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.dynamics.DynamicsWorld;
 import com.bulletphysics.dynamics.RigidBody;
 import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
 import com.bulletphysics.linearmath.DefaultMotionState;
 import com.bulletphysics.linearmath.Transform;
 import net.minecraft.core.BlockPos;
-import net.minecraft.world.level.block.Block;
-import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
-import net.minecraft.world.phys.shapes.VoxelShape;
+import net.starlight.stardance.physics.PhysicsConfig;
+import net.starlight.stardance.physics.PhysicsSnapshot;
 import net.starlight.stardance.physics.SubchunkCoordinates;
+import net.starlight.stardance.physics.SubchunkManager;
 import net.starlight.stardance.utils.SLogger;
-import org.joml.Vector3i;
 
 import javax.vecmath.Quat4f;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import static net.starlight.stardance.physics.EngineManager.COLLISION_GROUP_GRID;
@@ -37,13 +34,12 @@ class GridPhysicsComponent {
     // CONSTANTS
     // ----------------------------------------------
     private static final int SUBCHUNK_SIZE = 16; // Size of a subchunk (16x16x16)
+    private static final float MIN_PREFETCH_DISTANCE = 1.0f; // Predicted travel, in blocks, below which nothing is prefetched
+    private static final float MAX_PREFETCH_DISTANCE = 64.0f; // Farthest ahead subchunks are prefetched, in blocks
     private static final float COLLISION_MARGIN = 0.002f; // Small margin to prevent stuck entities
     private static final float SLEEP_VELOCITY_THRESHOLD = 0.05f; // Threshold for putting rigidbody to sleep
-
-    // ----------------------------------------------
-    // SHAPE CACHING
-    // ----------------------------------------------
-    private static final Map<BlockState, CollisionShape> SHAPE_CACHE = new ConcurrentHashMap<>();
+    private static final float CCD_THRESHOLD_SCALE = 0.5f; // Substep motion, as a fraction of the thinnest box, that triggers CCD
+    private static final float CCD_SPHERE_SCALE = 0.9f; // Swept sphere radius, as a fraction of the solid room around the center of mass
 
     // ----------------------------------------------
     // PARENT REFERENCE
@@ -55,12 +51,17 @@ class GridPhysicsComponent {
     // ----------------------------------------------
     private RigidBody rigidBody;                   // Bullet physics rigid body
     private CompoundShape collisionShape;          // Compound collision shape
+    private final GridShapeSections shapeSections = new GridShapeSections(); // Per-section compounds, re-merged when edited
     private GridMotionState gridMotionState;       // Custom motion state
 
     // Transforms for interpolation
     private final Transform previousTransform = new Transform();
     private final Transform currentTransform = new Transform();
 
+    // Body transform published at the last tick barrier, read while a pipelined step is in flight
+    private final Transform publishedTransform = new Transform();
+    private final Vector3f publishedLinearVelocity = new Vector3f();
+
     // ----------------------------------------------
     // PHYSICS PROPERTIES
     // ----------------------------------------------
@@ -68,11 +69,9 @@ class GridPhysicsComponent {
     private float totalMass = 0.0f;                // Total mass of all blocks
     private Vector3f absoluteWorldPosition = new Vector3f(0, 0, 0);   // Position without centroid offset
 
-    // ----------------------------------------------
-    // BOUNDING BOX
-    // ----------------------------------------------
-    private Vector3i aabbMin = new Vector3i();     // Minimum AABB point in grid space
-    private Vector3i aabbMax = new Vector3i();     // Maximum AABB point in grid space
+    // Continuous collision detection, sized from the merged boxes at the last rebuild
+    private float ccdMotionThreshold = 0.0f;
+    private float ccdSweptSphereRadius = 0.0f;
 
     // ----------------------------------------------
     // STATE FLAGS
@@ -80,7 +79,9 @@ class GridPhysicsComponent {
     private boolean isFirstBuild = true;           // First time build flag
     private boolean rebuildInProgress = false;     // Rebuild operation in progress
     private boolean isAsleep = false;              // Whether the rigid body is currently sleeping
-    private Set<SubchunkCoordinates> activeSubchunks = new HashSet<>(); // Currently active subchunks
+    private boolean isFrozen = false;              // Whether simulation is suspended for the body
+    private Map<SubchunkCoordinates, Integer> activeSubchunks = new HashMap<>(); // Currently active subchunks, with updates since each was last needed
+    private Set<SubchunkCoordinates> warmedSubchunks = new HashSet<>();         // Subchunks ahead of the grid, built but not added
 
     // ----------------------------------------------
     // CONSTRUCTOR
@@ -129,14 +130,86 @@ class GridPhysicsComponent {
 
             previousTransform.set(currentTransform);
             currentTransform.set(newTransform);
+            rigidBody.getWorldTransform(publishedTransform);
+            rigidBody.getLinearVelocity(publishedLinearVelocity);
+        }
+    }
+
+    /**
+     * Reads the rigid body's world transform.
+     * While the physics thread is stepping, the body is being written concurrently,
+     * so the transform published at the last tick barrier is returned instead.
+     * Callers off the server thread read the engine's latest snapshot.
+     *
+     * @param outTransform Transform to write into
+     * @return outTransform
+     */
+    public Transform readBodyTransform(Transform outTransform) {
+        PhysicsSnapshot.BodyState state = offThreadState();
+        if (state != null) {
+            state.getWorldTransform(outTransform);
+        } else if (grid.getEngine().isStepInFlight()) {
+            outTransform.set(publishedTransform);
+        } else {
+            rigidBody.getWorldTransform(outTransform);
+        }
+        return outTransform;
+    }
+
+    /**
+     * Reads the rigid body's linear velocity, with the same threading rules as {@link #readBodyTransform}.
+     *
+     * @param outVelocity Vector to write into
+     * @return outVelocity
+     */
+    public Vector3f readLinearVelocity(Vector3f outVelocity) {
+        PhysicsSnapshot.BodyState state = offThreadState();
+        if (state != null) {
+            state.getLinearVelocity(outVelocity);
+        } else if (grid.getEngine().isStepInFlight()) {
+            outVelocity.set(publishedLinearVelocity);
+        } else {
+            rigidBody.getLinearVelocity(outVelocity);
+        }
+        return outVelocity;
+    }
+
+    /**
+     * Reads the motion state transform, with the same threading rules as {@link #readBodyTransform}.
+     *
+     * @param outTransform Transform to write into
+     * @return outTransform
+     */
+    public Transform readMotionStateTransform(Transform outTransform) {
+        PhysicsSnapshot.BodyState state = offThreadState();
+        if (state != null) {
+            state.getMotionStateTransform(outTransform);
+        } else if (grid.getEngine().isStepInFlight()) {
+            outTransform.set(currentTransform);
+        } else {
+            rigidBody.getMotionState().getWorldTransform(outTransform);
+        }
+        return outTransform;
+    }
+
+    /**
+     * This grid's state in the latest snapshot when called from a thread other than the
+     * server thread, which must not touch the live body. Null on the server thread.
+     */
+    private PhysicsSnapshot.BodyState offThreadState() {
+        if (grid.getWorld().getServer().isSameThread()) {
+            return null;
         }
+        return grid.getEngine().getSnapshot().getGrid(grid);
     }
 
     /**
      * Applies damping and sleeping logic to reduce jitter in physics simulation.
+     *
+     * @param elapsedTicks Ticks since the last call; grids on a reduced LOD are damped for all of them at once
      */
-    public void applyVelocityDamping() {
-        if (rigidBody == null) return;
+    public void applyVelocityDamping(int elapsedTicks) {
+        if (rigidBody == null || isFrozen) return;
 
         Vector3f linearVel = new Vector3f();
         Vector3f angularVel = new Vector3f();
@@ -167,34 +240,68 @@ class GridPhysicsComponent {
             }
 
             // Apply more aggressive damping for stability
-            linearVel.scale(0.95f);
-            angularVel.scale(0.90f);
+            linearVel.scale((float) Math.pow(0.95f, elapsedTicks));
+            angularVel.scale((float) Math.pow(0.90f, elapsedTicks));
             rigidBody.setLinearVelocity(linearVel);
             rigidBody.setAngularVelocity(angularVel);
         }
     }
 
     /**
-     * Updates which subchunks this grid overlaps.
+     * Updates which subchunks this grid overlaps or is about to enter. Subchunks along the
+     * grid's path over {@link PhysicsConfig#PREFETCH_SECONDS} are added to the world ahead of it,
+     * or only built if {@link PhysicsConfig#PREFETCH_ADD_TO_WORLD} is off. A subchunk is released
+     * once the grid hasn't needed it for {@link PhysicsConfig#SUBCHUNK_RELEASE_DELAY} updates.
      */
     public void updateActiveSubchunks() {
-        Set<SubchunkCoordinates> newSubchunks = calculateOccupiedSubchunks();
+        SubchunkManager subchunkManager = grid.getEngine().getSubchunkManager();
+        Set<SubchunkCoordinates> needed = calculateOccupiedSubchunks();
+        Set<SubchunkCoordinates> ahead = calculatePredictedSubchunks();
+
+        if (PhysicsConfig.PREFETCH_ADD_TO_WORLD) {
+            needed.addAll(ahead);
+        } else {
+            ahead.removeAll(needed);
+            for (SubchunkCoordinates coords : ahead) {
+                if (!warmedSubchunks.contains(coords) && !activeSubchunks.containsKey(coords)) {
+                    subchunkManager.warmSubchunk(coords);
+                }
+            }
+            warmedSubchunks = ahead;
+        }
 
         // Activate new subchunks
-        for (SubchunkCoordinates coords : newSubchunks) {
-            if (!activeSubchunks.contains(coords)) {
-                grid.getEngine().getSubchunkManager().activateSubchunk(coords);
+        for (SubchunkCoordinates coords : needed) {
+            if (activeSubchunks.put(coords, 0) == null) {
+                subchunkManager.activateSubchunk(coords);
             }
         }
 
-        // Deactivate old subchunks
-        for (SubchunkCoordinates coords : activeSubchunks) {
-            if (!newSubchunks.contains(coords)) {
-                grid.getEngine().getSubchunkManager().deactivateSubchunk(coords);
+        // Deactivate old subchunks once they have gone unneeded long enough
+        Iterator<Map.Entry<SubchunkCoordinates, Integer>> iterator = activeSubchunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<SubchunkCoordinates, Integer> entry = iterator.next();
+            if (needed.contains(entry.getKey())) continue;
+
+            int unneeded = entry.getValue() + 1;
+            if (unneeded > PhysicsConfig.SUBCHUNK_RELEASE_DELAY) {
+                subchunkManager.deactivateSubchunk(entry.getKey());
+                iterator.remove();
+            } else {
+                entry.setValue(unneeded);
             }
         }
+    }
 
-        activeSubchunks = newSubchunks;
+    /**
+     * Deactivates every subchunk this grid holds active.
+     */
+    public void releaseActiveSubchunks() {
+        for (SubchunkCoordinates coords : activeSubchunks.keySet()) {
+            grid.getEngine().getSubchunkManager().deactivateSubchunk(coords);
+        }
+        activeSubchunks = new HashMap<>();
+        warmedSubchunks = new HashSet<>();
     }
 
     /**
@@ -233,10 +340,176 @@ class GridPhysicsComponent {
         rigidBody.setAngularVelocity(new Vector3f(0, 0, 0));
         rigidBody.clearForces();
 
-        // Set higher mass to improve stability
-        Vector3f inertia = new Vector3f();
-        rigidBody.getCollisionShape().calculateLocalInertia(totalMass, inertia);
+        // The rebuilt body starts active; carry a freeze over
+        if (isFrozen) {
+            applyFrozenState();
+        }
+    }
+
+    /**
+     * Patches the collision shape for the given edited blocks, keeping the rigid body, its motion
+     * state and its place in the world. Only the sections holding the edits are re-merged.
+     * Returns false when a full {@link #rebuildPhysics} is needed instead: before the first build
+     * or for an emptied grid.
+     *
+     * @param blocks Current blocks of the grid
+     * @param changed Positions added or removed since the last rebuild
+     * @param blockMerger Merger for the dirty sections
+     * @return Whether the shape was patched
+     */
+    public boolean applyBlockChanges(Map<BlockPos, LocalBlock> blocks, Set<BlockPos> changed, GridBlockMerger blockMerger) {
+        if (rigidBody == null || !shapeSections.isLoaded()) {
+            return false;
+        }
+
+        Map<BlockPos, LocalBlock> edits = new HashMap<>();
+        for (BlockPos pos : changed) {
+            edits.put(pos, blocks.get(pos));
+        }
+        mergeBlocks(edits, false, blockMerger);
+        return installMergedShape();
+    }
+
+    /**
+     * Records blocks into the shape sections and re-merges the sections they touch.
+     * Reads nothing the physics step writes, so it may run on a worker thread, as long as no
+     * other merge, patch or rebuild of this grid runs at the same time.
+     *
+     * @param edits Block now at each edited position, null where one was removed
+     * @param replaceAll Whether edits hold every block of the grid, replacing what the sections had
+     * @param blockMerger Merger for the dirty sections
+     */
+    void mergeBlocks(Map<BlockPos, LocalBlock> edits, boolean replaceAll, GridBlockMerger blockMerger) {
+        if (replaceAll) {
+            shapeSections.load(edits);
+        } else {
+            for (Map.Entry<BlockPos, LocalBlock> entry : edits.entrySet()) {
+                shapeSections.update(entry.getKey(), entry.getValue());
+            }
+        }
+
+        int rebuiltSections = shapeSections.rebuildDirty(blockMerger);
+        SLogger.log(grid, "Re-merged " + rebuiltSections + " of " + shapeSections.getSectionCount() + " collision sections");
+    }
+
+    /**
+     * Swaps a shape built from the merged sections into the existing rigid body. The body is
+     * re-centered on the new center of mass without moving the grid, and its velocity is carried
+     * over to the new center. The caller must hold the physics lock.
+     * Returns false when a full {@link #rebuildPhysics} is needed instead: before the first build
+     * or for an emptied grid.
+     *
+     * @return Whether the shape was installed
+     */
+    boolean installMergedShape() {
+        if (rigidBody == null || isFirstBuild || !shapeSections.isLoaded() || shapeSections.getSectionCount() == 0) {
+            return false;
+        }
+
+        GridMassProperties massProperties = shapeSections.getMassProperties();
+        Vector3f newCentroid = massProperties.getCenterOfMass();
+        Vector3f shift = new Vector3f(newCentroid);
+        shift.sub(centroid);
+        if (shift.lengthSquared() > 0.0f) {
+            recenterBody(shift);
+        }
+        this.centroid = newCentroid;
+
+        // A fresh compound rather than editing the live one, which snapshots may still be reading.
+        // Unchanged sections are the same children as before, so the pairs' compound algorithms
+        // keep their contacts and only replace what they had for the re-merged sections.
+        CompoundShape compound = shapeSections.buildCompound(centroid);
+        DynamicsWorld dynamicsWorld = grid.getEngine().getDynamicsWorld();
+        boolean inWorld = rigidBody.getBroadphaseHandle() != null;
+
+        rigidBody.setCollisionShape(compound);
+        this.collisionShape = compound;
+        this.totalMass = massProperties.getMass();
+
+        Vector3f inertia = massProperties.getLocalInertia(new Vector3f());
         rigidBody.setMassProps(totalMass, inertia);
+        rigidBody.updateInertiaTensor();
+
+        sizeContinuousCollision();
+        applyContinuousCollision();
+
+        if (inWorld) {
+            dynamicsWorld.updateSingleAabb(rigidBody);
+        }
+        if (!isFrozen) {
+            rigidBody.activate(true);
+        }
+        return true;
+    }
+
+    /**
+     * Whether merged sections exist that edits can be applied to one by one.
+     */
+    boolean hasMergedShape() {
+        return shapeSections.isLoaded();
+    }
+
+    /**
+     * Forgets the merged sections, so the next rebuild reloads them from the grid's blocks.
+     * Used when a merge failed partway.
+     */
+    void discardMergedShape() {
+        shapeSections.unload();
+    }
+
+    /**
+     * Suspends or resumes simulation of the rigid body.
+     * A frozen body keeps its place in the world and still blocks other bodies,
+     * but is not integrated until it is thawed.
+     *
+     * @param frozen Whether the body should be frozen
+     */
+    public void setFrozen(boolean frozen) {
+        if (isFrozen == frozen) return;
+        isFrozen = frozen;
+        applyFrozenState();
+    }
+
+    /**
+     * Whether simulation is suspended for the rigid body.
+     */
+    public boolean isFrozen() {
+        return isFrozen;
+    }
+
+    private void applyFrozenState() {
+        if (rigidBody == null) return;
+
+        // Drop velocity in both directions so impulses absorbed while frozen don't fire on thaw
+        rigidBody.setLinearVelocity(new Vector3f(0, 0, 0));
+        rigidBody.setAngularVelocity(new Vector3f(0, 0, 0));
+        rigidBody.clearForces();
+
+        if (isFrozen) {
+            rigidBody.forceActivationState(com.bulletphysics.collision.dispatch.CollisionObject.DISABLE_SIMULATION);
+        } else {
+            rigidBody.forceActivationState(com.bulletphysics.collision.dispatch.CollisionObject.ACTIVE_TAG);
+            rigidBody.activate(true);
+            isAsleep = false;
+        }
+    }
+
+    /**
+     * Applies the CCD parameters sized at the last rebuild, or disables CCD while it is switched off.
+     */
+    public void applyContinuousCollision() {
+        if (rigidBody == null) return;
+
+        boolean enabled = PhysicsConfig.CCD_ENABLED;
+        rigidBody.setCcdMotionThreshold(enabled ? ccdMotionThreshold : 0.0f);
+        rigidBody.setCcdSweptSphereRadius(enabled ? ccdSweptSphereRadius : 0.0f);
+    }
+
+    /**
+     * Whether Bullet sweeps this body to stop it tunneling when it moves fast.
+     */
+    public boolean hasContinuousCollision() {
+        return rigidBody != null && rigidBody.getCcdMotionThreshold() > 0.0f;
     }
 
     /**
@@ -251,8 +524,7 @@ class GridPhysicsComponent {
         }
 
         // Get current world transform
-        Transform worldTransform = new Transform();
-        rigidBody.getWorldTransform(worldTransform);
+        Transform worldTransform = readBodyTransform(new Transform());
 
         // Invert transform
         Transform inverseTransform = new Transform(worldTransform);
@@ -290,8 +562,7 @@ class GridPhysicsComponent {
             );
 
             // Get the current physics transform (grid → world)
-            Transform physicsTransform = new Transform();
-            rigidBody.getWorldTransform(physicsTransform);
+            Transform physicsTransform = readBodyTransform(new Transform());
 
             // Apply transform (NOT inverse - this goes grid → world)
             physicsTransform.transform(adjustedPoint);
@@ -317,8 +588,14 @@ class GridPhysicsComponent {
             return;
         }
 
-        Transform worldTransform = new Transform();
-        rigidBody.getWorldTransform(worldTransform);
+        // Off-thread callers get bounds matching the snapshot's shape and transform
+        PhysicsSnapshot.BodyState state = offThreadState();
+        if (state != null) {
+            state.getAabb(minAabb, maxAabb);
+            return;
+        }
+
+        Transform worldTransform = readBodyTransform(new Transform());
         collisionShape.getAabb(worldTransform, minAabb, maxAabb);
     }
 
@@ -337,10 +614,65 @@ class GridPhysicsComponent {
         // Get AABB in world space
         Vector3f minAabb = new Vector3f();
         Vector3f maxAabb = new Vector3f();
-        Transform tr = new Transform();
-        rigidBody.getWorldTransform(tr);
+        Transform tr = readBodyTransform(new Transform());
+        collisionShape.getAabb(tr, minAabb, maxAabb);
+
+        addSubchunks(occupied, minAabb, maxAabb);
+        return occupied;
+    }
+
+    /**
+     * Calculates which subchunks the grid's AABB sweeps through if it keeps its linear velocity
+     * for {@link PhysicsConfig#PREFETCH_SECONDS}, the ones it occupies now included.
+     * The AABB is walked along the path in steps of at most a subchunk, and no longer than its
+     * own thinnest side, so a diagonal path doesn't pull in the whole box around it.
+     * Empty when prefetching is off or the grid is at rest.
+     *
+     * @return Set of subchunk coordinates along the grid's path
+     */
+    public Set<SubchunkCoordinates> calculatePredictedSubchunks() {
+        Set<SubchunkCoordinates> predicted = new HashSet<>();
+
+        if (rigidBody == null || collisionShape == null || isFrozen || PhysicsConfig.PREFETCH_SECONDS <= 0) {
+            return predicted;
+        }
+
+        Vector3f travel = readLinearVelocity(new Vector3f());
+        travel.scale((float) PhysicsConfig.PREFETCH_SECONDS);
+        float distance = travel.length();
+        if (distance < MIN_PREFETCH_DISTANCE) {
+            return predicted;
+        }
+        if (distance > MAX_PREFETCH_DISTANCE) {
+            travel.scale(MAX_PREFETCH_DISTANCE / distance);
+        }
+
+        Vector3f minAabb = new Vector3f();
+        Vector3f maxAabb = new Vector3f();
+        Transform tr = readBodyTransform(new Transform());
         collisionShape.getAabb(tr, minAabb, maxAabb);
 
+        float thinnest = Math.min(maxAabb.x - minAabb.x, Math.min(maxAabb.y - minAabb.y, maxAabb.z - minAabb.z));
+        float stepLength = Math.max(1.0f, Math.min(SUBCHUNK_SIZE, thinnest));
+        int steps = (int) Math.ceil(travel.length() / stepLength);
+
+        // Current AABB moved along the path, one step at a time
+        Vector3f stepMin = new Vector3f();
+        Vector3f stepMax = new Vector3f();
+        Vector3f offset = new Vector3f();
+        for (int i = 0; i <= steps; i++) {
+            offset.scale((float) i / steps, travel);
+            stepMin.add(minAabb, offset);
+            stepMax.add(maxAabb, offset);
+            addSubchunks(predicted, stepMin, stepMax);
+        }
+        return predicted;
+    }
+
+    /**
+     * Adds every subchunk a world-space AABB overlaps.
+     */
+    private static void addSubchunks(Set<SubchunkCoordinates> out, Vector3f minAabb, Vector3f maxAabb) {
         // Convert to subchunk coordinates
         int minX = (int) Math.floor(minAabb.x / SUBCHUNK_SIZE);
         int minY = (int) Math.floor(minAabb.y / SUBCHUNK_SIZE);
@@ -354,11 +686,10 @@ class GridPhysicsComponent {
         for (int x = minX; x <= maxX; x++) {
             for (int y = minY; y <= maxY; y++) {
                 for (int z = minZ; z <= maxZ; z++) {
-                    occupied.add(new SubchunkCoordinates(x, y, z));
+                    out.add(new SubchunkCoordinates(x, y, z));
                 }
             }
         }
-        return occupied;
     }
 
     // ----------------------------------------------
@@ -414,6 +745,7 @@ class GridPhysicsComponent {
         // Initialize transform history
         currentTransform.set(initialTransform);
         previousTransform.set(initialTransform);
+        publishedTransform.set(initialTransform);
 
         // Activate the rigid body
         rigidBody.activate(true);
@@ -444,124 +776,36 @@ class GridPhysicsComponent {
             absoluteWorldPosition.sub(this.centroid);
         }
 
-        // Create a new compound shape
-        CompoundShape compound = new CompoundShape();
-
-        // Reset mass and centroid trackers
-        float massAcc = 0.0f;
-        Vector3f centroidAcc = new Vector3f(0, 0, 0);
-
-        // Reset AABB
-        aabbMin = new Vector3i(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
-        aabbMax = new Vector3i(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        // Re-merge only the sections edited since the last build
+        if (!shapeSections.isLoaded()) {
+            mergeBlocks(blocks, true, blockMerger);
+        } else {
+            shapeSections.rebuildDirty(blockMerger);
+        }
 
-        // If no blocks, create a tiny placeholder shape
+        CompoundShape compound;
         if (blocks.isEmpty()) {
+            // If no blocks, create a tiny placeholder shape
+            compound = new CompoundShape();
             blockMerger.addPlaceholderShape(compound);
             this.totalMass = 0;
             this.centroid.set(0, 0, 0);
         } else {
-            // Calculate mass, centroid, and AABB for all blocks
-            for (LocalBlock localBlock : blocks.values()) {
-                BlockPos pos = localBlock.getPosition();
-
-                // Increase mass for better stability
-                float blockMass = localBlock.getMass();
-                massAcc += blockMass;
-
-                // Add weighted position to centroid
-                Vector3f blockPos = new Vector3f(pos.getX() + 0.5f, pos.getY() + 0.5f, pos.getZ() + 0.5f);
-                blockPos.scale(blockMass);
-                centroidAcc.add(blockPos);
-
-                // Update AABB
-                aabbMin.x = Math.min(aabbMin.x, pos.getX());
-                aabbMin.y = Math.min(aabbMin.y, pos.getY());
-                aabbMin.z = Math.min(aabbMin.z, pos.getZ());
-                aabbMax.x = Math.max(aabbMax.x, pos.getX());
-                aabbMax.y = Math.max(aabbMax.y, pos.getY());
-                aabbMax.z = Math.max(aabbMax.z, pos.getZ());
-            }
-
-            // Finalize centroid
-            if (massAcc > 0) {
-                centroidAcc.scale(1.0f / massAcc);
-            }
-            this.totalMass = massAcc;
-            this.centroid = centroidAcc;
+            this.totalMass = shapeSections.getMassProperties().getMass();
+            this.centroid = shapeSections.getMassProperties().getCenterOfMass();
 
             grid.getRenderComponent().updateRenderState(this.rigidBody);
 
-            // Separate blocks into simple and complex for different processing
-            Map<BlockPos, LocalBlock> simpleBlocks = new HashMap<>();
-            Map<BlockPos, LocalBlock> complexBlocks = new HashMap<>();
-
-            for (Map.Entry<BlockPos, LocalBlock> entry : blocks.entrySet()) {
-                BlockPos pos = entry.getKey();
-                LocalBlock block = entry.getValue();
-
-                if (hasFullCubeHitbox(block.getState())) {
-                    simpleBlocks.put(pos, block);
-                } else {
-                    complexBlocks.put(pos, block);
-                }
-            }
-
-            // Process simple blocks with blockMerger for optimization
-            if (!simpleBlocks.isEmpty()) {
-                SLogger.log(grid, "Processing " + simpleBlocks.size() + " simple blocks with merger");
-
-                // Create a temporary map with just the simple blocks
-                ConcurrentMap<BlockPos, LocalBlock> simpleBlocksMap = new ConcurrentHashMap<>(simpleBlocks);
-
-                // Update block map for merging (simple blocks only)
-                blockMerger.updateBlockMap(simpleBlocksMap, aabbMin, aabbMax);
-                List<GridBlockMerger.BoxShapeData> boxes = blockMerger.generateMergedBoxes();
-
-                // Add merged boxes to compound shape
-                for (GridBlockMerger.BoxShapeData box : boxes) {
-                    blockMerger.addBoxShapeToCompound(box, compound, aabbMin, this.centroid);
-                }
-            }
-
-            // Process complex blocks individually with accurate VoxelShape collision
-            if (!complexBlocks.isEmpty()) {
-                SLogger.log(grid, "Processing " + complexBlocks.size() + " complex blocks with VoxelShape conversion");
-
-                for (Map.Entry<BlockPos, LocalBlock> entry : complexBlocks.entrySet()) {
-                    BlockPos pos = entry.getKey();
-                    LocalBlock block = entry.getValue();
-
-                    // Get or create collision shape from block's VoxelShape
-                    CollisionShape blockShape = getOrCreateShapeFromState(block.getState());
-
-                    if (blockShape != null) {
-                        // Position relative to grid centroid
-                        Transform localTransform = new Transform();
-                        localTransform.setIdentity();
-                        Vector3f blockPosition = new Vector3f(
-                                pos.getX() + 0.5f - centroid.x,
-                                pos.getY() + 0.5f - centroid.y,
-                                pos.getZ() + 0.5f - centroid.z
-                        );
-                        localTransform.origin.set(blockPosition);
-
-                        // Add to compound shape
-                        compound.addChildShape(localTransform, blockShape);
-                    }
-                }
-            }
+            // Section compounds are placed around the new centroid
+            compound = shapeSections.buildCompound(this.centroid);
         }
+        sizeContinuousCollision();
 
         // Store compound shape
         this.collisionShape = compound;
 
-        // Calculate inertia with higher mass for stability
-        Vector3f inertia = new Vector3f(0, 0, 0);
-        collisionShape.calculateLocalInertia(this.totalMass, inertia);
-
-        // Scale up inertia for better rotational stability
-        inertia.scale(2.0f);
+        // Inertia of the blocks themselves, not of the compound's bounding box
+        Vector3f inertia = shapeSections.getMassProperties().getLocalInertia(new Vector3f());
 
         // Set up rigid body transform
         Transform desiredTransform = new Transform();
@@ -606,101 +850,74 @@ class GridPhysicsComponent {
         // Set up collision flags
         rigidBody.setCollisionFlags(rigidBody.getCollisionFlags() | CollisionFlags.CUSTOM_MATERIAL_CALLBACK);
         rigidBody.setUserPointer(grid);
+        applyContinuousCollision();
 
         // Initialize transform history
         currentTransform.set(desiredTransform);
         previousTransform.set(desiredTransform);
+        publishedTransform.set(desiredTransform);
 
         // Activate the rigid body
         rigidBody.activate(true);
     }
 
     /**
-     * Checks if a BlockState has a full cube hitbox.
+     * Moves the body's center of mass by a grid-local offset while the grid itself stays put.
+     * The new center moves with the velocity the old body had at that point.
      */
-    private boolean hasFullCubeHitbox(BlockState state) {
-        try {
-            // Check if the block is a full cube using Minecraft's own method
-            // This returns true for blocks like stone, dirt, etc.
-            return Block.isShapeFullBlock(state.getShape(grid.getWorld(), BlockPos.ZERO));
-        } catch (Exception e) {
-            // Fallback if the method above fails
-            VoxelShape shape = state.getCollisionShape(grid.getWorld(), BlockPos.ZERO);
-            AABB bounds = shape.bounds();
-
-            // Check if bounds are close enough to a full 1x1x1 cube
-            // Using a small epsilon to allow for minor precision differences
-            double epsilon = 0.001;
-            return Math.abs(bounds.minX) < epsilon &&
-                    Math.abs(bounds.minY) < epsilon &&
-                    Math.abs(bounds.minZ) < epsilon &&
-                    Math.abs(bounds.maxX - 1.0) < epsilon &&
-                    Math.abs(bounds.maxY - 1.0) < epsilon &&
-                    Math.abs(bounds.maxZ - 1.0) < epsilon;
-        }
+    private void recenterBody(Vector3f localShift) {
+        Transform bodyTransform = rigidBody.getCenterOfMassTransform(new Transform());
+        Vector3f worldShift = new Vector3f(localShift);
+        bodyTransform.basis.transform(worldShift);
+        bodyTransform.origin.add(worldShift);
+
+        Vector3f linearVelocity = rigidBody.getLinearVelocity(new Vector3f());
+        Vector3f tangential = new Vector3f();
+        tangential.cross(rigidBody.getAngularVelocity(new Vector3f()), worldShift);
+        linearVelocity.add(tangential);
+
+        rigidBody.setCenterOfMassTransform(bodyTransform);
+        rigidBody.setLinearVelocity(linearVelocity);
+        gridMotionState.resetWorldTransform(bodyTransform);
+
+        // Keep interpolation continuous across the shift
+        shiftOrigin(currentTransform, localShift);
+        shiftOrigin(previousTransform, localShift);
+        shiftOrigin(publishedTransform, localShift);
     }
 
-    /**
-     * Gets or creates a collision shape from a BlockState, using caching.
-     */
-    private CollisionShape getOrCreateShapeFromState(BlockState state) {
-        return SHAPE_CACHE.computeIfAbsent(state, this::createShapeFromState);
+    private static void shiftOrigin(Transform transform, Vector3f localShift) {
+        Vector3f worldShift = new Vector3f(localShift);
+        transform.basis.transform(worldShift);
+        transform.origin.add(worldShift);
     }
 
     /**
-     * Creates a collision shape from a BlockState's VoxelShape.
+     * Sizes CCD from the merged boxes. Motion past half the thinnest box in one substep
+     * could skip through a wall that thin, so that is the threshold. The swept sphere must
+     * stay inside the grid, so it fills the box around the center of mass, or half the
+     * thinnest box when the center of mass sits in a hollow. Grids without boxes get no CCD.
      */
-    private CollisionShape createShapeFromState(BlockState state) {
-        VoxelShape voxelShape = state.getCollisionShape(grid.getWorld(), BlockPos.ZERO);
-
-        if (voxelShape.isEmpty()) {
-            return null; // No collision
-        }
-
-        // For complex shapes, create a compound
-        CompoundShape compoundShape = new CompoundShape();
-
-        // Extract each box from the VoxelShape
-        final boolean[] anyBoxes = {false};
-        voxelShape.forAllBoxes((minX, minY, minZ, maxX, maxY, maxZ) -> {
-            // Convert from Minecraft's 0-1 scale to our half-extents (0-0.5)
-            float hx = (float)(maxX - minX) / 2.0f;
-            float hy = (float)(maxY - minY) / 2.0f;
-            float hz = (float)(maxZ - minZ) / 2.0f;
-
-            // Skip degenerate boxes
-            if (hx < 0.001f || hy < 0.001f || hz < 0.001f) return;
-
-            // Create box shape with small margin
-            BoxShape boxShape = new BoxShape(new Vector3f(hx, hy, hz));
-            boxShape.setMargin(COLLISION_MARGIN);
-
-            // Position within local block space
-            Transform localTransform = new Transform();
-            localTransform.setIdentity();
-            localTransform.origin.set(
-                    new Vector3f(
-                            (float)(minX + hx) - 0.5f,
-                            (float)(minY + hy) - 0.5f,
-                            (float)(minZ + hz) - 0.5f
-                    )
-            );
-
-            // Add to compound shape
-            compoundShape.addChildShape(localTransform, boxShape);
-            anyBoxes[0] = true;
+    private void sizeContinuousCollision() {
+        final float[] thinnest = {Float.MAX_VALUE};
+        final float[] room = {0.0f};
+        shapeSections.forEachBox((minX, minY, minZ, sizeX, sizeY, sizeZ) -> {
+            thinnest[0] = Math.min(thinnest[0], Math.min(sizeX, Math.min(sizeY, sizeZ)));
+
+            // Distance from the center of mass to the nearest face, positive only inside the box
+            float insideX = Math.min(centroid.x - minX, minX + sizeX - centroid.x);
+            float insideY = Math.min(centroid.y - minY, minY + sizeY - centroid.y);
+            float insideZ = Math.min(centroid.z - minZ, minZ + sizeZ - centroid.z);
+            room[0] = Math.max(room[0], Math.min(insideX, Math.min(insideY, insideZ)));
         });
 
-        if (!anyBoxes[0]) {
-            // No boxes in shape - use a minimal shape
-            BoxShape minimal = new BoxShape(new Vector3f(0.01f, 0.01f, 0.01f));
-            minimal.setMargin(COLLISION_MARGIN);
-            Transform localTransform = new Transform();
-            localTransform.setIdentity();
-            compoundShape.addChildShape(localTransform, minimal);
+        if (thinnest[0] == Float.MAX_VALUE) {
+            ccdMotionThreshold = 0.0f;
+            ccdSweptSphereRadius = 0.0f;
+            return;
         }
-
-        return compoundShape;
+        ccdMotionThreshold = thinnest[0] * CCD_THRESHOLD_SCALE;
+        ccdSweptSphereRadius = (room[0] > 0.0f ? room[0] : thinnest[0] * 0.5f) * CCD_SPHERE_SCALE;
     }
 
     // ----------------------------------------------
@@ -754,7 +971,7 @@ class GridPhysicsComponent {
      * Gets the active subchunks.
      */
     public Set<SubchunkCoordinates> getActiveSubchunks() {
-        return activeSubchunks;
+        return activeSubchunks.keySet();
     }
 
     // ----------------------------------------------
@@ -0,0 +1,314 @@
+package net.starlight.stardance.core;
+
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.linearmath.Transform;
+import net.minecraft.core.BlockPos;
+import net.starlight.stardance.physics.PhysicsConfig;
+import net.starlight.stardance.physics.voxel.VoxelGridShape;
+import org.joml.Vector3i;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a grid's collision shape into 16x16x16 sections of grid-local space.
+ * Each section caches its own compound of merged boxes and complex block shapes, placed relative
+ * to the section's corner. Mass properties are kept as running sums over all blocks. Block edits only mark their section dirty, and a
+ * rebuild re-merges just the dirty sections, so its cost follows how local the edits are rather
+ * than the size of the grid. The grid's shape is a compound of the section compounds, which
+ * also gives the narrowphase a shallow tree to descend instead of one flat list of children.
+ * With voxel collision on, each section also keeps its full cubes as voxel bits, for grids that
+ * collide as a {@link VoxelGridShape}.
+ * This class is package-private - external code should use LocalGrid instead.
+ */
+class GridShapeSections {
+    // ----------------------------------------------
+    // CONSTANTS
+    // ----------------------------------------------
+    static final int SECTION_SIZE = 16;
+    private static final int SECTION_SHIFT = 4;
+
+    // ----------------------------------------------
+    // SECTIONS
+    // ----------------------------------------------
+    private final Map<Long, Section> sections = new LinkedHashMap<>();  // Stable order keeps compound child indices stable
+    private final GridMassProperties massProperties = new GridMassProperties();
+    private boolean loaded = false;
+
+    // ----------------------------------------------
+    // BLOCK TRACKING
+    // ----------------------------------------------
+    /**
+     * Replaces all sections with the given blocks, every one of them dirty.
+     */
+    void load(Map<BlockPos, LocalBlock> blocks) {
+        sections.clear();
+        massProperties.clear();
+        for (Map.Entry<BlockPos, LocalBlock> entry : blocks.entrySet()) {
+            update(entry.getKey(), entry.getValue());
+        }
+        loaded = true;
+    }
+
+    /**
+     * Drops every section until the next {@link #load}.
+     */
+    void unload() {
+        sections.clear();
+        massProperties.clear();
+        loaded = false;
+    }
+
+    /**
+     * Whether the sections mirror the grid's blocks, so edits can be applied one by one.
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Records the block now at a position, or null if it was removed, and marks its section dirty.
+     * Mass properties follow the edit immediately.
+     */
+    void update(BlockPos pos, LocalBlock block) {
+        int sx = pos.getX() >> SECTION_SHIFT;
+        int sy = pos.getY() >> SECTION_SHIFT;
+        int sz = pos.getZ() >> SECTION_SHIFT;
+        long key = key(sx, sy, sz);
+
+        Section section = sections.get(key);
+        if (section == null) {
+            if (block == null) return;
+            section = new Section(sx, sy, sz);
+            sections.put(key, section);
+        }
+
+        LocalBlock previous = block != null ? section.blocks.put(pos.immutable(), block) : section.blocks.remove(pos);
+        if (previous != null) {
+            massProperties.remove(pos, previous.getMass());
+        }
+        if (block != null) {
+            massProperties.add(pos, block.getMass());
+        }
+        section.dirty = true;
+    }
+
+    // ----------------------------------------------
+    // REBUILDING
+    // ----------------------------------------------
+    /**
+     * Re-merges every dirty section and drops the ones left empty.
+     * Once voxel collision is turned on, sections built without voxel bits are re-merged too.
+     *
+     * @param merger Merger for the full cubes of a section
+     * @return Number of sections re-merged
+     */
+    int rebuildDirty(GridBlockMerger merger) {
+        boolean voxelCollision = PhysicsConfig.VOXEL_COLLISION;
+        int rebuilt = 0;
+        Iterator<Section> iterator = sections.values().iterator();
+        while (iterator.hasNext()) {
+            Section section = iterator.next();
+            if (!section.dirty && (!voxelCollision || section.hasVoxelData)) continue;
+
+            if (section.blocks.isEmpty()) {
+                iterator.remove();
+                continue;
+            }
+            section.rebuild(merger, voxelCollision);
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Builds the grid's shape from the section compounds, placed around the given centre of mass.
+     * With voxel collision on, the full cubes of every section go into one voxel shape instead
+     * and only the complex blocks keep their section compounds. Sections not yet rebuilt with
+     * voxel bits keep their full compound.
+     * A new compound every time, since snapshots taken by other threads may still hold the last one.
+     */
+    CompoundShape buildCompound(Vector3f centroid) {
+        boolean voxelCollision = PhysicsConfig.VOXEL_COLLISION;
+        CompoundShape compound = new CompoundShape();
+        Transform sectionTransform = new Transform();
+        sectionTransform.setIdentity();
+        List<VoxelGridShape.Section> voxelSections = new ArrayList<>();
+
+        for (Section section : sections.values()) {
+            boolean useVoxels = voxelCollision && section.hasVoxelData;
+            CompoundShape sectionShape = useVoxels ? section.complexShape : section.shape;
+            if (useVoxels && section.voxels != null) {
+                voxelSections.add(section.voxels);
+            }
+            if (sectionShape == null) continue;
+            sectionTransform.origin.set(
+                    section.originX() - centroid.x,
+                    section.originY() - centroid.y,
+                    section.originZ() - centroid.z);
+            compound.addChildShape(sectionTransform, sectionShape);
+        }
+
+        if (!voxelSections.isEmpty()) {
+            // Voxel coordinates are grid-local block coordinates
+            sectionTransform.origin.set(-centroid.x, -centroid.y, -centroid.z);
+            compound.addChildShape(sectionTransform, new VoxelGridShape(voxelSections));
+        }
+        return compound;
+    }
+
+    /**
+     * Visits every merged box of every section, in grid-local block coordinates.
+     */
+    void forEachBox(BoxVisitor visitor) {
+        for (Section section : sections.values()) {
+            for (GridBlockMerger.BoxShapeData box : section.boxes) {
+                visitor.visit(section.boxOrigin.x + box.x, section.boxOrigin.y + box.y, section.boxOrigin.z + box.z,
+                        box.width, box.height, box.depth);
+            }
+        }
+    }
+
+    // ----------------------------------------------
+    // GETTERS
+    // ----------------------------------------------
+    /**
+     * Mass properties of every block recorded so far, dirty sections included.
+     */
+    GridMassProperties getMassProperties() {
+        return massProperties;
+    }
+
+    /**
+     * Number of sections holding blocks.
+     */
+    int getSectionCount() {
+        return sections.size();
+    }
+
+    private static long key(int sx, int sy, int sz) {
+        return ((long) sx & 0x1FFFFF) << 42 | ((long) sy & 0x1FFFFF) << 21 | ((long) sz & 0x1FFFFF);
+    }
+
+    // ----------------------------------------------
+    // NESTED CLASSES
+    // ----------------------------------------------
+    /**
+     * Receives merged boxes from {@link #forEachBox}.
+     */
+    interface BoxVisitor {
+        void visit(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ);
+    }
+
+    /**
+     * One 16x16x16 section: its blocks and the shape merged from them.
+     */
+    private static final class Section {
+        final int sx, sy, sz;
+        final Map<BlockPos, LocalBlock> blocks = new HashMap<>();
+        boolean dirty = true;
+
+        // Results of the last rebuild
+        CompoundShape shape;                                       // Null when no block in the section collides
+        boolean hasVoxelData;                                      // Whether the two fields below were built
+        CompoundShape complexShape;                                // Complex blocks only, for voxel collision
+        VoxelGridShape.Section voxels;                             // Full cubes, null when there are none
+        List<GridBlockMerger.BoxShapeData> boxes = Collections.emptyList();
+        final Vector3i boxOrigin = new Vector3i();                 // Grid-local corner the boxes are relative to
+
+        Section(int sx, int sy, int sz) {
+            this.sx = sx;
+            this.sy = sy;
+            this.sz = sz;
+        }
+
+        int originX() {
+            return sx * SECTION_SIZE;
+        }
+
+        int originY() {
+            return sy * SECTION_SIZE;
+        }
+
+        int originZ() {
+            return sz * SECTION_SIZE;
+        }
+
+        void rebuild(GridBlockMerger merger, boolean voxelCollision) {
+            CompoundShape compound = new CompoundShape();
+            long[] voxelBits = voxelCollision ? new long[VoxelGridShape.Section.WORDS] : null;
+            Vector3f origin = new Vector3f(originX(), originY(), originZ());
+            Transform localTransform = new Transform();
+            localTransform.setIdentity();
+            Vector3i min = new Vector3i(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            Vector3i max = new Vector3i(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
+            Map<BlockPos, LocalBlock> simpleBlocks = new HashMap<>();
+
+            for (Map.Entry<BlockPos, LocalBlock> entry : blocks.entrySet()) {
+                BlockPos pos = entry.getKey();
+                LocalBlock block = entry.getValue();
+
+                BlockShapeRegistry.Entry shapeEntry = BlockShapeRegistry.get(block.getState());
+                if (shapeEntry.shapeClass == BlockShapeRegistry.ShapeClass.EMPTY) {
+                    continue;
+                }
+                if (shapeEntry.shapeClass == BlockShapeRegistry.ShapeClass.FULL_CUBE) {
+                    simpleBlocks.put(pos, block);
+                    if (voxelBits != null) {
+                        VoxelGridShape.Section.set(voxelBits, pos.getX() & (SECTION_SIZE - 1),
+                                pos.getY() & (SECTION_SIZE - 1), pos.getZ() & (SECTION_SIZE - 1));
+                    }
+                    min.x = Math.min(min.x, pos.getX());
+                    min.y = Math.min(min.y, pos.getY());
+                    min.z = Math.min(min.z, pos.getZ());
+                    max.x = Math.max(max.x, pos.getX());
+                    max.y = Math.max(max.y, pos.getY());
+                    max.z = Math.max(max.z, pos.getZ());
+                    continue;
+                }
+
+                // Complex blocks share their state's shape, placed at the cell
+                shapeEntry.getOffset(localTransform.origin);
+                localTransform.origin.x += pos.getX() + 0.5f - origin.x;
+                localTransform.origin.y += pos.getY() + 0.5f - origin.y;
+                localTransform.origin.z += pos.getZ() + 0.5f - origin.z;
+                compound.addChildShape(localTransform, shapeEntry.shape);
+            }
+
+            // Before the boxes join it, the compound holds just the complex blocks
+            hasVoxelData = voxelCollision;
+            complexShape = null;
+            voxels = null;
+            if (voxelCollision && compound.getNumChildShapes() > 0) {
+                complexShape = new CompoundShape();
+                Transform childTransform = new Transform();
+                for (int i = 0; i < compound.getNumChildShapes(); i++) {
+                    complexShape.addChildShape(compound.getChildTransform(i, childTransform), compound.getChildShape(i));
+                }
+            }
+            if (voxelCollision) {
+                voxels = VoxelGridShape.Section.of(sx, sy, sz, voxelBits);
+            }
+
+            if (simpleBlocks.isEmpty()) {
+                boxes = Collections.emptyList();
+            } else {
+                merger.updateBlockMap(simpleBlocks, min, max);
+                boxes = new ArrayList<>(merger.generateMergedBoxes());
+                boxOrigin.set(min);
+                for (GridBlockMerger.BoxShapeData box : boxes) {
+                    merger.addBoxShapeToCompound(box, compound, min, origin);
+                }
+            }
+
+            shape = compound.getNumChildShapes() > 0 ? compound : null;
+            dirty = false;
+        }
+    }
+}
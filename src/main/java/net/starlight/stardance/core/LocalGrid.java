@@ -9,7 +9,9 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.Vec3;
 import net.starlight.stardance.gridspace.GridSpaceBlockManager;
+import net.starlight.stardance.physics.PhysicsConfig;
 import net.starlight.stardance.physics.PhysicsEngine;
+import net.starlight.stardance.physics.PhysicsWorkerPool;
 import net.starlight.stardance.utils.ILoggingControl;
 import net.starlight.stardance.utils.SLogger;
 
@@ -17,8 +19,11 @@ import javax.vecmath.Quat4f;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import static net.starlight.stardance.Stardance.engineManager;
 
@@ -65,6 +70,8 @@ public class LocalGrid implements ILoggingControl {
     // ----------------------------------------------
     private boolean isDirty = true;           // Whether grid needs rebuild
     private boolean blocksDirty = false;      // Whether blocks have changed
+    private final Set<BlockPos> changedBlocks = ConcurrentHashMap.newKeySet(); // Blocks added or removed since the last rebuild
+    private CompletableFuture<Void> pendingMerge = null; // Background merge of a large edit batch, not yet installed
     private volatile boolean renderDataInvalidated = false;
     private volatile boolean isDestroyed = false; // Whether this grid has been destroyed
 
@@ -284,8 +291,7 @@ public class LocalGrid implements ILoggingControl {
             // Try to get current position from physics simulation
             if (physicsComponent != null && physicsComponent.getRigidBody() != null) {
                 // Get current transform from rigid body
-                Transform currentTransform = new Transform();
-                physicsComponent.getRigidBody().getMotionState().getWorldTransform(currentTransform);
+                Transform currentTransform = physicsComponent.readMotionStateTransform(new Transform());
 
                 // Extract position from transform
                 Vector3f currentPos = currentTransform.origin;
@@ -313,8 +319,7 @@ public class LocalGrid implements ILoggingControl {
     public javax.vecmath.Quat4f getWorldRotation() {
         try {
             if (physicsComponent != null && physicsComponent.getRigidBody() != null) {
-                Transform currentTransform = new Transform();
-                physicsComponent.getRigidBody().getMotionState().getWorldTransform(currentTransform);
+                Transform currentTransform = physicsComponent.readMotionStateTransform(new Transform());
 
                 javax.vecmath.Quat4f rotation = new javax.vecmath.Quat4f();
                 currentTransform.getRotation(rotation);
@@ -418,8 +423,12 @@ public class LocalGrid implements ILoggingControl {
             // Update physics component only once per tick
             physicsComponent.updateTransforms();
 
-            // Apply physics effects
-            physicsComponent.applyVelocityDamping();
+            // Apply physics effects, covering every tick since the last update for grids on a reduced LOD
+            int elapsedTicks = isNewTick && lastProcessedTick > 0
+                    ? (int) Math.max(1, Math.min(currentServerTick - lastProcessedTick, PhysicsConfig.LOD_REDUCED_INTERVAL))
+                    : 1;
+            physicsComponent.applyVelocityDamping(elapsedTicks);
+            physicsComponent.applyContinuousCollision();
 
             // Only do expensive operations once per server tick
             if (isNewTick) {
@@ -427,9 +436,7 @@ public class LocalGrid implements ILoggingControl {
                 tickBlockEntities();
 
                 // Rebuild if necessary
-                if (isDirty) {
-                    rebuildPhysics();
-
+                if (isDirty && rebuildPhysics()) {
                     // FIXED: Use networking component instead of direct calls
                     networkingComponent.setPendingNetworkUpdate(true);
                     networkingComponent.setRebuildInProgress(false); // Rebuild is complete
@@ -437,12 +444,6 @@ public class LocalGrid implements ILoggingControl {
                     SLogger.log(this, "Physics rebuilt for grid " + gridId + ", marked for network update");
                 }
 
-                // DEBUG: Track network update calls
-                debug.networkUpdateCallsThisTick++;
-
-                // FIXED: Handle network updates only once per server tick
-                networkingComponent.handleNetworkUpdates();
-
                 // Update which subchunks this grid overlaps
                 physicsComponent.updateActiveSubchunks();
 
@@ -468,6 +469,15 @@ public class LocalGrid implements ILoggingControl {
             }
         }
 
+        // Network updates only read server-side state, so they run outside the physics lock
+        if (isNewTick) {
+            // DEBUG: Track network update calls
+            debug.networkUpdateCallsThisTick++;
+
+            // FIXED: Handle network updates only once per server tick
+            networkingComponent.handleNetworkUpdates();
+        }
+
         // Update render component with latest physics state - after completing physics update
         renderComponent.updateRenderState(physicsComponent.getRigidBody());
 
@@ -484,16 +494,93 @@ public class LocalGrid implements ILoggingControl {
 
     /**
      * Rebuilds physics properties after changes.
+     * Edits patch the existing collision shape, re-merging only the sections they touch,
+     * unless the rigid body itself has to be rebuilt. Large batches are merged on a worker
+     * thread and installed on a later tick; the grid keeps its old shape until then.
+     *
+     * @return Whether the new shape is in place, false while a background merge is running
      */
-    public void rebuildPhysics() {
-        if (isDestroyed) return;
+    public boolean rebuildPhysics() {
+        if (isDestroyed) return false;
 
-        physicsComponent.rebuildPhysics(blocks, blockMerger);
+        if (pendingMerge != null) {
+            if (!pendingMerge.isDone()) {
+                return false;
+            }
+            installBackgroundMerge();
+        } else {
+            Set<BlockPos> changed = new HashSet<>(changedBlocks);
+            changedBlocks.removeAll(changed);
+
+            if (startBackgroundMerge(changed)) {
+                return false;
+            }
+            if (!physicsComponent.applyBlockChanges(blocks, changed, blockMerger)) {
+                physicsComponent.rebuildPhysics(blocks, blockMerger);
+            }
+        }
 
         // PERFORMANCE: Flag that cached render data is now invalid
         renderDataInvalidated = true;
 
-        markClean();
+        // Edits made while a background merge ran are picked up next tick
+        if (changedBlocks.isEmpty()) {
+            markClean();
+        }
+        return true;
+    }
+
+    /**
+     * Hands a large batch of edits to the rebuild executor, working from a copy of the blocks.
+     *
+     * @return Whether the merge was started
+     */
+    private boolean startBackgroundMerge(Set<BlockPos> changed) {
+        boolean replaceAll = !physicsComponent.hasMergedShape();
+        int batchSize = replaceAll ? blocks.size() : changed.size();
+        if (!PhysicsConfig.ASYNC_REBUILD || batchSize < PhysicsConfig.ASYNC_REBUILD_MIN_BLOCKS) {
+            return false;
+        }
+
+        Map<BlockPos, LocalBlock> edits = new HashMap<>();
+        if (replaceAll) {
+            edits.putAll(blocks);
+        } else {
+            for (BlockPos pos : changed) {
+                edits.put(pos, blocks.get(pos));
+            }
+        }
+
+        try {
+            pendingMerge = CompletableFuture.runAsync(() -> physicsComponent.mergeBlocks(edits, replaceAll, blockMerger),
+                    PhysicsWorkerPool.getRebuildExecutor());
+        } catch (RejectedExecutionException e) {
+            // Shutting down; merge in place instead
+            changedBlocks.addAll(changed);
+            return false;
+        }
+        SLogger.log(this, "Merging " + batchSize + " blocks in the background");
+        return true;
+    }
+
+    /**
+     * Swaps a finished background merge into the rigid body. A failed merge falls back to
+     * a full rebuild from the current blocks.
+     */
+    private void installBackgroundMerge() {
+        CompletableFuture<Void> merge = pendingMerge;
+        pendingMerge = null;
+
+        try {
+            merge.join();
+        } catch (CompletionException e) {
+            SLogger.log(this, "Background merge failed, rebuilding in place: " + e.getCause());
+            physicsComponent.discardMergedShape();
+        }
+
+        if (!physicsComponent.installMergedShape()) {
+            physicsComponent.rebuildPhysics(blocks, blockMerger);
+        }
     }
 
     /**
@@ -539,6 +626,7 @@ public class LocalGrid implements ILoggingControl {
             }
 
             // Mark grid as needing updates
+            changedBlocks.add(pos);
             markDirty();
             blocksDirty = true;
             networkingComponent.setPendingNetworkUpdate(true);
@@ -573,6 +661,7 @@ public class LocalGrid implements ILoggingControl {
                 return gridSpaceSuccess;
             }
 
+            changedBlocks.add(pos);
             markDirty();
             blocksDirty = true;
 
@@ -644,6 +733,7 @@ public class LocalGrid implements ILoggingControl {
 
             if (gridSpaceBlocks.containsKey(pos) && !blocks.containsKey(pos)) {
                 blocks.put(pos, block);
+                changedBlocks.add(pos);
                 localCount++;
             }
         }
@@ -691,32 +781,72 @@ public class LocalGrid implements ILoggingControl {
 
     /**
      * Applies an impulse to the grid's center of mass.
+     * Queued on the engine's command buffer and applied right before the next step.
      *
      * @param impulse Impulse vector to apply
      */
     public void applyImpulse(Vector3f impulse) {
         if (isDestroyed) return;
 
-        RigidBody body = getRigidBody();
-        if (body != null) {
-            body.applyCentralImpulse(impulse);
-            body.activate(true);
-        }
+        engine.getCommandBuffer().applyImpulse(this, impulse);
     }
 
     /**
      * Applies torque to the grid.
+     * Queued on the engine's command buffer and applied right before the next step.
      *
      * @param torque Torque vector to apply
      */
     public void applyTorque(Vector3f torque) {
         if (isDestroyed) return;
 
-        RigidBody body = getRigidBody();
-        if (body != null) {
-            body.applyTorque(torque);
-            body.activate(true);
-        }
+        engine.getCommandBuffer().applyTorque(this, torque);
+    }
+
+    /**
+     * Suspends or resumes physics simulation for this grid.
+     * A frozen grid stays in place and still blocks other bodies.
+     * Queued on the engine's command buffer and applied right before the next step.
+     *
+     * @param frozen Whether the grid should be frozen
+     */
+    public void setPhysicsFrozen(boolean frozen) {
+        if (isDestroyed) return;
+
+        engine.getCommandBuffer().run(() -> physicsComponent.setFrozen(frozen));
+    }
+
+    /**
+     * Whether Bullet sweeps this grid's body so it can't tunnel when moving fast.
+     */
+    public boolean hasContinuousCollision() {
+        return physicsComponent.hasContinuousCollision();
+    }
+
+    /**
+     * Whether physics simulation is suspended for this grid.
+     */
+    public boolean isPhysicsFrozen() {
+        return physicsComponent.isFrozen();
+    }
+
+    /**
+     * Releases every subchunk mesh this grid holds active.
+     * Used while the grid is parked and nothing can collide on its behalf.
+     */
+    public void releaseActiveSubchunks() {
+        if (isDestroyed) return;
+
+        physicsComponent.releaseActiveSubchunks();
+    }
+
+    /**
+     * Activates the subchunk meshes the grid currently overlaps, ahead of its next tick update.
+     */
+    public void refreshActiveSubchunks() {
+        if (isDestroyed) return;
+
+        physicsComponent.updateActiveSubchunks();
     }
 
     /**
@@ -733,8 +863,7 @@ public class LocalGrid implements ILoggingControl {
             }
 
             // Get the current transform of the rigid body
-            Transform bodyTransform = new Transform();
-            rigidBody.getWorldTransform(bodyTransform);
+            Transform bodyTransform = getPhysicsComponent().readBodyTransform(new Transform());
 
             // Transform world position to grid-local coordinates
             Vector3f worldPosBullet = new Vector3f((float)worldPos.x, (float)worldPos.y, (float)worldPos.z);
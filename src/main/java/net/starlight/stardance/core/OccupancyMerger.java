@@ -0,0 +1,255 @@
+package net.starlight.stardance.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bit-packed occupancy volume that decomposes into axis-aligned boxes.
+ * <p>
+ * Each row along X is stored as 64-bit words, so a volume costs one bit per cell and runs are
+ * found and checked a word at a time. Merging is greedy: take the first occupied cell, grow a
+ * run along X, then grow the run across the other two axes while every row under it is full.
+ * The thorough mode repeats this for both orders of the other two axes, and again with X and Z
+ * swapped, and keeps whichever decomposition has the fewest boxes.
+ */
+public final class OccupancyMerger {
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final int wordsPerRow;
+    private final long[] bits;      // Row (y, z) starts at (y * sizeZ + z) * wordsPerRow
+
+    public OccupancyMerger(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.wordsPerRow = (sizeX + 63) >>> 6;
+        this.bits = new long[sizeY * sizeZ * wordsPerRow];
+    }
+
+    // -------------------------------------------
+    // OCCUPANCY
+    // -------------------------------------------
+
+    public void set(int x, int y, int z) {
+        bits[rowStart(y, z) + (x >>> 6)] |= 1L << x;
+    }
+
+    public boolean get(int x, int y, int z) {
+        return (bits[rowStart(y, z) + (x >>> 6)] & 1L << x) != 0;
+    }
+
+    /**
+     * Size of the occupancy bitset.
+     */
+    public long getMemoryBytes() {
+        return bits.length * 8L;
+    }
+
+    // -------------------------------------------
+    // MERGING
+    // -------------------------------------------
+
+    /**
+     * Covers every occupied cell with non-overlapping boxes.
+     *
+     * @param thorough Whether to try every greedy order and keep the one with the fewest boxes
+     */
+    public List<Box> merge(boolean thorough) {
+        List<Box> best = greedy(true);
+        if (!thorough || best.size() <= 1) {
+            return best;
+        }
+
+        List<Box> yFirst = greedy(false);
+        if (yFirst.size() < best.size()) {
+            best = yFirst;
+        }
+
+        // Runs along Z instead of X, mapped back afterwards
+        OccupancyMerger transposed = transpose();
+        for (boolean zFirst : new boolean[]{true, false}) {
+            List<Box> boxes = transposed.greedy(zFirst);
+            if (boxes.size() < best.size()) {
+                best = new ArrayList<>(boxes.size());
+                for (Box box : boxes) {
+                    best.add(new Box(box.z, box.y, box.x, box.depth, box.height, box.width));
+                }
+            }
+        }
+        return best;
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    /**
+     * One greedy pass over a copy of the occupancy, clearing cells as boxes claim them.
+     *
+     * @param zFirst Grow each run across Z before Y, as the original merger did, or Y before Z
+     */
+    private List<Box> greedy(boolean zFirst) {
+        long[] work = bits.clone();
+        List<Box> boxes = new ArrayList<>();
+
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                int row = rowStart(y, z);
+                int x = nextSet(work, row, 0);
+                while (x >= 0) {
+                    int width = runLength(work, row, x);
+                    int end = x + width;
+                    int height = 1;
+                    int depth = 1;
+
+                    if (zFirst) {
+                        while (z + depth < sizeZ && isFull(work, rowStart(y, z + depth), x, end)) {
+                            depth++;
+                        }
+                        while (y + height < sizeY && isSlabFull(work, y + height, y + height + 1, z, z + depth, x, end)) {
+                            height++;
+                        }
+                    } else {
+                        while (y + height < sizeY && isFull(work, rowStart(y + height, z), x, end)) {
+                            height++;
+                        }
+                        while (z + depth < sizeZ && isSlabFull(work, y, y + height, z + depth, z + depth + 1, x, end)) {
+                            depth++;
+                        }
+                    }
+
+                    for (int j = y; j < y + height; j++) {
+                        for (int k = z; k < z + depth; k++) {
+                            clear(work, rowStart(j, k), x, end);
+                        }
+                    }
+                    boxes.add(new Box(x, y, z, width, height, depth));
+
+                    x = end < sizeX ? nextSet(work, row, end) : -1;
+                }
+            }
+        }
+        return boxes;
+    }
+
+    private int rowStart(int y, int z) {
+        return (y * sizeZ + z) * wordsPerRow;
+    }
+
+    /**
+     * First occupied X at or after from in a row, or -1.
+     */
+    private int nextSet(long[] words, int row, int from) {
+        int word = from >>> 6;
+        if (word >= wordsPerRow) return -1;
+
+        long current = words[row + word] & (-1L << from);
+        while (true) {
+            if (current != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(current);
+            }
+            if (++word == wordsPerRow) {
+                return -1;
+            }
+            current = words[row + word];
+        }
+    }
+
+    /**
+     * Number of consecutive occupied cells starting at an occupied X.
+     */
+    private int runLength(long[] words, int row, int from) {
+        int x = from;
+        int word = x >>> 6;
+        while (word < wordsPerRow) {
+            int bit = x & 63;
+            int run = Long.numberOfTrailingZeros(~(words[row + word] >>> bit));
+            x += Math.min(run, 64 - bit);
+            if (bit + run < 64) {
+                break;
+            }
+            word++;
+        }
+        return x - from;
+    }
+
+    /**
+     * Whether every cell in [from, to) of a row is occupied.
+     */
+    private boolean isFull(long[] words, int row, int from, int to) {
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            long mask = rangeMask(word, from, to);
+            if ((words[row + word] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSlabFull(long[] words, int fromY, int toY, int fromZ, int toZ, int fromX, int toX) {
+        for (int y = fromY; y < toY; y++) {
+            for (int z = fromZ; z < toZ; z++) {
+                if (!isFull(words, rowStart(y, z), fromX, toX)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void clear(long[] words, int row, int from, int to) {
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            words[row + word] &= ~rangeMask(word, from, to);
+        }
+    }
+
+    /**
+     * Bits of a word that fall within [from, to).
+     */
+    private static long rangeMask(int word, int from, int to) {
+        int low = Math.max(from - (word << 6), 0);
+        int high = Math.min(to - (word << 6), 64);
+        long upTo = high == 64 ? -1L : (1L << high) - 1;
+        return upTo & (-1L << low);
+    }
+
+    private OccupancyMerger transpose() {
+        OccupancyMerger transposed = new OccupancyMerger(sizeZ, sizeY, sizeX);
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                int row = rowStart(y, z);
+                for (int x = nextSet(bits, row, 0); x >= 0; x = x + 1 < sizeX ? nextSet(bits, row, x + 1) : -1) {
+                    transposed.set(z, y, x);
+                }
+            }
+        }
+        return transposed;
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * A box of occupied cells: its minimum corner and its size along X, Y and Z.
+     */
+    public static final class Box {
+        public final int x, y, z;
+        public final int width, height, depth;
+
+        public Box(int x, int y, int z, int width, int height, int depth) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+        }
+    }
+}
@@ -438,9 +438,11 @@ public class GridSpaceManager implements ILoggingControl {
      */
     public static LocalGrid getGridAtWorldPosition(BlockPos worldPos) {
         try {
-            // Get all engines and check their grids
+            Vec3 center = Vec3.atCenterOf(worldPos);
+
+            // Only grids whose bounds contain the position can render a block there
             for (PhysicsEngine engine : net.starlight.stardance.Stardance.engineManager.getAllEngines().values()) {
-                for (LocalGrid grid : engine.getGrids()) {
+                for (LocalGrid grid : engine.getGridIndex().queryPoint(center.x, center.y, center.z)) {
                     if (grid.isDestroyed()) {
                         continue;
                     }
@@ -529,7 +531,7 @@ public class GridSpaceManager implements ILoggingControl {
      *
      * @param worldPos World position to search around
      * @param radius Search radius in blocks
-     * @return List of LocalGrids within the radius
+     * @return List of LocalGrids whose world bounds come within the radius
      */
     public static List<LocalGrid> getGridsNear(Vec3 worldPos, double radius) {
         List<LocalGrid> nearbyGrids = new ArrayList<>();
@@ -542,20 +544,9 @@ public class GridSpaceManager implements ILoggingControl {
                 PhysicsEngine physicsEngine = engineManager.getEngine(serverLevel);
 
                 if (physicsEngine != null) {
-                    // Check all active grids in this world
-                    for (LocalGrid grid : physicsEngine.getActiveGrids()) {
-                        if (grid.isDestroyed()) {
-                            continue;
-                        }
-
-                        // Get grid's world position (where it's visually rendered)
-                        Vec3 gridWorldPos = grid.getWorldPosition();
-
-                        // Calculate distance between world position and grid position
-                        double distance = worldPos.distanceTo(gridWorldPos);
-
-                        // Include grid if within radius
-                        if (distance <= radius) {
+                    // Grids whose world bounds come within the radius
+                    for (LocalGrid grid : physicsEngine.getGridIndex().querySphere(worldPos.x, worldPos.y, worldPos.z, radius)) {
+                        if (!grid.isDestroyed()) {
                             nearbyGrids.add(grid);
                         }
                     }
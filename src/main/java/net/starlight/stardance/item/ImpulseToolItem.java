@@ -122,8 +122,8 @@ public class ImpulseToolItem extends Item implements ILoggingControl {
         if (body == null) return;
 
         // Get the grid's current position
-        Vector3f currentPos = new Vector3f();
-        body.getCenterOfMassPosition(currentPos);
+        Vec3 worldPos = grid.getWorldPosition();
+        Vector3f currentPos = new Vector3f((float) worldPos.x, (float) worldPos.y, (float) worldPos.z);
 
         // Calculate direction vector from grid to target
         Vector3f impulseDir = new Vector3f(
@@ -137,11 +137,8 @@ public class ImpulseToolItem extends Item implements ILoggingControl {
         if (length > 0.001f) {
             impulseDir.scale(strength / length);
 
-            // Apply central impulse to the rigid body
-            body.applyCentralImpulse(impulseDir);
-
-            // Wake up the body to ensure it responds to the impulse
-            body.activate(true);
+            // Apply central impulse through the grid so it is safe against the physics thread
+            grid.applyImpulse(impulseDir);
 
             SLogger.log(this, "Applied impulse: " + impulseDir + " to grid at " + currentPos);
         }
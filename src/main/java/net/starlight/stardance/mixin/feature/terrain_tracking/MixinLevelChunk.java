@@ -0,0 +1,36 @@
+package net.starlight.stardance.mixin.feature.terrain_tracking;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.starlight.stardance.utils.BlockEventHandler;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Reports every block state change in a server chunk, so terrain collision follows pistons,
+ * explosions, fluids and commands as well as players.
+ */
+@Mixin(LevelChunk.class)
+public class MixinLevelChunk {
+
+    @Final
+    @Shadow
+    Level level;
+
+    /**
+     * setBlockState returns the previous state, or null when nothing changed.
+     */
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void onSetBlockState(BlockPos pos, BlockState state, boolean isMoving, CallbackInfoReturnable<BlockState> cir) {
+        if (cir.getReturnValue() != null && level instanceof ServerLevel serverLevel) {
+            BlockEventHandler.onBlockChanged(serverLevel, pos);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+
+import javax.vecmath.Vector3f;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned box shapes for the merged boxes of an engine's grids.
+ * Merged boxes have whole-block sizes and only a handful of sizes are common, so one shape
+ * per size and margin is shared by every compound that needs it. Shapes are never modified
+ * after creation, which makes sharing them across grids and threads safe.
+ */
+public class BoxShapePool {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    private static final int MAX_SIZE = 0xFFFF;          // Largest size per axis, in blocks
+    private static final float MARGIN_UNIT = 0.001f;     // Margins are keyed in thousandths of a block
+
+    private final Map<Long, BoxShape> shapes = new ConcurrentHashMap<>();
+
+    BoxShapePool() {
+    }
+
+    /**
+     * Gets the shared box shape for a box of whole blocks.
+     *
+     * @param width Size along X in blocks
+     * @param height Size along Y in blocks
+     * @param depth Size along Z in blocks
+     * @param margin Collision margin
+     */
+    public BoxShape get(int width, int height, int depth, float margin) {
+        if (width > MAX_SIZE || height > MAX_SIZE || depth > MAX_SIZE) {
+            return create(width, height, depth, margin);
+        }
+
+        int marginKey = Math.min(Math.round(margin / MARGIN_UNIT), MAX_SIZE);
+        long key = (long) width | (long) height << 16 | (long) depth << 32 | (long) marginKey << 48;
+        return shapes.computeIfAbsent(key, k -> create(width, height, depth, marginKey * MARGIN_UNIT));
+    }
+
+    /**
+     * Number of distinct shapes held.
+     */
+    public int size() {
+        return shapes.size();
+    }
+
+    private static BoxShape create(int width, int height, int depth, float margin) {
+        BoxShape boxShape = new BoxShape(new Vector3f(width * 0.5f, height * 0.5f, depth * 0.5f));
+        boxShape.setMargin(margin);
+        return boxShape;
+    }
+}
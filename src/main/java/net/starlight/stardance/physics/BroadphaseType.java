@@ -0,0 +1,54 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.collision.broadphase.AxisSweep3;
+import com.bulletphysics.collision.broadphase.BroadphaseInterface;
+import com.bulletphysics.collision.broadphase.DbvtBroadphase;
+import com.bulletphysics.collision.broadphase.SimpleBroadphase;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Broadphase backends a PhysicsEngine can be built with.
+ */
+public enum BroadphaseType {
+
+    /**
+     * Dynamic AABB tree. Cheap insert and remove for subchunk meshes churning
+     * in and out, and no world-size ceiling.
+     */
+    DBVT {
+        @Override
+        public BroadphaseInterface create() {
+            return new DbvtBroadphase();
+        }
+    },
+
+    /**
+     * Sweep-and-prune over fixed world bounds. Grids degrade outside the bounds,
+     * and each insert or remove is linear in the number of proxies per axis.
+     */
+    AXIS_SWEEP {
+        @Override
+        public BroadphaseInterface create() {
+            return new AxisSweep3(AXIS_SWEEP_AABB_MIN, AXIS_SWEEP_AABB_MAX);
+        }
+    },
+
+    /**
+     * Brute-force pair testing. Only useful as a baseline in benchmarks.
+     */
+    SIMPLE {
+        @Override
+        public BroadphaseInterface create() {
+            return new SimpleBroadphase();
+        }
+    };
+
+    private static final Vector3f AXIS_SWEEP_AABB_MIN = new Vector3f(-10000, -1000, -10000);
+    private static final Vector3f AXIS_SWEEP_AABB_MAX = new Vector3f(10000, 1000, 10000);
+
+    /**
+     * Creates a new broadphase of this type.
+     */
+    public abstract BroadphaseInterface create();
+}
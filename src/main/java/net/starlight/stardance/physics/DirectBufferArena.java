@@ -0,0 +1,119 @@
+package net.starlight.stardance.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reusable native-order direct buffers for terrain mesh data, pooled by power-of-two size class.
+ * Subchunk meshes are rebuilt often and each rebuild used to allocate fresh direct memory,
+ * which is only freed when the garbage collector gets around to the old buffers.
+ * <p>
+ * A buffer handed back with {@link #retire} is not reused until two {@link #advance} calls
+ * later, since snapshots read on other threads may still hold the shape that used it.
+ * Acquiring and retiring are safe from any thread.
+ */
+public final class DirectBufferArena {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    private static final int MIN_CLASS_SHIFT = 12;              // Smallest pooled buffer, 4 KiB
+    private static final int MAX_CLASS_SHIFT = 22;              // Largest pooled buffer, 4 MiB
+    private static final long MAX_POOLED_BYTES = 32L << 20;     // Idle buffers kept beyond this are left to the GC
+
+    @SuppressWarnings("unchecked")
+    private static final Queue<ByteBuffer>[] POOLS = new Queue[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+    private static final AtomicLong pooledBytes = new AtomicLong();
+
+    private static final Queue<ByteBuffer> retiredRecently = new ConcurrentLinkedQueue<>();
+    private static final Queue<ByteBuffer> retiredEarlier = new ConcurrentLinkedQueue<>();
+
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private DirectBufferArena() {
+    }
+
+    /**
+     * Gets a native-order direct buffer with room for at least the given bytes,
+     * positioned at 0 with its limit at the requested size.
+     */
+    public static ByteBuffer acquire(int bytes) {
+        int shift = classShift(bytes);
+        if (shift > MAX_CLASS_SHIFT) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+
+        ByteBuffer buffer = POOLS[shift - MIN_CLASS_SHIFT].poll();
+        if (buffer != null) {
+            pooledBytes.addAndGet(-buffer.capacity());
+        } else {
+            buffer = ByteBuffer.allocateDirect(1 << shift).order(ByteOrder.nativeOrder());
+        }
+        buffer.clear().limit(bytes);
+        return buffer;
+    }
+
+    /**
+     * Hands back a buffer from {@link #acquire} once nothing will read it any more, apart from
+     * snapshots of the last step. Buffers of other sizes are ignored.
+     */
+    public static void retire(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && isClassSize(buffer.capacity())) {
+            retiredRecently.add(buffer);
+        }
+    }
+
+    /**
+     * Moves buffers retired before the previous call into the pools. Called once per server tick.
+     */
+    public static void advance() {
+        ByteBuffer buffer;
+        while ((buffer = retiredEarlier.poll()) != null) {
+            if (pooledBytes.get() + buffer.capacity() > MAX_POOLED_BYTES) {
+                continue;
+            }
+            pooledBytes.addAndGet(buffer.capacity());
+            POOLS[Integer.numberOfTrailingZeros(buffer.capacity()) - MIN_CLASS_SHIFT].add(buffer);
+        }
+        while ((buffer = retiredRecently.poll()) != null) {
+            retiredEarlier.add(buffer);
+        }
+    }
+
+    /**
+     * Drops every pooled and retired buffer. Called when the server stops.
+     */
+    public static void clear() {
+        for (Queue<ByteBuffer> pool : POOLS) {
+            pool.clear();
+        }
+        retiredRecently.clear();
+        retiredEarlier.clear();
+        pooledBytes.set(0);
+    }
+
+    /**
+     * Bytes held by idle buffers waiting to be reused.
+     */
+    public static long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    private static int classShift(int bytes) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(bytes, 1) - 1);
+        return Math.max(shift, MIN_CLASS_SHIFT);
+    }
+
+    private static boolean isClassSize(int capacity) {
+        int shift = Integer.numberOfTrailingZeros(capacity);
+        return Integer.bitCount(capacity) == 1 && shift >= MIN_CLASS_SHIFT && shift <= MAX_CLASS_SHIFT;
+    }
+}
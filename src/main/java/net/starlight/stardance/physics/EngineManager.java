@@ -4,7 +4,6 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 import net.starlight.stardance.core.LocalGrid;
 import net.starlight.stardance.gridspace.GridSpaceManager;
@@ -12,8 +11,9 @@ import net.starlight.stardance.utils.ILoggingControl;
 import net.starlight.stardance.utils.SLogger;
 import org.joml.Vector3f;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Set;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static net.starlight.stardance.Stardance.serverInstance;
@@ -147,6 +147,13 @@ public class EngineManager implements ILoggingControl {
      * @param server The Minecraft server instance
      */
     public void tick(MinecraftServer server) {
+        DirectBufferArena.advance();
+
+        if (PhysicsConfig.PARALLEL_ENGINES && !PhysicsConfig.THREADED_STEPPING && engines.size() > 1) {
+            tickParallel(server);
+            return;
+        }
+
         for (ServerLevel world : server.getAllLevels()) {
             PhysicsEngine engine = engines.get(world);
             if (engine != null) {
@@ -156,6 +163,42 @@ public class EngineManager implements ILoggingControl {
         }
     }
 
+    /**
+     * Ticks all engines with their steps running concurrently.
+     * After a main-thread phase that reads each ServerLevel, every engine steps on its own
+     * physics thread, which built its Bullet objects and so owns their object pools. A join
+     * barrier is followed by a main-thread apply phase.
+     */
+    private void tickParallel(MinecraftServer server) {
+        List<ServerLevel> worlds = new ArrayList<>();
+        List<PhysicsEngine> tickEngines = new ArrayList<>();
+
+        // Main-thread phase: anything that reads the ServerLevel
+        for (ServerLevel world : server.getAllLevels()) {
+            PhysicsEngine engine = engines.get(world);
+            if (engine != null) {
+                engine.preStep();
+                worlds.add(world);
+                tickEngines.add(engine);
+            }
+        }
+
+        // Parallel phase: every step on its engine's physics thread
+        for (PhysicsEngine engine : tickEngines) {
+            engine.submitStep();
+        }
+
+        // Join barrier
+        for (PhysicsEngine engine : tickEngines) {
+            engine.awaitStep();
+        }
+
+        // Main-thread apply phase
+        for (int i = 0; i < tickEngines.size(); i++) {
+            tickEngines.get(i).postStep(worlds.get(i));
+        }
+    }
+
     /**
      * Shuts down all engines and managers for a specific world.
      * Called when a world is unloaded.
@@ -167,7 +210,7 @@ public class EngineManager implements ILoggingControl {
         PhysicsEngine engine = engines.remove(world);
         if (engine != null) {
             SLogger.log(this, "Shutting down PhysicsEngine for dimension: " + world.dimension().location());
-            // Add any necessary PhysicsEngine cleanup here
+            engine.shutdown();
         }
 
         // Shutdown and remove GridSpaceManager
@@ -188,10 +231,13 @@ public class EngineManager implements ILoggingControl {
 
         // Shutdown all physics engines
         for (PhysicsEngine engine : engines.values()) {
-            // Add any necessary PhysicsEngine shutdown logic here
+            engine.shutdown();
         }
         engines.clear();
 
+        PhysicsWorkerPool.shutdown();
+        DirectBufferArena.clear();
+
         // Shutdown all GridSpace managers
         for (GridSpaceManager manager : gridSpaceManagers.values()) {
             manager.shutdown();
@@ -209,30 +255,15 @@ public class EngineManager implements ILoggingControl {
             return null;
         }
 
-        Set<LocalGrid> grids = engine.getGrids();
         float playerReachDistance = 4.5f;
 
         Vec3 eyePos = player.getEyePosition();
         Vec3 lookVec = player.getViewVector(1.0F);
         Vec3 reachPoint = eyePos.add(lookVec.scale(playerReachDistance));
 
-        for (LocalGrid grid : grids) {
-            if (gridIntersectsRay(grid, eyePos, reachPoint)) {
-                return grid;
-            }
-        }
-        return null;
-    }
-
-    private boolean gridIntersectsRay(LocalGrid grid, Vec3 start, Vec3 end) {
-        javax.vecmath.Vector3f minAabb = new javax.vecmath.Vector3f();
-        javax.vecmath.Vector3f maxAabb = new javax.vecmath.Vector3f();
-        grid.getAABB(minAabb, maxAabb);
-
-        AABB gridBox = new AABB(minAabb.x, minAabb.y, minAabb.z,
-                maxAabb.x, maxAabb.y, maxAabb.z);
-
-        return gridBox.intersects(start, end);
+        // Nearest grid along the ray first
+        List<LocalGrid> hits = engine.getGridIndex().raycast(eyePos, reachPoint);
+        return hits.isEmpty() ? null : hits.get(0);
     }
 
     /**
@@ -0,0 +1,251 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.dynamics.DynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import net.starlight.stardance.core.LocalGrid;
+import net.starlight.stardance.utils.ILoggingControl;
+import net.starlight.stardance.utils.SLogger;
+
+import javax.vecmath.Vector3f;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static net.starlight.stardance.physics.EngineManager.COLLISION_GROUP_GRID;
+import static net.starlight.stardance.physics.EngineManager.COLLISION_MASK_GRID;
+
+/**
+ * Queue of mutations to a PhysicsEngine's Bullet state.
+ * <p>
+ * Any thread may enqueue. The engine drains the whole queue in one batch at the end of
+ * {@link PhysicsEngine#preStep()}, under the physics lock and right before the world steps,
+ * so game code never touches bodies directly or waits on the lock.
+ * <p>
+ * Impulses, torques and wake-ups aimed at the same grid are merged within a batch and applied
+ * once. They are flushed before any other command, so ordering against adds, removals and
+ * custom tasks is kept.
+ */
+public class GridCommandBuffer implements ILoggingControl {
+
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final DynamicsWorld dynamicsWorld;
+
+    // Drain-thread only, reused between batches
+    private final Map<LocalGrid, Vector3f> pendingImpulses = new LinkedHashMap<>();
+    private final Map<LocalGrid, Vector3f> pendingTorques = new LinkedHashMap<>();
+    private final Set<LocalGrid> pendingActivations = new LinkedHashSet<>();
+
+    private int lastBatchSize = 0;
+
+    GridCommandBuffer(DynamicsWorld dynamicsWorld) {
+        this.dynamicsWorld = dynamicsWorld;
+    }
+
+    // -------------------------------------------
+    // ENQUEUE
+    // -------------------------------------------
+
+    /**
+     * Queues an impulse through the grid's center of mass.
+     */
+    public void applyImpulse(LocalGrid grid, Vector3f impulse) {
+        commands.add(new Command(Kind.IMPULSE, grid, new Vector3f(impulse), null));
+    }
+
+    /**
+     * Queues a torque for the coming step.
+     */
+    public void applyTorque(LocalGrid grid, Vector3f torque) {
+        commands.add(new Command(Kind.TORQUE, grid, new Vector3f(torque), null));
+    }
+
+    /**
+     * Queues waking the grid's body.
+     */
+    public void activate(LocalGrid grid) {
+        commands.add(new Command(Kind.ACTIVATE, grid, null, null));
+    }
+
+    /**
+     * Queues inserting the grid's body into the dynamics world.
+     */
+    public void addGrid(LocalGrid grid) {
+        commands.add(new Command(Kind.ADD_GRID, grid, null, null));
+    }
+
+    /**
+     * Queues removing the grid's body from the dynamics world.
+     */
+    public void removeGrid(LocalGrid grid) {
+        commands.add(new Command(Kind.REMOVE_GRID, grid, null, null));
+    }
+
+    /**
+     * Queues an arbitrary mutation, run in order with the other commands.
+     */
+    public void run(Runnable task) {
+        commands.add(new Command(Kind.TASK, null, null, task));
+    }
+
+    // -------------------------------------------
+    // DRAIN
+    // -------------------------------------------
+
+    /**
+     * Applies every queued command. The caller must hold the physics lock, with no step in flight.
+     */
+    void drain() {
+        int batchSize = 0;
+        Command command;
+        while ((command = commands.poll()) != null) {
+            batchSize++;
+            switch (command.kind) {
+                case IMPULSE:
+                    pendingImpulses.computeIfAbsent(command.grid, g -> new Vector3f()).add(command.vector);
+                    break;
+                case TORQUE:
+                    pendingTorques.computeIfAbsent(command.grid, g -> new Vector3f()).add(command.vector);
+                    break;
+                case ACTIVATE:
+                    pendingActivations.add(command.grid);
+                    break;
+                default:
+                    flushForces();
+                    apply(command);
+                    break;
+            }
+        }
+        flushForces();
+        lastBatchSize = batchSize;
+    }
+
+    private void apply(Command command) {
+        try {
+            switch (command.kind) {
+                case ADD_GRID:
+                    insertGridBody(command.grid);
+                    break;
+                case REMOVE_GRID:
+                    RigidBody body = command.grid.getRigidBody();
+                    if (body != null) {
+                        dynamicsWorld.removeRigidBody(body);
+                    }
+                    break;
+                case TASK:
+                    command.task.run();
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            SLogger.log(this, "Physics command " + command.kind + " failed: " + e);
+        }
+    }
+
+    private void insertGridBody(LocalGrid grid) {
+        RigidBody body = grid.getRigidBody();
+
+        // A rebuild may already have put the body into the world
+        if (grid.isDestroyed() || body == null || body.getBroadphaseHandle() != null) {
+            return;
+        }
+
+        dynamicsWorld.addRigidBody(body);
+        if (body.getBroadphaseHandle() != null) {
+            body.getBroadphaseHandle().collisionFilterGroup = COLLISION_GROUP_GRID;
+            body.getBroadphaseHandle().collisionFilterMask = COLLISION_MASK_GRID;
+        }
+    }
+
+    /**
+     * Applies the merged impulses, torques and wake-ups gathered so far.
+     */
+    private void flushForces() {
+        for (Map.Entry<LocalGrid, Vector3f> entry : pendingImpulses.entrySet()) {
+            RigidBody body = liveBody(entry.getKey());
+            if (body != null) {
+                body.applyCentralImpulse(entry.getValue());
+                body.activate(true);
+            }
+        }
+        for (Map.Entry<LocalGrid, Vector3f> entry : pendingTorques.entrySet()) {
+            RigidBody body = liveBody(entry.getKey());
+            if (body != null) {
+                body.applyTorque(entry.getValue());
+                body.activate(true);
+            }
+        }
+        for (LocalGrid grid : pendingActivations) {
+            RigidBody body = liveBody(grid);
+            if (body != null) {
+                body.activate();
+            }
+        }
+
+        pendingImpulses.clear();
+        pendingTorques.clear();
+        pendingActivations.clear();
+    }
+
+    private static RigidBody liveBody(LocalGrid grid) {
+        return grid.isDestroyed() ? null : grid.getRigidBody();
+    }
+
+    // -------------------------------------------
+    // GETTERS
+    // -------------------------------------------
+
+    /**
+     * Commands applied by the last drain, before merging.
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * Commands waiting for the next drain.
+     */
+    public int getPendingCount() {
+        return commands.size();
+    }
+
+    @Override
+    public boolean stardance$isChatLoggingEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean stardance$isConsoleLoggingEnabled() {
+        return true;
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    private enum Kind {
+        IMPULSE,
+        TORQUE,
+        ACTIVATE,
+        ADD_GRID,
+        REMOVE_GRID,
+        TASK
+    }
+
+    private static final class Command {
+        final Kind kind;
+        final LocalGrid grid;
+        final Vector3f vector;
+        final Runnable task;
+
+        Command(Kind kind, LocalGrid grid, Vector3f vector, Runnable task) {
+            this.kind = kind;
+            this.grid = grid;
+            this.vector = vector;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package net.starlight.stardance.physics;
+
+import net.minecraft.world.phys.Vec3;
+import net.starlight.stardance.core.LocalGrid;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse hashed cell map of grid world bounds, answering "which grids are near X" without
+ * scanning every grid of a PhysicsEngine.
+ * <p>
+ * Each grid is registered in every {@link #CELL_SIZE}-block cell its world AABB overlaps.
+ * Bounds are refreshed once per tick by {@link #update(LocalGrid)}; a grid only changes cells
+ * when its bounds cross a cell boundary. Grids spanning more than {@link #MAX_CELLS_PER_GRID}
+ * cells are kept in a separate list instead, since registering them would cost more than
+ * testing them directly.
+ * <p>
+ * Updates happen on the server thread. Queries may come from any thread and see the bounds
+ * of the last update.
+ */
+public class GridSpatialIndex {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    private static final int CELL_SHIFT = 5;                    // 32 block cells
+    public static final int CELL_SIZE = 1 << CELL_SHIFT;
+    private static final int MAX_CELLS_PER_GRID = 512;
+    private static final int COORD_BITS = 21;                   // Per axis in a packed cell key
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private final Map<LocalGrid, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry>> cells = new ConcurrentHashMap<>();
+    private final Set<Entry> largeEntries = ConcurrentHashMap.newKeySet();
+
+    // -------------------------------------------
+    // UPDATES
+    // -------------------------------------------
+
+    /**
+     * Adds a grid, or refreshes its bounds if it is already indexed.
+     * Must run on the server thread.
+     */
+    public void update(LocalGrid grid) {
+        Vector3f min = new Vector3f();
+        Vector3f max = new Vector3f();
+        grid.getAABB(min, max);
+
+        Entry entry = entries.computeIfAbsent(grid, Entry::new);
+        entry.bounds = new double[]{min.x, min.y, min.z, max.x, max.y, max.z};
+
+        int minCX = cell(min.x), minCY = cell(min.y), minCZ = cell(min.z);
+        int maxCX = cell(max.x), maxCY = cell(max.y), maxCZ = cell(max.z);
+        if (entry.registered && entry.sameCells(minCX, minCY, minCZ, maxCX, maxCY, maxCZ)) {
+            return;
+        }
+
+        unregister(entry);
+        entry.setCells(minCX, minCY, minCZ, maxCX, maxCY, maxCZ);
+        register(entry);
+    }
+
+    /**
+     * Removes a grid from the index.
+     */
+    public void remove(LocalGrid grid) {
+        Entry entry = entries.remove(grid);
+        if (entry != null) {
+            unregister(entry);
+        }
+    }
+
+    /**
+     * Drops grids the engine no longer tracks.
+     */
+    public void retainAll(Set<LocalGrid> grids) {
+        for (LocalGrid grid : new ArrayList<>(entries.keySet())) {
+            if (!grids.contains(grid)) {
+                remove(grid);
+            }
+        }
+    }
+
+    // -------------------------------------------
+    // QUERIES
+    // -------------------------------------------
+
+    /**
+     * Grids whose bounds contain the point.
+     */
+    public List<LocalGrid> queryPoint(double x, double y, double z) {
+        List<LocalGrid> result = new ArrayList<>();
+        for (Entry entry : candidates(cell(x), cell(y), cell(z), cell(x), cell(y), cell(z))) {
+            double[] b = entry.bounds;
+            if (x >= b[0] && x <= b[3] && y >= b[1] && y <= b[4] && z >= b[2] && z <= b[5]) {
+                result.add(entry.grid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grids whose bounds overlap the box.
+     */
+    public List<LocalGrid> queryAabb(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        List<LocalGrid> result = new ArrayList<>();
+        for (Entry entry : candidates(cell(minX), cell(minY), cell(minZ), cell(maxX), cell(maxY), cell(maxZ))) {
+            if (entry.overlaps(minX, minY, minZ, maxX, maxY, maxZ)) {
+                result.add(entry.grid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grids whose bounds come within the radius of the centre.
+     */
+    public List<LocalGrid> querySphere(double x, double y, double z, double radius) {
+        List<LocalGrid> result = new ArrayList<>();
+        double radiusSqr = radius * radius;
+        for (Entry entry : candidates(cell(x - radius), cell(y - radius), cell(z - radius),
+                cell(x + radius), cell(y + radius), cell(z + radius))) {
+            if (entry.distanceSqr(x, y, z) <= radiusSqr) {
+                result.add(entry.grid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grids whose bounds the segment passes through, nearest entry point first.
+     */
+    public List<LocalGrid> raycast(Vec3 start, Vec3 end) {
+        Set<Entry> candidates = new LinkedHashSet<>(largeEntries);
+        walkCells(start, end, candidates);
+
+        List<Hit> hits = new ArrayList<>();
+        for (Entry entry : candidates) {
+            double fraction = entry.rayFraction(start, end);
+            if (fraction >= 0) {
+                hits.add(new Hit(entry.grid, fraction));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(hit -> hit.fraction));
+
+        List<LocalGrid> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.grid);
+        }
+        return result;
+    }
+
+    /**
+     * Number of indexed grids.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    private void register(Entry entry) {
+        if (entry.cellCount() > MAX_CELLS_PER_GRID) {
+            entry.large = true;
+            largeEntries.add(entry);
+        } else {
+            entry.large = false;
+            for (int cx = entry.minCX; cx <= entry.maxCX; cx++) {
+                for (int cy = entry.minCY; cy <= entry.maxCY; cy++) {
+                    for (int cz = entry.minCZ; cz <= entry.maxCZ; cz++) {
+                        cells.computeIfAbsent(key(cx, cy, cz), k -> ConcurrentHashMap.newKeySet()).add(entry);
+                    }
+                }
+            }
+        }
+        entry.registered = true;
+    }
+
+    private void unregister(Entry entry) {
+        if (!entry.registered) {
+            return;
+        }
+        if (entry.large) {
+            largeEntries.remove(entry);
+        } else {
+            for (int cx = entry.minCX; cx <= entry.maxCX; cx++) {
+                for (int cy = entry.minCY; cy <= entry.maxCY; cy++) {
+                    for (int cz = entry.minCZ; cz <= entry.maxCZ; cz++) {
+                        cells.computeIfPresent(key(cx, cy, cz), (k, set) -> {
+                            set.remove(entry);
+                            return set.isEmpty() ? null : set;
+                        });
+                    }
+                }
+            }
+        }
+        entry.registered = false;
+    }
+
+    /**
+     * Entries registered in any cell of the range, plus every large entry.
+     */
+    private Set<Entry> candidates(int minCX, int minCY, int minCZ, int maxCX, int maxCY, int maxCZ) {
+        Set<Entry> result = new LinkedHashSet<>(largeEntries);
+
+        // A query box wider than the index itself is cheaper to answer by scanning
+        long queryCells = (long) (maxCX - minCX + 1) * (maxCY - minCY + 1) * (maxCZ - minCZ + 1);
+        if (queryCells > cells.size()) {
+            for (Set<Entry> cell : cells.values()) {
+                result.addAll(cell);
+            }
+            return result;
+        }
+
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cy = minCY; cy <= maxCY; cy++) {
+                for (int cz = minCZ; cz <= maxCZ; cz++) {
+                    Set<Entry> cell = cells.get(key(cx, cy, cz));
+                    if (cell != null) {
+                        result.addAll(cell);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects entries from every cell the segment passes through (3D DDA).
+     */
+    private void walkCells(Vec3 start, Vec3 end, Set<Entry> out) {
+        double dx = end.x - start.x, dy = end.y - start.y, dz = end.z - start.z;
+
+        int cx = cell(start.x), cy = cell(start.y), cz = cell(start.z);
+        int endCX = cell(end.x), endCY = cell(end.y), endCZ = cell(end.z);
+        int stepX = Integer.signum(endCX - cx), stepY = Integer.signum(endCY - cy), stepZ = Integer.signum(endCZ - cz);
+
+        double tDeltaX = dx == 0 ? Double.MAX_VALUE : CELL_SIZE / Math.abs(dx);
+        double tDeltaY = dy == 0 ? Double.MAX_VALUE : CELL_SIZE / Math.abs(dy);
+        double tDeltaZ = dz == 0 ? Double.MAX_VALUE : CELL_SIZE / Math.abs(dz);
+        double tMaxX = stepX == 0 ? Double.MAX_VALUE : boundaryFraction(start.x, dx, cx, stepX);
+        double tMaxY = stepY == 0 ? Double.MAX_VALUE : boundaryFraction(start.y, dy, cy, stepY);
+        double tMaxZ = stepZ == 0 ? Double.MAX_VALUE : boundaryFraction(start.z, dz, cz, stepZ);
+
+        int remaining = Math.abs(endCX - cx) + Math.abs(endCY - cy) + Math.abs(endCZ - cz);
+        while (true) {
+            Set<Entry> cell = cells.get(key(cx, cy, cz));
+            if (cell != null) {
+                out.addAll(cell);
+            }
+            if (remaining-- <= 0) {
+                return;
+            }
+
+            // An axis that already reached its end cell must not be stepped again
+            if (cx == endCX) tMaxX = Double.MAX_VALUE;
+            if (cy == endCY) tMaxY = Double.MAX_VALUE;
+            if (cz == endCZ) tMaxZ = Double.MAX_VALUE;
+
+            if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else if (tMaxY <= tMaxZ) {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            } else {
+                cz += stepZ;
+                tMaxZ += tDeltaZ;
+            }
+        }
+    }
+
+    private static double boundaryFraction(double origin, double delta, int cell, int step) {
+        double boundary = (step > 0 ? cell + 1 : cell) * (double) CELL_SIZE;
+        return (boundary - origin) / delta;
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate) >> CELL_SHIFT;
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((cx & COORD_MASK) << (2 * COORD_BITS)) | ((cy & COORD_MASK) << COORD_BITS) | (cz & COORD_MASK);
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Indexed bounds of one grid. Cell range fields are only touched on the server thread.
+     */
+    private static class Entry {
+        final LocalGrid grid;
+        volatile double[] bounds = new double[6];   // minX, minY, minZ, maxX, maxY, maxZ
+
+        boolean registered;
+        boolean large;
+        int minCX, minCY, minCZ, maxCX, maxCY, maxCZ;
+
+        Entry(LocalGrid grid) {
+            this.grid = grid;
+        }
+
+        boolean sameCells(int minCX, int minCY, int minCZ, int maxCX, int maxCY, int maxCZ) {
+            return this.minCX == minCX && this.minCY == minCY && this.minCZ == minCZ
+                    && this.maxCX == maxCX && this.maxCY == maxCY && this.maxCZ == maxCZ;
+        }
+
+        void setCells(int minCX, int minCY, int minCZ, int maxCX, int maxCY, int maxCZ) {
+            this.minCX = minCX;
+            this.minCY = minCY;
+            this.minCZ = minCZ;
+            this.maxCX = maxCX;
+            this.maxCY = maxCY;
+            this.maxCZ = maxCZ;
+        }
+
+        long cellCount() {
+            return (long) (maxCX - minCX + 1) * (maxCY - minCY + 1) * (maxCZ - minCZ + 1);
+        }
+
+        boolean overlaps(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            double[] b = bounds;
+            return minX <= b[3] && maxX >= b[0] && minY <= b[4] && maxY >= b[1] && minZ <= b[5] && maxZ >= b[2];
+        }
+
+        double distanceSqr(double x, double y, double z) {
+            double[] b = bounds;
+            double dx = Math.max(0, Math.max(b[0] - x, x - b[3]));
+            double dy = Math.max(0, Math.max(b[1] - y, y - b[4]));
+            double dz = Math.max(0, Math.max(b[2] - z, z - b[5]));
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        /**
+         * Fraction along the segment where it enters the bounds, 0 if it starts inside, or -1 on a miss.
+         */
+        double rayFraction(Vec3 start, Vec3 end) {
+            double[] b = bounds;
+            double tMin = 0;
+            double tMax = 1;
+
+            double[] origin = {start.x, start.y, start.z};
+            double[] delta = {end.x - start.x, end.y - start.y, end.z - start.z};
+            for (int axis = 0; axis < 3; axis++) {
+                if (Math.abs(delta[axis]) < 1e-9) {
+                    if (origin[axis] < b[axis] || origin[axis] > b[axis + 3]) {
+                        return -1;
+                    }
+                    continue;
+                }
+                double t1 = (b[axis] - origin[axis]) / delta[axis];
+                double t2 = (b[axis + 3] - origin[axis]) / delta[axis];
+                tMin = Math.max(tMin, Math.min(t1, t2));
+                tMax = Math.min(tMax, Math.max(t1, t2));
+                if (tMin > tMax) {
+                    return -1;
+                }
+            }
+            return tMin;
+        }
+    }
+
+    private static class Hit {
+        final LocalGrid grid;
+        final double fraction;
+
+        Hit(LocalGrid grid, double fraction) {
+            this.grid = grid;
+            this.fraction = fraction;
+        }
+    }
+}
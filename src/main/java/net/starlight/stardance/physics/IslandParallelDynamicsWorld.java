@@ -0,0 +1,375 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.collision.broadphase.BroadphaseInterface;
+import com.bulletphysics.collision.broadphase.BroadphaseProxy;
+import com.bulletphysics.collision.broadphase.Dbvt;
+import com.bulletphysics.collision.broadphase.DbvtAabbMm;
+import com.bulletphysics.collision.broadphase.DbvtBroadphase;
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.dispatch.CollisionConfiguration;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.SimulationIslandManager;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.collision.shapes.ConvexShape;
+import com.bulletphysics.collision.shapes.SphereShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.constraintsolver.ConstraintSolver;
+import com.bulletphysics.dynamics.constraintsolver.ContactSolverInfo;
+import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
+import com.bulletphysics.linearmath.AabbUtil2;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.linearmath.VectorUtil;
+import com.bulletphysics.util.ObjectArrayList;
+import net.starlight.stardance.physics.voxel.VoxelGridShape;
+import net.starlight.stardance.physics.voxel.VoxelQueries;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Dynamics world that solves independent simulation islands on separate cores.
+ * <p>
+ * Bullet already partitions bodies into islands every substep: grids whose broadphase
+ * proxies overlap are merged, and islands split again as soon as they separate.
+ * Static subchunk meshes and kinematic entity proxies never join islands, so each
+ * dynamic body and each contact manifold belongs to exactly one island, and islands
+ * can be solved concurrently with one solver instance per worker thread.
+ * <p>
+ * Static objects also keep their broadphase bounds between steps, see {@link #updateAabbs()}.
+ * Fast bodies of any shape get Bullet's swept-sphere CCD, see {@link #integrateTransforms(float)}.
+ */
+public class IslandParallelDynamicsWorld extends DiscreteDynamicsWorld {
+
+    /** Per-thread solvers for islands handed to the worker pool. */
+    private static final ThreadLocal<SequentialImpulseConstraintSolver> WORKER_SOLVERS =
+            ThreadLocal.withInitial(SequentialImpulseConstraintSolver::new);
+
+    private final IslandCollector islandCollector = new IslandCollector();
+
+    public IslandParallelDynamicsWorld(Dispatcher dispatcher, BroadphaseInterface pairCache,
+                                       ConstraintSolver constraintSolver, CollisionConfiguration collisionConfiguration) {
+        super(dispatcher, pairCache, constraintSolver, collisionConfiguration);
+    }
+
+    /**
+     * Advances the world by exactly the given number of equal substeps, in one stepSimulation call.
+     * One call keeps forces applied for the whole step: Bullet applies gravity once and clears
+     * forces once, after its last substep. The remainder carried over from the last call is
+     * dropped and the substep length rounded down, so float rounding can't cost a substep.
+     *
+     * @param timeStep Time to advance, in seconds
+     * @param subSteps Number of substeps to split it into
+     */
+    public void stepSubSteps(float timeStep, int subSteps) {
+        localTime = 0.0f;
+        stepSimulation(timeStep, subSteps, Math.nextDown(timeStep / subSteps));
+    }
+
+    /**
+     * Refreshes broadphase bounds of objects that can move on their own.
+     * The base class updates every active object, static subchunk meshes included, and the
+     * DBVT broadphase pulls every updated proxy out of its static tree, so static objects are
+     * skipped here. Code that moves or reshapes a static object calls updateSingleAabb itself.
+     */
+    @Override
+    public void updateAabbs() {
+        for (int i = 0; i < collisionObjects.size(); i++) {
+            CollisionObject collisionObject = collisionObjects.getQuick(i);
+            if (collisionObject.isActive() && !isFixed(collisionObject)) {
+                updateSingleAabb(collisionObject);
+            }
+        }
+    }
+
+    @Override
+    protected void solveConstraints(ContactSolverInfo solverInfo) {
+        // Typed constraints are sorted per island by the base class; keep its path for them
+        if (!PhysicsConfig.PARALLEL_ISLANDS || getNumConstraints() > 0) {
+            super.solveConstraints(solverInfo);
+            return;
+        }
+
+        islandCollector.reset();
+        islandManager.buildAndProcessIslands(getDispatcher(), getCollisionObjectArray(), islandCollector);
+
+        int islandCount = islandCollector.size;
+        if (islandCount < 2 || islandCollector.totalManifolds < PhysicsConfig.PARALLEL_ISLAND_MIN_MANIFOLDS) {
+            for (int i = 0; i < islandCount; i++) {
+                islandCollector.islands.get(i).solve(constraintSolver, solverInfo, getDispatcher());
+            }
+            return;
+        }
+
+        // Hand all but the first island to the pool and solve the first one here
+        ForkJoinPool pool = PhysicsWorkerPool.get();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(islandCount - 1);
+        for (int i = 1; i < islandCount; i++) {
+            Island island = islandCollector.islands.get(i);
+            tasks.add(pool.submit(() -> island.solve(WORKER_SOLVERS.get(), solverInfo, getDispatcher())));
+        }
+
+        islandCollector.islands.get(0).solve(constraintSolver, solverInfo, getDispatcher());
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * Moves bodies to their predicted transforms, sweeping fast ones first.
+     * Bullet only sweeps convex shapes, and every grid is a compound, so this runs the same
+     * swept-sphere CCD for any body past its motion threshold: the sphere travels from the
+     * centre of mass to the predicted position, and the body stops at the first hit.
+     */
+    @Override
+    protected void integrateTransforms(float timeStep) {
+        Transform currentTransform = new Transform();
+        Transform predictedTransform = new Transform();
+        Vector3f motion = new Vector3f();
+
+        for (int i = 0; i < collisionObjects.size(); i++) {
+            RigidBody body = RigidBody.upcast(collisionObjects.getQuick(i));
+            if (body == null) continue;
+
+            body.setHitFraction(1.0f);
+            if (!body.isActive() || body.isStaticOrKinematicObject()) continue;
+
+            body.predictIntegratedTransform(timeStep, predictedTransform);
+            body.getWorldTransform(currentTransform);
+            motion.sub(predictedTransform.origin, currentTransform.origin);
+
+            float squareMotionThreshold = body.getCcdSquareMotionThreshold();
+            if (squareMotionThreshold != 0.0f && squareMotionThreshold < motion.lengthSquared()) {
+                ClosestNotMeConvexResultCallback sweepResults = new ClosestNotMeConvexResultCallback(body,
+                        currentTransform.origin, predictedTransform.origin, getDispatcher(),
+                        getDispatchInfo().allowedCcdPenetration);
+                BroadphaseProxy proxy = body.getBroadphaseProxy();
+                sweepResults.collisionFilterGroup = proxy.collisionFilterGroup;
+                sweepResults.collisionFilterMask = proxy.collisionFilterMask;
+
+                SphereShape sweptSphere = new SphereShape(body.getCcdSweptSphereRadius());
+                convexSweepTest(sweptSphere, currentTransform, predictedTransform, sweepResults);
+                if (sweepResults.hasHit() && sweepResults.closestHitFraction < 1.0f) {
+                    body.setHitFraction(sweepResults.closestHitFraction);
+                    body.predictIntegratedTransform(timeStep * body.getHitFraction(), predictedTransform);
+                    body.setHitFraction(0.0f);
+                }
+            }
+
+            body.proceedToTransform(predictedTransform);
+        }
+    }
+
+    /**
+     * Adds voxel terrain and voxel grids to Bullet's sweep, which skips their shape type. CCD in
+     * integrateTransforms and entity movement both come through here. Candidates come from
+     * the broadphase trees when the world uses DBVT, else from a scan of every object.
+     */
+    @Override
+    public void convexSweepTest(ConvexShape castShape, Transform convexFromWorld, Transform convexToWorld,
+                                ConvexResultCallback resultCallback) {
+        super.convexSweepTest(castShape, convexFromWorld, convexToWorld, resultCallback);
+        if (!PhysicsConfig.VOXEL_TERRAIN && !PhysicsConfig.VOXEL_COLLISION) {
+            return;
+        }
+
+        Vector3f castMin = new Vector3f();
+        Vector3f castMax = new Vector3f();
+        Vector3f endMin = new Vector3f();
+        Vector3f endMax = new Vector3f();
+        castShape.getAabb(convexFromWorld, castMin, castMax);
+        castShape.getAabb(convexToWorld, endMin, endMax);
+        VectorUtil.setMin(castMin, endMin);
+        VectorUtil.setMax(castMax, endMax);
+
+        VoxelSweep sweep = new VoxelSweep(castShape, convexFromWorld, convexToWorld, resultCallback,
+                castMin, castMax, getDispatchInfo().allowedCcdPenetration);
+        if (getBroadphase() instanceof DbvtBroadphase) {
+            DbvtBroadphase broadphase = (DbvtBroadphase) getBroadphase();
+            DbvtAabbMm bounds = DbvtAabbMm.FromMM(castMin, castMax, new DbvtAabbMm());
+            Dbvt.collideTV(broadphase.sets[DbvtBroadphase.DYNAMIC_SET].root, bounds, sweep);
+            Dbvt.collideTV(broadphase.sets[DbvtBroadphase.FIXED_SET].root, bounds, sweep);
+            return;
+        }
+
+        for (int i = 0; i < collisionObjects.size(); i++) {
+            sweep.test(collisionObjects.getQuick(i));
+        }
+    }
+
+    /**
+     * Whether a compound holds a voxel shape, which only sits at the top level of a grid's compound.
+     * Other compounds were swept in full by Bullet already.
+     */
+    private static boolean hasVoxelChild(CollisionShape shape) {
+        if (!(shape instanceof CompoundShape)) {
+            return false;
+        }
+        CompoundShape compound = (CompoundShape) shape;
+        for (int i = 0; i < compound.getNumChildShapes(); i++) {
+            if (compound.getChildShape(i) instanceof VoxelGridShape) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFixed(CollisionObject collisionObject) {
+        return collisionObject.isStaticObject() && !collisionObject.isKinematicObject();
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Sweeps a convex shape against the voxel grids among the objects it is handed, either
+     * directly or as the leaves of a broadphase tree query.
+     */
+    private static class VoxelSweep extends Dbvt.ICollide {
+        private final ConvexShape castShape;
+        private final Transform convexFromWorld;
+        private final Transform convexToWorld;
+        private final ConvexResultCallback resultCallback;
+        private final Vector3f castMin;
+        private final Vector3f castMax;
+        private final float allowedPenetration;
+        private final Transform worldTransform = new Transform();
+        private final Vector3f aabbMin = new Vector3f();
+        private final Vector3f aabbMax = new Vector3f();
+
+        VoxelSweep(ConvexShape castShape, Transform convexFromWorld, Transform convexToWorld,
+                   ConvexResultCallback resultCallback, Vector3f castMin, Vector3f castMax, float allowedPenetration) {
+            this.castShape = castShape;
+            this.convexFromWorld = convexFromWorld;
+            this.convexToWorld = convexToWorld;
+            this.resultCallback = resultCallback;
+            this.castMin = castMin;
+            this.castMax = castMax;
+            this.allowedPenetration = allowedPenetration;
+        }
+
+        @Override
+        public void Process(Dbvt.Node leaf) {
+            test((CollisionObject) ((BroadphaseProxy) leaf.data).clientObject);
+        }
+
+        void test(CollisionObject collisionObject) {
+            CollisionShape shape = collisionObject.getCollisionShape();
+            if (!(shape instanceof VoxelGridShape) && !hasVoxelChild(shape)) return;
+            if (!resultCallback.needsCollision(collisionObject.getBroadphaseHandle())) return;
+
+            collisionObject.getWorldTransform(worldTransform);
+            shape.getAabb(worldTransform, aabbMin, aabbMax);
+            if (!AabbUtil2.testAabbAgainstAabb2(castMin, castMax, aabbMin, aabbMax)) return;
+
+            VoxelQueries.convexSweepTest(castShape, convexFromWorld, convexToWorld, collisionObject, shape,
+                    worldTransform, resultCallback, allowedPenetration);
+        }
+    }
+
+    /**
+     * Closest sweep hit that isn't the swept body itself, doesn't skip contact response, and
+     * moves into the surface rather than away from it. Bullet keeps its own version private.
+     */
+    private static class ClosestNotMeConvexResultCallback extends ClosestConvexResultCallback {
+        private final CollisionObject me;
+        private final Dispatcher dispatcher;
+        private final float allowedPenetration;
+
+        ClosestNotMeConvexResultCallback(CollisionObject me, Vector3f fromA, Vector3f toA,
+                                         Dispatcher dispatcher, float allowedPenetration) {
+            super(fromA, toA);
+            this.me = me;
+            this.dispatcher = dispatcher;
+            this.allowedPenetration = allowedPenetration;
+        }
+
+        @Override
+        public float addSingleResult(LocalConvexResult convexResult, boolean normalInWorldSpace) {
+            if (convexResult.hitCollisionObject == me) {
+                return 1.0f;
+            }
+
+            Vector3f hitNormal = new Vector3f(convexResult.hitNormalLocal);
+            if (!normalInWorldSpace) {
+                convexResult.hitCollisionObject.getWorldTransform(new Transform()).basis.transform(hitNormal);
+            }
+            Vector3f motion = new Vector3f();
+            motion.sub(convexToWorld, convexFromWorld);
+            if (hitNormal.dot(motion) >= -allowedPenetration) {
+                return 1.0f;
+            }
+            return super.addSingleResult(convexResult, normalInWorldSpace);
+        }
+
+        @Override
+        public boolean needsCollision(BroadphaseProxy proxy) {
+            if (proxy.clientObject == me || !super.needsCollision(proxy)) {
+                return false;
+            }
+            return dispatcher.needsResponse(me, (CollisionObject) proxy.clientObject);
+        }
+    }
+
+    /**
+     * Bodies and contact manifolds of one island, copied out of the island manager's
+     * scratch lists so they can be solved after the manager moves on.
+     */
+    private static class Island {
+        final ObjectArrayList<CollisionObject> bodies = new ObjectArrayList<>();
+        final ObjectArrayList<PersistentManifold> manifolds = new ObjectArrayList<>();
+
+        void solve(ConstraintSolver solver, ContactSolverInfo solverInfo, Dispatcher dispatcher) {
+            solver.solveGroup(bodies, bodies.size(), manifolds, 0, manifolds.size(),
+                    null, 0, 0, solverInfo, null, dispatcher);
+        }
+    }
+
+    /**
+     * Collects islands that have contacts to solve. Island objects are reused across substeps.
+     */
+    private static class IslandCollector extends SimulationIslandManager.IslandCallback {
+        final List<Island> islands = new ArrayList<>();
+        int size;
+        int totalManifolds;
+
+        void reset() {
+            size = 0;
+            totalManifolds = 0;
+        }
+
+        @Override
+        public void processIsland(ObjectArrayList<CollisionObject> bodies, int numBodies,
+                                  ObjectArrayList<PersistentManifold> manifolds, int manifoldsOffset,
+                                  int numManifolds, int islandId) {
+            // Islands without contacts have nothing for the solver to do
+            if (numManifolds == 0) {
+                return;
+            }
+
+            if (size == islands.size()) {
+                islands.add(new Island());
+            }
+            Island island = islands.get(size++);
+
+            island.bodies.clear();
+            for (int i = 0; i < numBodies; i++) {
+                island.bodies.add(bodies.getQuick(i));
+            }
+
+            island.manifolds.clear();
+            for (int i = 0; i < numManifolds; i++) {
+                island.manifolds.add(manifolds.getQuick(manifoldsOffset + i));
+            }
+
+            totalManifolds += numManifolds;
+        }
+    }
+}
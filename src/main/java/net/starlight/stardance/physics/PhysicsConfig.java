@@ -0,0 +1,187 @@
+package net.starlight.stardance.physics;
+
+import java.util.Locale;
+
+/**
+ * Runtime tunables for the physics pipeline.
+ * Defaults can be overridden with JVM system properties of the form
+ * {@code -Dstardance.physics.<name>=<value>}, and the fields may be changed at runtime.
+ */
+public final class PhysicsConfig {
+
+    private static final String PROPERTY_PREFIX = "stardance.physics.";
+
+    // -------------------------------------------
+    // THREADING
+    // -------------------------------------------
+
+    /**
+     * Steps each dimension's dynamics world on its own worker thread, pipelined with the server tick.
+     * The step for tick N+1 runs while the server thread works from the transforms of tick N.
+     */
+    public static volatile boolean THREADED_STEPPING = bool("threadedStepping", false);
+
+    /**
+     * Steps the engines of different dimensions at the same time within a tick.
+     * Ignored while {@link #THREADED_STEPPING} is on, since engines then already overlap.
+     */
+    public static volatile boolean PARALLEL_ENGINES = bool("parallelEngines", true);
+
+    /** Threads in the shared {@link PhysicsWorkerPool}. */
+    public static final int PHYSICS_WORKER_THREADS = integer("workerThreads",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+
+    /**
+     * Solves independent simulation islands of a world on separate worker threads.
+     * Islands are the connected groups of overlapping dynamic bodies that Bullet builds each substep.
+     */
+    public static volatile boolean PARALLEL_ISLANDS = bool("parallelIslands", true);
+
+    /** Contact manifolds a substep needs in total before islands are solved in parallel. */
+    public static volatile int PARALLEL_ISLAND_MIN_MANIFOLDS = integer("parallelIslandMinManifolds", 8);
+
+    /**
+     * Merges large batches of grid edits into collision boxes on a background thread, and swaps
+     * the finished shape in at a later tick instead of merging inside the physics lock.
+     */
+    public static volatile boolean ASYNC_REBUILD = bool("asyncRebuild", true);
+
+    /** Edited blocks a grid needs in one batch before its merge goes to the background. */
+    public static volatile int ASYNC_REBUILD_MIN_BLOCKS = integer("asyncRebuildMinBlocks", 512);
+
+    /** Threads merging grid collision and building terrain shapes in the background. */
+    public static final int REBUILD_WORKER_THREADS = integer("rebuildWorkerThreads",
+            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 4)));
+
+    /**
+     * Builds terrain subchunk triangle meshes on the rebuild threads from a copy of the blocks, and
+     * adds them at a later tick. Subchunks without a shape yet collide as a box around their solid
+     * blocks. Voxel terrain is cheap to build once read, so it is always built on the spot.
+     */
+    public static volatile boolean ASYNC_TERRAIN = bool("asyncTerrain", true);
+
+    // -------------------------------------------
+    // STEP GOVERNOR
+    // -------------------------------------------
+
+    /** Lets {@link PhysicsStepGovernor} choose substeps per tick instead of a fixed 60 Hz rate. */
+    public static volatile boolean STEP_GOVERNOR = bool("stepGovernor", true);
+
+    /** Physics time an engine may spend per tick before it starts degrading, in milliseconds. */
+    public static volatile double STEP_BUDGET_MILLIS = decimal("stepBudgetMillis", 10.0);
+
+    /** Fewest substeps the governor will take per tick. */
+    public static volatile int MIN_SUB_STEPS = integer("minSubSteps", 1);
+
+    /** Grids farther than this from every player may be frozen when over budget, in blocks. */
+    public static volatile double FREEZE_DISTANCE = decimal("freezeDistance", 128.0);
+
+    // -------------------------------------------
+    // LEVEL OF DETAIL
+    // -------------------------------------------
+
+    /** Lets {@link PhysicsLodScheduler} reduce or suspend grids far from every player. */
+    public static volatile boolean LOD_ENABLED = bool("lod", true);
+
+    /** Grids within this distance of a player are updated every tick, in blocks. */
+    public static volatile double LOD_FULL_DISTANCE = decimal("lodFullDistance", 64.0);
+
+    /** Grids beyond this distance from every player are frozen, in blocks. */
+    public static volatile double LOD_FROZEN_DISTANCE = decimal("lodFrozenDistance", 192.0);
+
+    /** Ticks between server-side updates of grids in the reduced range. */
+    public static volatile int LOD_REDUCED_INTERVAL = integer("lodReducedInterval", 4);
+
+    // -------------------------------------------
+    // COLLISION
+    // -------------------------------------------
+
+    /** Broadphase backend for newly created engines. */
+    public static volatile BroadphaseType BROADPHASE = enumValue("broadphase", BroadphaseType.class, BroadphaseType.DBVT);
+
+    /**
+     * Sweeps fast grids against terrain meshes and other grids each substep, so they can't tunnel
+     * at low substep counts. The governor then stops adding substeps for their linear speed.
+     */
+    public static volatile boolean CCD_ENABLED = bool("ccd", true);
+
+    /**
+     * Tries every greedy order when merging a grid section's blocks into boxes, keeping the one
+     * with the fewest boxes. A few extra bitset passes per rebuilt section for fewer compound children.
+     */
+    public static volatile boolean THOROUGH_MERGING = bool("thoroughMerging", true);
+
+    /**
+     * Collides the full cubes of a grid as one voxel shape read from occupancy bits, instead of a
+     * compound of merged boxes. Experimental. Applies to grids as they next rebuild their shape.
+     */
+    public static volatile boolean VOXEL_COLLISION = bool("voxelCollision", false);
+
+    /**
+     * Collides terrain subchunks as voxels read from the chunk sections, instead of building a
+     * triangle mesh and BVH for each. Voxel contacts sit on block faces, so grids don't snag on
+     * triangle edges. Applies to subchunks as they are next built.
+     */
+    public static volatile boolean VOXEL_TERRAIN = bool("voxelTerrain", true);
+
+    /**
+     * Memory that terrain subchunk shapes no grid is using may hold, in megabytes. Past it, the
+     * longest-unused shapes are dropped and rebuilt from the world if a grid comes back.
+     */
+    public static volatile int TERRAIN_CACHE_MEGABYTES = integer("terrainCacheMegabytes", 64);
+
+    /**
+     * How far ahead a grid's terrain is fetched, in seconds of travel at its current velocity.
+     * Subchunks along that path are built before the grid reaches them. 0 turns prefetching off.
+     */
+    public static volatile double PREFETCH_SECONDS = decimal("prefetchSeconds", 0.5);
+
+    /**
+     * Adds prefetched subchunks to the world ahead of the grid, rather than only building their shapes.
+     * Off by default: a built shape is cheap to add once the grid reaches it.
+     */
+    public static volatile boolean PREFETCH_ADD_TO_WORLD = bool("prefetchAddToWorld", false);
+
+    /** Grid updates a subchunk stays in the world after the grid stops overlapping or heading for it. */
+    public static volatile int SUBCHUNK_RELEASE_DELAY = integer("subchunkReleaseDelay", 20);
+
+    private PhysicsConfig() {
+    }
+
+    // -------------------------------------------
+    // PROPERTY HELPERS
+    // -------------------------------------------
+
+    private static boolean bool(String name, boolean defaultValue) {
+        String value = System.getProperty(PROPERTY_PREFIX + name);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    private static <E extends Enum<E>> E enumValue(String name, Class<E> type, E defaultValue) {
+        String value = System.getProperty(PROPERTY_PREFIX + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    private static int integer(String name, int defaultValue) {
+        return Integer.getInteger(PROPERTY_PREFIX + name, defaultValue);
+    }
+
+    private static double decimal(String name, double defaultValue) {
+        String value = System.getProperty(PROPERTY_PREFIX + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -1,21 +1,22 @@
 package net.starlight.stardance.physics;
 
-import com.bulletphysics.collision.broadphase.AxisSweep3;
 import com.bulletphysics.collision.broadphase.BroadphaseInterface;
 import com.bulletphysics.collision.dispatch.*;
 import com.bulletphysics.collision.narrowphase.ManifoldPoint;
 import com.bulletphysics.collision.narrowphase.PersistentManifold;
-import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.collision.shapes.BvhTriangleMeshShape;
 import com.bulletphysics.dynamics.DynamicsWorld;
-import com.bulletphysics.dynamics.RigidBody;
 import com.bulletphysics.dynamics.constraintsolver.ConstraintSolver;
 import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
+import com.bulletphysics.linearmath.AabbUtil2;
+import com.bulletphysics.linearmath.Transform;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.phys.Vec3;
 import net.starlight.stardance.core.LocalGrid;
 import net.starlight.stardance.physics.entity.EntityPhysicsManager;
-import net.starlight.stardance.utils.BlockEventHandler;
+import net.starlight.stardance.physics.voxel.VoxelCollisionAlgorithm;
+import net.starlight.stardance.physics.voxel.VoxelQueries;
 import net.starlight.stardance.utils.ILoggingControl;
 import net.starlight.stardance.utils.SLogger;
 
@@ -25,8 +26,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import static net.starlight.stardance.physics.EngineManager.COLLISION_GROUP_GRID;
-import static net.starlight.stardance.physics.EngineManager.COLLISION_MASK_GRID;
 
 /**
  * Core physics simulation controller for a ServerWorld.
@@ -38,10 +37,8 @@ public class PhysicsEngine implements ILoggingControl {
     // CONSTANTS
     // -------------------------------------------
 
-    private static final float TICK_DELTA = 1f / 20f;  // 20 ticks per second
-    private static final int MAX_SUB_STEPS = 5;        // Max physics substeps per tick (reduced from 120)
-    private static final Vector3f WORLD_AABB_MIN = new Vector3f(-10000, -1000, -10000); // Expanded X/Z limits
-    private static final Vector3f WORLD_AABB_MAX = new Vector3f(10000, 1000, 10000);    // Expanded X/Z limits
+    static final float TICK_DELTA = 1f / 20f;  // 20 ticks per second
+    static final int MAX_SUB_STEPS = 5;        // Max physics substeps per tick (reduced from 120)
     private static final Vector3f GRAVITY = new Vector3f(0, -36.2f, 0);  // Minecraft gravity
 
     // -------------------------------------------
@@ -56,7 +53,7 @@ public class PhysicsEngine implements ILoggingControl {
     private final CollisionConfiguration collisionConfiguration;
     private final CollisionDispatcher dispatcher;
     private final ConstraintSolver solver;
-    private final DynamicsWorld dynamicsWorld;
+    private final IslandParallelDynamicsWorld dynamicsWorld;
 
     // -------------------------------------------
     // SUBSYSTEMS
@@ -64,8 +61,28 @@ public class PhysicsEngine implements ILoggingControl {
 
     private final SubchunkManager subchunkManager;
     private final Set<LocalGrid> localGrids = ConcurrentHashMap.newKeySet();
+    private final GridSpatialIndex gridIndex = new GridSpatialIndex();
     private final EntityPhysicsManager entityPhysicsManager;
 
+    // Builds and steps the Bullet objects, pipelined with the server tick when enabled
+    private final PhysicsThread physicsThread;
+
+    // Mutations from game code, applied right before each step
+    private final GridCommandBuffer commandBuffer;
+
+    // Merged box shapes shared by every grid of this world
+    private final BoxShapePool boxShapePool = new BoxShapePool();
+
+    // Last finished step, for readers that don't take the physics lock
+    private volatile PhysicsSnapshot snapshot = PhysicsSnapshot.EMPTY;
+    private long stepCount = 0;
+
+    // Substep and budget control
+    private final PhysicsStepGovernor stepGovernor;
+
+    // Distance-based level of detail
+    private final PhysicsLodScheduler lodScheduler;
+
     // -------------------------------------------
     // CONSTRUCTOR
     // -------------------------------------------
@@ -75,25 +92,42 @@ public class PhysicsEngine implements ILoggingControl {
      */
     public PhysicsEngine(ServerLevel serverWorld) {
         this.serverWorld = serverWorld;
+        this.physicsThread = new PhysicsThread("Stardance Physics - " + serverWorld.dimension().location());
 
-        // Initialize Bullet Physics components
-        this.broadphase = new AxisSweep3(WORLD_AABB_MIN, WORLD_AABB_MAX);
-        this.collisionConfiguration = new DefaultCollisionConfiguration();
-        this.dispatcher = new CollisionDispatcher(collisionConfiguration);
-        this.solver = new SequentialImpulseConstraintSolver();
-
-        // Create dynamics world with custom dispatcher
-        this.dynamicsWorld = new DiscreteDynamicsWorld(dispatcher, broadphase, solver, collisionConfiguration);
-        this.dynamicsWorld.setGravity(GRAVITY);
-
-        // Initialize an empty world with one step
-        this.dynamicsWorld.stepSimulation(TICK_DELTA, 1);
+        // Bullet objects take the object pools of the thread that builds them, so they are built
+        // on the physics thread, the only thread that steps them
+        this.dynamicsWorld = physicsThread.call(PhysicsEngine::createDynamicsWorld);
+        this.broadphase = dynamicsWorld.getBroadphase();
+        this.dispatcher = (CollisionDispatcher) dynamicsWorld.getDispatcher();
+        this.collisionConfiguration = dispatcher.getCollisionConfiguration();
+        this.solver = dynamicsWorld.getConstraintSolver();
 
         // Initialize subsystems
         this.subchunkManager = new SubchunkManager(dynamicsWorld, serverWorld);
+        this.commandBuffer = new GridCommandBuffer(dynamicsWorld);
         this.entityPhysicsManager = new EntityPhysicsManager(this,serverWorld);
-        // Connect block events to subchunk manager
-        new BlockEventHandler(subchunkManager);
+        this.stepGovernor = new PhysicsStepGovernor(this, serverWorld);
+        this.lodScheduler = new PhysicsLodScheduler(this, serverWorld);
+    }
+
+    /**
+     * Builds the Bullet components and the dynamics world. Runs on the physics thread.
+     */
+    private static IslandParallelDynamicsWorld createDynamicsWorld() {
+        BroadphaseInterface broadphase = PhysicsConfig.BROADPHASE.create();
+        CollisionConfiguration collisionConfiguration = new DefaultCollisionConfiguration();
+        CollisionDispatcher dispatcher = new CollisionDispatcher(collisionConfiguration);
+        VoxelCollisionAlgorithm.register(dispatcher);
+        TrackingCompoundCollisionAlgorithm.register(dispatcher);
+        ConstraintSolver solver = new SequentialImpulseConstraintSolver();
+
+        // Create dynamics world with custom dispatcher
+        IslandParallelDynamicsWorld dynamicsWorld = new IslandParallelDynamicsWorld(dispatcher, broadphase, solver, collisionConfiguration);
+        dynamicsWorld.setGravity(GRAVITY);
+
+        // Initialize an empty world with one step
+        dynamicsWorld.stepSimulation(TICK_DELTA, 1);
+        return dynamicsWorld;
     }
 
     // -------------------------------------------
@@ -105,39 +139,160 @@ public class PhysicsEngine implements ILoggingControl {
      * Called once per server tick for the world.
      */
     public void tick(ServerLevel world) {
+        if (PhysicsConfig.THREADED_STEPPING) {
+            tickPipelined(world);
+            return;
+        }
+
+        preStep();
+
+        // Still stepped on the physics thread, which owns the world's object pools
+        physicsThread.submit(this::step);
+        physicsThread.awaitStep();
+
+        postStep(world);
+    }
+
+    /**
+     * Pipelined variant of {@link #tick(ServerLevel)}.
+     * Collects the step handed to the physics thread last tick, runs the server-side phase
+     * against that step's results and hands over the next step.
+     */
+    private void tickPipelined(ServerLevel world) {
+        preStep();
+        postStep(world);
+
+        // Hand the next step over; it overlaps the rest of the server tick
+        physicsThread.submit(this::step);
+    }
+
+    /**
+     * First phase of a tick, run on the server thread.
+     * Acts as the tick barrier: collects any step in flight, refreshes subchunk meshes
+     * from the ServerLevel and applies every queued mutation in one batch.
+     */
+    void preStep() {
+        // Collect a step left in flight by the physics thread
+        physicsThread.awaitStep();
+
+        // Park, reduce or restore grids by distance to players, before the governor looks at them
+        lodScheduler.update();
+
+        // Choose substeps for the coming step and apply budget decisions
+        if (PhysicsConfig.STEP_GOVERNOR) {
+            stepGovernor.planTick();
+        } else if (stepGovernor.getFrozenGridCount() > 0) {
+            stepGovernor.thawAll();
+        }
+
         // Update chunk-based data
         subchunkManager.updateDirtySubchunks();
 
-        // Step the simulation
-        stepSimulation(TICK_DELTA, MAX_SUB_STEPS);
+        // Apply everything queued since the last step, including the decisions above
+        synchronized (physicsLock) {
+            commandBuffer.drain();
+        }
+    }
+
+    /**
+     * Second phase of a tick. Only touches this engine's Bullet state, so it may run on any
+     * thread, concurrently with the steps of other engines.
+     */
+    void step() {
+        long start = System.nanoTime();
+        int subSteps;
+
+        synchronized (physicsLock) {
+            if (PhysicsConfig.STEP_GOVERNOR) {
+                // Exactly the planned number of equal substeps, no interpolation remainder
+                subSteps = stepGovernor.getPlannedSubSteps();
+                dynamicsWorld.stepSubSteps(TICK_DELTA, subSteps);
+            } else {
+                subSteps = dynamicsWorld.stepSimulation(TICK_DELTA, MAX_SUB_STEPS);
+            }
+
+            // Adjust collision normals for better behavior
+            adjustContactNormals();
+
+            snapshot = PhysicsSnapshot.capture(++stepCount, dynamicsWorld.getCollisionObjectArray(), snapshot);
+        }
+
+        stepGovernor.recordStep(System.nanoTime() - start, subSteps);
+    }
+
+    /**
+     * Last phase of a tick, run on the server thread.
+     * Applies the step's results to entities and grids.
+     */
+    void postStep(ServerLevel world) {
+        // Refresh grid bounds from the finished step; spatial queries use them until the next one
+        gridIndex.retainAll(localGrids);
+        for (LocalGrid grid : localGrids) {
+            gridIndex.update(grid);
+        }
 
         // Perform entity physics
         entityPhysicsManager.updateEntitiesInSubchunks(world);
 
-        // Adjust collision normals for better behavior
-        adjustContactNormals();
-
-        // Update each LocalGrid
+        // Update each LocalGrid whose level of detail is due this tick
         for (LocalGrid grid : localGrids) {
-            grid.tickUpdate();
+            if (lodScheduler.shouldTick(grid)) {
+                grid.tickUpdate();
+            } else if (lodScheduler.getLevel(grid) == PhysicsLodScheduler.Level.REDUCED) {
+                // Reduced grids still step every tick, so the terrain they move into has to keep up
+                grid.refreshActiveSubchunks();
+            }
         }
 
-        for (CollisionObject object : dynamicsWorld.getCollisionObjectArray()){
-            SLogger.log(this, "Object: " + object.getCollisionShape().getShapeType().toString() + "; Group: " + object.getBroadphaseHandle().collisionFilterGroup + "; Mask: " + object.getBroadphaseHandle().collisionFilterMask);
+        logCollisionObjects();
+    }
+
+    /**
+     * Hands the next step to the physics thread without waiting for it.
+     * Collect it with {@link #awaitStep()} before the next {@link #postStep}.
+     */
+    void submitStep() {
+        physicsThread.submit(this::step);
+    }
+
+    /**
+     * Blocks until the step handed to the physics thread has finished.
+     */
+    void awaitStep() {
+        physicsThread.awaitStep();
+    }
+
+    /**
+     * Whether the physics thread is currently stepping this world.
+     * Readers should use the transforms published at the last barrier while this is true.
+     */
+    public boolean isStepInFlight() {
+        return physicsThread.isStepInFlight();
+    }
+
+    /**
+     * Stops the physics thread, finishing any step in flight and queued mutations.
+     */
+    public void shutdown() {
+        physicsThread.shutdown();
+        synchronized (physicsLock) {
+            commandBuffer.drain();
         }
     }
 
     /**
      * Steps the physics simulation by the given time step.
-     * Thread-safe via locking.
+     * Runs on the physics thread, under the physics lock.
      *
      * @param deltaTime Time step in seconds
      * @param maxSubSteps Maximum number of substeps
      */
     public void stepSimulation(float deltaTime, int maxSubSteps) {
-        synchronized (physicsLock) {
-            dynamicsWorld.stepSimulation(deltaTime, maxSubSteps);
-        }
+        physicsThread.call(() -> {
+            synchronized (physicsLock) {
+                return dynamicsWorld.stepSimulation(deltaTime, maxSubSteps);
+            }
+        });
     }
 
     /**
@@ -147,115 +302,91 @@ public class PhysicsEngine implements ILoggingControl {
      * @param pos Position of the changed block
      */
     public void onBlockUpdate(BlockPos pos) {
-        synchronized (physicsLock) {
-            // Create a region around the updated block
-            float x = pos.getX();
-            float y = pos.getY();
-            float z = pos.getZ();
-            float range = 1f;
-
-            Vector3f aabbMin = new Vector3f(x - range, y - range, z - range);
-            Vector3f aabbMax = new Vector3f(x + range, y + range, z + range);
-
-            // Check each LocalGrid for overlap
-            for (LocalGrid grid : localGrids) {
-                Vector3f gridMin = new Vector3f();
-                Vector3f gridMax = new Vector3f();
-                grid.getAABB(gridMin, gridMax);
-
-                if (aabbOverlap(aabbMin, aabbMax, gridMin, gridMax)) {
-                    // Activate the grid for physics processing
-                    grid.getRigidBody().activate();
-                }
-            }
+        // Create a region around the updated block
+        float x = pos.getX();
+        float y = pos.getY();
+        float z = pos.getZ();
+        float range = 1f;
+
+        // Activate every LocalGrid overlapping the region
+        for (LocalGrid grid : gridIndex.queryAabb(x - range, y - range, z - range, x + range, y + range, z + range)) {
+            commandBuffer.activate(grid);
         }
     }
 
     /**
      * Registers a LocalGrid with this physics engine.
+     * Its body joins the dynamics world when the command buffer is next drained.
      *
      * @param localGrid The grid to add
      */
     public void addGrid(LocalGrid localGrid) {
-        synchronized (physicsLock) {
-            localGrids.add(localGrid);
-
-            RigidBody rigidBody = localGrid.getRigidBody();
-
-            // Add rigid body to physics world if available
-            if (rigidBody != null) {
-                dynamicsWorld.addRigidBody(localGrid.getRigidBody());
-
-                if (rigidBody.getBroadphaseHandle() != null) {
-                    rigidBody.getBroadphaseHandle().collisionFilterGroup = COLLISION_GROUP_GRID;
-                    rigidBody.getBroadphaseHandle().collisionFilterMask = COLLISION_MASK_GRID;
-                }
-            }
-        }
+        localGrids.add(localGrid);
+        gridIndex.update(localGrid);
+        commandBuffer.addGrid(localGrid);
     }
 
     /**
      * Performs a raycast against all grids in the physics simulation.
+     * Runs against the latest {@link PhysicsSnapshot} and never takes the physics lock,
+     * so it is safe to call from any thread. Terrain is not tested; callers compare the
+     * result against a vanilla block raycast.
      *
      * @param rayStart Starting point of the ray in world coordinates
      * @param rayEnd End point of the ray in world coordinates
      * @return Optional containing the hit result, or empty if no hit
      */
     public Optional<GridRaycastResult> raycastGrids(Vec3 rayStart, Vec3 rayEnd) {
-        if (dynamicsWorld == null) {
-            SLogger.log(this, "Cannot raycast - dynamicsWorld is null");
-            return Optional.empty();
-        }
-
         try {
-            // CRITICAL: Synchronize with physics simulation to prevent race conditions
-            synchronized (physicsLock) {
-                // Convert Minecraft Vec3 to JBullet Vector3f
-                Vector3f jBulletStart = new Vector3f((float) rayStart.x, (float) rayStart.y, (float) rayStart.z);
-                Vector3f jBulletEnd = new Vector3f((float) rayEnd.x, (float) rayEnd.y, (float) rayEnd.z);
-
-                // Create JBullet raycast callback
-                CollisionWorld.ClosestRayResultCallback rayCallback =
-                        new CollisionWorld.ClosestRayResultCallback(jBulletStart, jBulletEnd);
-
-                // Perform the raycast - now thread-safe
-                dynamicsWorld.rayTest(jBulletStart, jBulletEnd, rayCallback);
-
-                // Check if we hit something
-                if (rayCallback.hasHit()) {
-                    // Get the hit information
-                    Vector3f hitPoint = new Vector3f();
-                    rayCallback.hitPointWorld.get(hitPoint);
-
-                    Vector3f hitNormal = new Vector3f();
-                    rayCallback.hitNormalWorld.get(hitNormal);
-
-                    // Get the collision object that was hit
-                    Object userPointer = rayCallback.collisionObject.getUserPointer();
-
-                    // Check if it's one of our grids
-                    if (userPointer instanceof LocalGrid) {
-                        LocalGrid hitGrid = (LocalGrid) userPointer;
-
-                        // Convert hit point back to Minecraft coordinates
-                        Vec3 minecraftHitPoint = new Vec3(hitPoint.x, hitPoint.y, hitPoint.z);
-                        Vec3 minecraftHitNormal = new Vec3(hitNormal.x, hitNormal.y, hitNormal.z);
-
-                        // Create and return the result
-                        GridRaycastResult result = new GridRaycastResult(
-                                hitGrid,
-                                minecraftHitPoint,
-                                minecraftHitNormal,
-                                rayCallback.closestHitFraction
-                        );
-
-                        return Optional.of(result);
-                    }
+            // Convert Minecraft Vec3 to JBullet Vector3f
+            Vector3f jBulletStart = new Vector3f((float) rayStart.x, (float) rayStart.y, (float) rayStart.z);
+            Vector3f jBulletEnd = new Vector3f((float) rayEnd.x, (float) rayEnd.y, (float) rayEnd.z);
+
+            Transform rayFrom = new Transform();
+            rayFrom.setIdentity();
+            rayFrom.origin.set(jBulletStart);
+            Transform rayTo = new Transform();
+            rayTo.setIdentity();
+            rayTo.origin.set(jBulletEnd);
+
+            // One callback across all grids, so each test only accepts hits closer than the best so far
+            CollisionWorld.ClosestRayResultCallback rayCallback =
+                    new CollisionWorld.ClosestRayResultCallback(jBulletStart, jBulletEnd);
+
+            Vector3f aabbMin = new Vector3f();
+            Vector3f aabbMax = new Vector3f();
+            Vector3f hitNormal = new Vector3f();
+            Transform gridTransform = new Transform();
+
+            for (PhysicsSnapshot.BodyState state : snapshot.getGrids()) {
+                state.getAabb(aabbMin, aabbMax);
+                float[] fraction = {rayCallback.closestHitFraction};
+                if (!AabbUtil2.rayAabb(jBulletStart, jBulletEnd, aabbMin, aabbMax, fraction, hitNormal)) {
+                    continue;
                 }
 
+                CollisionWorld.rayTestSingle(rayFrom, rayTo, state.getCollisionObject(), state.getShape(),
+                        state.getWorldTransform(gridTransform), rayCallback);
+                VoxelQueries.rayTest(rayFrom, rayTo, state.getCollisionObject(), state.getShape(),
+                        gridTransform, rayCallback);
+            }
+
+            if (!rayCallback.hasHit() || !(rayCallback.collisionObject.getUserPointer() instanceof LocalGrid)) {
                 return Optional.empty();
             }
 
+            LocalGrid hitGrid = (LocalGrid) rayCallback.collisionObject.getUserPointer();
+            Vector3f hitPoint = rayCallback.hitPointWorld;
+            Vector3f normal = rayCallback.hitNormalWorld;
+
+            // Convert hit point back to Minecraft coordinates
+            return Optional.of(new GridRaycastResult(
+                    hitGrid,
+                    new Vec3(hitPoint.x, hitPoint.y, hitPoint.z),
+                    new Vec3(normal.x, normal.y, normal.z),
+                    rayCallback.closestHitFraction
+            ));
+
         } catch (Exception e) {
             SLogger.log(this, "Grid raycast failed: " + e.getMessage());
             return Optional.empty();
@@ -328,9 +459,23 @@ public class PhysicsEngine implements ILoggingControl {
     // PRIVATE METHODS
     // -------------------------------------------
 
+    /**
+     * Logs every collision object in the world.
+     */
+    private void logCollisionObjects() {
+        if (!stardance$isConsoleLoggingEnabled() && !stardance$isChatLoggingEnabled()) {
+            return;
+        }
+
+        for (CollisionObject object : dynamicsWorld.getCollisionObjectArray()){
+            SLogger.log(this, "Object: " + object.getCollisionShape().getShapeType().toString() + "; Group: " + object.getBroadphaseHandle().collisionFilterGroup + "; Mask: " + object.getBroadphaseHandle().collisionFilterMask);
+        }
+    }
+
     /**
      * Adjusts contact normals to improve collision response.
-     * Makes block surface collisions more predictable.
+     * Makes block surface collisions more predictable. Only triangle mesh terrain needs this;
+     * voxel terrain already puts its contacts on block faces.
      */
     private void adjustContactNormals() {
         int numManifolds = dispatcher.getNumManifolds();
@@ -349,7 +494,7 @@ public class PhysicsEngine implements ILoggingControl {
                 ManifoldPoint cp = manifold.getContactPoint(j);
 
                 // Adjust normals for world blocks
-                if (isWorldBlock(colObj1)) {
+                if (isWorldBlock(colObj1) && colObj1.getCollisionShape() instanceof BvhTriangleMeshShape) {
                     float penetration = cp.getDistance(); // negative if penetrating
 
                     Vector3f contactPoint = new Vector3f();
@@ -407,15 +552,6 @@ public class PhysicsEngine implements ILoggingControl {
         return marker.getCenter();
     }
 
-    /**
-     * Tests if two AABBs overlap.
-     */
-    private boolean aabbOverlap(Vector3f minA, Vector3f maxA, Vector3f minB, Vector3f maxB) {
-        return (minA.x <= maxB.x && maxA.x >= minB.x) &&
-                (minA.y <= maxB.y && maxA.y >= minB.y) &&
-                (minA.z <= maxB.z && maxA.z >= minB.z);
-    }
-
     // -------------------------------------------
     // GETTERS
     // -------------------------------------------
@@ -435,6 +571,34 @@ public class PhysicsEngine implements ILoggingControl {
     }
 
 
+    /**
+     * Gets the queue through which game code mutates this engine's Bullet state.
+     */
+    public GridCommandBuffer getCommandBuffer() {
+        return commandBuffer;
+    }
+
+    /**
+     * Gets the pool of box shapes shared by this world's grids.
+     */
+    public BoxShapePool getBoxShapePool() {
+        return boxShapePool;
+    }
+
+    /**
+     * Gets the state published by the last finished step. Safe to read from any thread without the lock.
+     */
+    public PhysicsSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the spatial index of grid world bounds, refreshed once per tick.
+     */
+    public GridSpatialIndex getGridIndex() {
+        return gridIndex;
+    }
+
     /**
      * Gets the subchunk manager.
      */
@@ -451,6 +615,27 @@ public class PhysicsEngine implements ILoggingControl {
 
 
 
+    /**
+     * Gets the step governor.
+     */
+    public PhysicsStepGovernor getStepGovernor() {
+        return stepGovernor;
+    }
+
+    /**
+     * Gets the level of detail scheduler.
+     */
+    public PhysicsLodScheduler getLodScheduler() {
+        return lodScheduler;
+    }
+
+    /**
+     * Number of contact manifolds left by the last step.
+     */
+    public int getContactManifoldCount() {
+        return dispatcher.getNumManifolds();
+    }
+
     /**
      * Gets the physics lock for synchronization.
      */
@@ -468,7 +653,14 @@ public class PhysicsEngine implements ILoggingControl {
         return false;
     }
 
+    /**
+     * Unregisters a LocalGrid and removes its body from the physics world.
+     *
+     * @param localGrid The grid to remove
+     */
     public void removeGrid(LocalGrid localGrid) {
-        dynamicsWorld.removeRigidBody(localGrid.getRigidBody());
+        localGrids.remove(localGrid);
+        gridIndex.remove(localGrid);
+        commandBuffer.removeGrid(localGrid);
     }
 }
\ No newline at end of file
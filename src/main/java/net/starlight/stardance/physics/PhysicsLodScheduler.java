@@ -0,0 +1,204 @@
+package net.starlight.stardance.physics;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
+import net.starlight.stardance.core.LocalGrid;
+import net.starlight.stardance.utils.ILoggingControl;
+import net.starlight.stardance.utils.SLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each grid of a PhysicsEngine a level of detail from its distance to the nearest player.
+ * <ul>
+ *     <li>{@link Level#FULL}: updated every tick.</li>
+ *     <li>{@link Level#REDUCED}: server-side update every {@link PhysicsConfig#LOD_REDUCED_INTERVAL}
+ *     ticks, with damping applied for all the ticks in between. The body still steps every tick,
+ *     so the terrain it overlaps is activated every tick as well.</li>
+ *     <li>{@link Level#FROZEN}: body parked, no update, no networking and no subchunk meshes held.</li>
+ * </ul>
+ * Levels are re-evaluated every few ticks, with a hysteresis band so grids sitting on a boundary
+ * don't flip back and forth. Runs on the server thread at the tick barrier.
+ */
+public class PhysicsLodScheduler implements ILoggingControl {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    private static final int EVALUATION_INTERVAL = 10;     // Ticks between level re-evaluations
+    private static final double HYSTERESIS = 0.1;          // Fraction of a boundary a grid must cross to change level
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private final PhysicsEngine engine;
+    private final ServerLevel world;
+
+    private final Map<LocalGrid, Level> levels = new HashMap<>();
+    private long lastEvaluationTick = Long.MIN_VALUE;
+
+    PhysicsLodScheduler(PhysicsEngine engine, ServerLevel world) {
+        this.engine = engine;
+        this.world = world;
+    }
+
+    // -------------------------------------------
+    // PUBLIC METHODS
+    // -------------------------------------------
+
+    /**
+     * Re-evaluates grid levels when due and applies freeze and thaw transitions.
+     * Must run on the server thread while no step is in flight.
+     */
+    public void update() {
+        levels.keySet().removeIf(grid -> !engine.getGrids().contains(grid));
+
+        if (!PhysicsConfig.LOD_ENABLED) {
+            if (!levels.isEmpty()) {
+                resetAll();
+            }
+            return;
+        }
+
+        long tick = world.getGameTime();
+        if (tick - lastEvaluationTick < EVALUATION_INTERVAL && levels.size() == engine.getGrids().size()) {
+            return;
+        }
+        lastEvaluationTick = tick;
+
+        for (LocalGrid grid : engine.getGrids()) {
+            Level current = levels.getOrDefault(grid, Level.FULL);
+            Level next = levelFor(nearestPlayerDistance(grid), current);
+            if (next != current || !levels.containsKey(grid)) {
+                transition(grid, current, next);
+                levels.put(grid, next);
+            }
+        }
+    }
+
+    /**
+     * Whether the grid's server-side update should run this tick.
+     */
+    public boolean shouldTick(LocalGrid grid) {
+        switch (getLevel(grid)) {
+            case FROZEN:
+                return false;
+            case REDUCED:
+                // Spread reduced grids over the interval instead of updating them all on the same tick
+                int interval = Math.max(1, PhysicsConfig.LOD_REDUCED_INTERVAL);
+                long phase = Math.floorMod(grid.getGridId().hashCode(), interval);
+                return Math.floorMod(world.getGameTime() + phase, (long) interval) == 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns every grid to full rate, thawing the ones this scheduler froze.
+     */
+    public void resetAll() {
+        for (Map.Entry<LocalGrid, Level> entry : levels.entrySet()) {
+            if (entry.getValue() != Level.FULL) {
+                transition(entry.getKey(), entry.getValue(), Level.FULL);
+            }
+        }
+        levels.clear();
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    /**
+     * Level for a grid at the given distance. A grid keeps its level until it is
+     * HYSTERESIS past the boundary it would cross.
+     */
+    private Level levelFor(double distance, Level current) {
+        double full = PhysicsConfig.LOD_FULL_DISTANCE;
+        double frozen = PhysicsConfig.LOD_FROZEN_DISTANCE;
+
+        double fullBoundary = current == Level.FULL ? full * (1 + HYSTERESIS) : full * (1 - HYSTERESIS);
+        double frozenBoundary = current == Level.FROZEN ? frozen * (1 - HYSTERESIS) : frozen * (1 + HYSTERESIS);
+
+        if (distance <= fullBoundary) {
+            return Level.FULL;
+        }
+        return distance >= frozenBoundary ? Level.FROZEN : Level.REDUCED;
+    }
+
+    private void transition(LocalGrid grid, Level from, Level to) {
+        if (to == Level.FROZEN) {
+            grid.setPhysicsFrozen(true);
+            grid.releaseActiveSubchunks();
+        } else if (from == Level.FROZEN) {
+            grid.setPhysicsFrozen(false);
+            // Terrain has to be back in the world before the grid steps again
+            grid.refreshActiveSubchunks();
+        }
+
+        SLogger.log(this, "Grid " + grid.getGridId() + " LOD " + from + " -> " + to);
+    }
+
+    private double nearestPlayerDistance(LocalGrid grid) {
+        Vec3 position = grid.getWorldPosition();
+        double nearest = Double.MAX_VALUE;
+        for (ServerPlayer player : world.players()) {
+            nearest = Math.min(nearest, player.distanceToSqr(position));
+        }
+        return Math.sqrt(nearest);
+    }
+
+    // -------------------------------------------
+    // GETTERS
+    // -------------------------------------------
+
+    /**
+     * Current level of a grid. Grids not yet evaluated run at full rate.
+     */
+    public Level getLevel(LocalGrid grid) {
+        return levels.getOrDefault(grid, Level.FULL);
+    }
+
+    /**
+     * Number of grids currently at the given level.
+     */
+    public int countAt(Level level) {
+        if (level == Level.FULL) {
+            return engine.getGrids().size() - countAt(Level.REDUCED) - countAt(Level.FROZEN);
+        }
+        int count = 0;
+        for (Level value : levels.values()) {
+            if (value == level) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean stardance$isChatLoggingEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean stardance$isConsoleLoggingEnabled() {
+        return false;
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Simulation detail a grid currently gets.
+     */
+    public enum Level {
+        FULL,
+        REDUCED,
+        FROZEN
+    }
+}
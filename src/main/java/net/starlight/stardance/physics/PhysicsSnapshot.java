@@ -0,0 +1,220 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.util.ObjectArrayList;
+import net.starlight.stardance.core.LocalGrid;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a dynamics world's body state, captured at the end of every step.
+ * <p>
+ * A PhysicsEngine publishes each snapshot through a volatile reference, so read-only code
+ * (raycasts, debug rendering, lookups from other threads) can use the last finished step
+ * without taking the physics lock. Transforms, velocities and bounds are copies. Collision
+ * shapes are shared references: grids and subchunk meshes replace their shape on rebuild
+ * instead of modifying it, so a shape held by a snapshot does not change underneath it.
+ */
+public final class PhysicsSnapshot {
+
+    /** Snapshot of a world that has not stepped yet. */
+    public static final PhysicsSnapshot EMPTY = new PhysicsSnapshot(0, Collections.emptyList());
+
+    private final long stepCount;
+    private final List<BodyState> bodies;
+    private final List<BodyState> grids;
+    private final Map<LocalGrid, BodyState> gridStates;
+
+    private PhysicsSnapshot(long stepCount, List<BodyState> bodies) {
+        this.stepCount = stepCount;
+        this.bodies = Collections.unmodifiableList(bodies);
+
+        List<BodyState> grids = new ArrayList<>();
+        Map<LocalGrid, BodyState> gridStates = new HashMap<>();
+        for (BodyState body : bodies) {
+            LocalGrid grid = body.getGrid();
+            if (grid != null) {
+                grids.add(body);
+                gridStates.put(grid, body);
+            }
+        }
+        this.grids = Collections.unmodifiableList(grids);
+        this.gridStates = gridStates;
+    }
+
+    /**
+     * Copies the state of every collision object. Must run while nothing else writes to them,
+     * i.e. on the stepping thread under the physics lock.
+     * <p>
+     * Static objects, mostly subchunk meshes, reuse their state from the previous snapshot while
+     * their shape and transform are unchanged. Bullet keeps collision objects in insertion order
+     * and appends new ones, so the previous snapshot is walked alongside the world's list.
+     *
+     * @param previous Snapshot captured after the last step of the same world
+     */
+    static PhysicsSnapshot capture(long stepCount, ObjectArrayList<CollisionObject> collisionObjects,
+                                   PhysicsSnapshot previous) {
+        List<BodyState> bodies = new ArrayList<>(collisionObjects.size());
+        List<BodyState> previousBodies = previous.bodies;
+        int cursor = 0;
+        Transform worldTransform = new Transform();
+
+        for (int i = 0; i < collisionObjects.size(); i++) {
+            CollisionObject collisionObject = collisionObjects.getQuick(i);
+            if (collisionObject.getCollisionShape() == null) continue;
+
+            if (!isFixed(collisionObject)) {
+                bodies.add(new BodyState(collisionObject));
+                continue;
+            }
+
+            // Skip past objects removed since the last step; a new object exhausts the cursor
+            while (cursor < previousBodies.size() && previousBodies.get(cursor).collisionObject != collisionObject) {
+                cursor++;
+            }
+            BodyState reused = null;
+            if (cursor < previousBodies.size()) {
+                BodyState candidate = previousBodies.get(cursor++);
+                if (candidate.fixed && candidate.shape == collisionObject.getCollisionShape()
+                        && candidate.worldTransform.equals(collisionObject.getWorldTransform(worldTransform))) {
+                    reused = candidate;
+                }
+            }
+            bodies.add(reused != null ? reused : new BodyState(collisionObject));
+        }
+        return new PhysicsSnapshot(stepCount, bodies);
+    }
+
+    private static boolean isFixed(CollisionObject collisionObject) {
+        return collisionObject.isStaticObject() && !collisionObject.isKinematicObject();
+    }
+
+    // -------------------------------------------
+    // GETTERS
+    // -------------------------------------------
+
+    /**
+     * Number of steps the engine had taken when this snapshot was captured.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Every collision object in the world: grids, subchunk meshes and entity proxies.
+     */
+    public List<BodyState> getBodies() {
+        return bodies;
+    }
+
+    /**
+     * Bodies belonging to LocalGrids.
+     */
+    public List<BodyState> getGrids() {
+        return grids;
+    }
+
+    /**
+     * State of a grid's body, or null if the grid was not in the world at capture time.
+     */
+    public BodyState getGrid(LocalGrid grid) {
+        return gridStates.get(grid);
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * State of one collision object at capture time.
+     * States of static objects may be shared by consecutive snapshots.
+     */
+    public static final class BodyState {
+        private final CollisionObject collisionObject;
+        private final CollisionShape shape;
+        private final Object userPointer;
+        private final boolean fixed;                // Static and not kinematic, so reusable while unchanged
+        private final Transform worldTransform = new Transform();
+        private final Transform motionStateTransform = new Transform();
+        private final Vector3f aabbMin = new Vector3f();
+        private final Vector3f aabbMax = new Vector3f();
+        private final Vector3f linearVelocity = new Vector3f();
+        private final Vector3f angularVelocity = new Vector3f();
+
+        private BodyState(CollisionObject collisionObject) {
+            this.collisionObject = collisionObject;
+            this.shape = collisionObject.getCollisionShape();
+            this.userPointer = collisionObject.getUserPointer();
+            this.fixed = isFixed(collisionObject);
+
+            collisionObject.getWorldTransform(worldTransform);
+            shape.getAabb(worldTransform, aabbMin, aabbMax);
+
+            RigidBody body = RigidBody.upcast(collisionObject);
+            if (body != null) {
+                body.getLinearVelocity(linearVelocity);
+                body.getAngularVelocity(angularVelocity);
+            }
+            if (body != null && body.getMotionState() != null) {
+                body.getMotionState().getWorldTransform(motionStateTransform);
+            } else {
+                motionStateTransform.set(worldTransform);
+            }
+        }
+
+        /**
+         * The live collision object. Only its identity and user pointer are safe to use without the lock.
+         */
+        public CollisionObject getCollisionObject() {
+            return collisionObject;
+        }
+
+        public CollisionShape getShape() {
+            return shape;
+        }
+
+        public Object getUserPointer() {
+            return userPointer;
+        }
+
+        /**
+         * The grid this body belongs to, or null for meshes and entity proxies.
+         */
+        public LocalGrid getGrid() {
+            return userPointer instanceof LocalGrid ? (LocalGrid) userPointer : null;
+        }
+
+        public Transform getWorldTransform(Transform out) {
+            out.set(worldTransform);
+            return out;
+        }
+
+        public Transform getMotionStateTransform(Transform out) {
+            out.set(motionStateTransform);
+            return out;
+        }
+
+        public void getAabb(Vector3f outMin, Vector3f outMax) {
+            outMin.set(aabbMin);
+            outMax.set(aabbMax);
+        }
+
+        public Vector3f getLinearVelocity(Vector3f out) {
+            out.set(linearVelocity);
+            return out;
+        }
+
+        public Vector3f getAngularVelocity(Vector3f out) {
+            out.set(angularVelocity);
+            return out;
+        }
+    }
+}
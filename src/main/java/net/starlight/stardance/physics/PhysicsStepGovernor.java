@@ -0,0 +1,311 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.dynamics.RigidBody;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
+import net.starlight.stardance.core.LocalGrid;
+import net.starlight.stardance.utils.ILoggingControl;
+import net.starlight.stardance.utils.SLogger;
+
+import javax.vecmath.Vector3f;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Chooses how many substeps a PhysicsEngine takes each tick and keeps its step time within budget.
+ * <p>
+ * Substeps follow the fastest awake grid and whether anything is in contact. Step cost is tracked
+ * as a rolling average per substep. When a tick would exceed {@link PhysicsConfig#STEP_BUDGET_MILLIS},
+ * substeps are cut first. If the engine stays over budget anyway, grids far from every player are
+ * frozen one at a time, and thawed again once the engine has headroom or a player comes close.
+ * <p>
+ * {@link #planTick()} runs on the server thread at the tick barrier; {@link #recordStep} runs on
+ * whichever thread stepped the world.
+ */
+public class PhysicsStepGovernor implements ILoggingControl {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    private static final double EMA_ALPHA = 0.2;                // Weight of the newest sample in rolling averages
+    private static final float MAX_TRAVEL_PER_SUB_STEP = 0.5f;  // Blocks a grid may move within one substep
+    private static final int CONTACT_SUB_STEPS = 3;             // 60 Hz, the engine's previous fixed rate
+    private static final int FREE_FLIGHT_SUB_STEPS = 2;         // Awake grids with nothing touching them
+    private static final int OVER_BUDGET_TICKS_BEFORE_FREEZE = 20;
+    private static final int UNDER_BUDGET_TICKS_BEFORE_THAW = 100;
+    private static final double THAW_BUDGET_FRACTION = 0.5;     // Thaw only with this much headroom
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private final PhysicsEngine engine;
+    private final ServerLevel world;
+
+    // Written by the stepping thread, read at the next tick barrier
+    private volatile double averageStepMillis = 0;
+    private volatile double averageSubStepMillis = 0;
+    private volatile int lastSubSteps = 0;
+
+    // Server thread only
+    private int plannedSubSteps = CONTACT_SUB_STEPS;
+    private int overBudgetTicks = 0;
+    private int underBudgetTicks = 0;
+    private final Set<LocalGrid> frozenGrids = new HashSet<>();
+
+    PhysicsStepGovernor(PhysicsEngine engine, ServerLevel world) {
+        this.engine = engine;
+        this.world = world;
+    }
+
+    // -------------------------------------------
+    // PUBLIC METHODS
+    // -------------------------------------------
+
+    /**
+     * Plans the next step and applies any freeze or thaw decisions.
+     * Must run on the server thread while no step is in flight.
+     */
+    public void planTick() {
+        forgetRemovedGrids();
+        thawGridsNearPlayers();
+
+        // Cutting substeps is the first resort; the average reflects it from the next step on
+        int desired = desiredSubSteps();
+        int affordable = affordableSubSteps();
+        plannedSubSteps = Math.max(1, Math.max(PhysicsConfig.MIN_SUB_STEPS, Math.min(desired, affordable)));
+
+        updateBudgetPressure();
+    }
+
+    /**
+     * Feeds the cost of a finished step into the rolling averages.
+     *
+     * @param nanos Wall time of the step
+     * @param subSteps Substeps the step actually took
+     */
+    public void recordStep(long nanos, int subSteps) {
+        double millis = nanos / 1_000_000.0;
+        averageStepMillis = averageStepMillis == 0 ? millis : averageStepMillis + EMA_ALPHA * (millis - averageStepMillis);
+
+        if (subSteps > 0) {
+            double perSubStep = millis / subSteps;
+            averageSubStepMillis = averageSubStepMillis == 0 ? perSubStep
+                    : averageSubStepMillis + EMA_ALPHA * (perSubStep - averageSubStepMillis);
+        }
+        lastSubSteps = subSteps;
+    }
+
+    /**
+     * Thaws every grid this governor has frozen.
+     */
+    public void thawAll() {
+        for (LocalGrid grid : frozenGrids) {
+            grid.setPhysicsFrozen(false);
+        }
+        frozenGrids.clear();
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    /**
+     * Substeps needed so the fastest awake grid moves at most MAX_TRAVEL_PER_SUB_STEP per substep.
+     * The world's CCD sweep already stops grids that have it from tunneling along their path,
+     * so only their rotation counts.
+     */
+    private int desiredSubSteps() {
+        float maxTravel = 0;
+        boolean anyAwake = false;
+
+        Vector3f linear = new Vector3f();
+        Vector3f angular = new Vector3f();
+        Vector3f center = new Vector3f();
+        float[] radius = new float[1];
+
+        for (LocalGrid grid : engine.getGrids()) {
+            RigidBody body = grid.getRigidBody();
+            if (body == null || !body.isActive() || grid.isPhysicsFrozen()) {
+                continue;
+            }
+            anyAwake = true;
+
+            body.getLinearVelocity(linear);
+            body.getAngularVelocity(angular);
+            body.getCollisionShape().getBoundingSphere(center, radius);
+
+            // Fastest point of the grid: centre speed plus rim speed from rotation
+            float linearSpeed = grid.hasContinuousCollision() ? 0.0f : linear.length();
+            float travel = (linearSpeed + angular.length() * radius[0]) * PhysicsEngine.TICK_DELTA;
+            maxTravel = Math.max(maxTravel, travel);
+        }
+
+        if (!anyAwake) {
+            return PhysicsConfig.MIN_SUB_STEPS;
+        }
+
+        int base = engine.getContactManifoldCount() > 0 ? CONTACT_SUB_STEPS : FREE_FLIGHT_SUB_STEPS;
+        int forSpeed = (int) Math.ceil(maxTravel / MAX_TRAVEL_PER_SUB_STEP);
+        return Math.min(PhysicsEngine.MAX_SUB_STEPS, Math.max(base, forSpeed));
+    }
+
+    /**
+     * Substeps that fit in the budget at the current average substep cost.
+     */
+    private int affordableSubSteps() {
+        double perSubStep = averageSubStepMillis;
+        if (perSubStep <= 0) {
+            return PhysicsEngine.MAX_SUB_STEPS;
+        }
+        return (int) Math.min(PhysicsEngine.MAX_SUB_STEPS, PhysicsConfig.STEP_BUDGET_MILLIS / perSubStep);
+    }
+
+    /**
+     * Freezes far grids while the engine stays over budget even with substeps cut,
+     * and thaws them once it has had headroom for a while.
+     */
+    private void updateBudgetPressure() {
+        double budget = PhysicsConfig.STEP_BUDGET_MILLIS;
+        boolean overBudget = averageStepMillis > budget;
+
+        if (overBudget) {
+            underBudgetTicks = 0;
+            if (++overBudgetTicks >= OVER_BUDGET_TICKS_BEFORE_FREEZE) {
+                overBudgetTicks = 0;
+                freezeFarthestGrid();
+            }
+        } else if (averageStepMillis < budget * THAW_BUDGET_FRACTION && !frozenGrids.isEmpty()) {
+            overBudgetTicks = 0;
+            if (++underBudgetTicks >= UNDER_BUDGET_TICKS_BEFORE_THAW) {
+                underBudgetTicks = 0;
+                thawNearestGrid();
+            }
+        } else {
+            overBudgetTicks = 0;
+            underBudgetTicks = 0;
+        }
+    }
+
+    private void freezeFarthestGrid() {
+        double freezeDistanceSqr = PhysicsConfig.FREEZE_DISTANCE * PhysicsConfig.FREEZE_DISTANCE;
+        LocalGrid farthest = null;
+        double farthestDistanceSqr = freezeDistanceSqr;
+
+        for (LocalGrid grid : engine.getGrids()) {
+            if (grid.isPhysicsFrozen()) {
+                continue;
+            }
+            double distanceSqr = nearestPlayerDistanceSqr(grid);
+            if (distanceSqr > farthestDistanceSqr) {
+                farthest = grid;
+                farthestDistanceSqr = distanceSqr;
+            }
+        }
+
+        if (farthest != null) {
+            farthest.setPhysicsFrozen(true);
+            frozenGrids.add(farthest);
+            SLogger.log(this, "Over physics budget (" + String.format("%.2f", averageStepMillis)
+                    + " ms), froze grid " + farthest.getGridId());
+        }
+    }
+
+    private void thawNearestGrid() {
+        LocalGrid nearest = null;
+        double nearestDistanceSqr = Double.MAX_VALUE;
+
+        for (LocalGrid grid : frozenGrids) {
+            double distanceSqr = nearestPlayerDistanceSqr(grid);
+            if (distanceSqr < nearestDistanceSqr) {
+                nearest = grid;
+                nearestDistanceSqr = distanceSqr;
+            }
+        }
+
+        if (nearest != null) {
+            nearest.setPhysicsFrozen(false);
+            frozenGrids.remove(nearest);
+            SLogger.log(this, "Physics budget recovered, thawed grid " + nearest.getGridId());
+        }
+    }
+
+    private void thawGridsNearPlayers() {
+        double freezeDistanceSqr = PhysicsConfig.FREEZE_DISTANCE * PhysicsConfig.FREEZE_DISTANCE;
+        Iterator<LocalGrid> iterator = frozenGrids.iterator();
+        while (iterator.hasNext()) {
+            LocalGrid grid = iterator.next();
+            if (nearestPlayerDistanceSqr(grid) <= freezeDistanceSqr) {
+                grid.setPhysicsFrozen(false);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void forgetRemovedGrids() {
+        // Grids the LOD scheduler has parked are its to thaw
+        frozenGrids.removeIf(grid -> !engine.getGrids().contains(grid)
+                || engine.getLodScheduler().getLevel(grid) == PhysicsLodScheduler.Level.FROZEN);
+    }
+
+    private double nearestPlayerDistanceSqr(LocalGrid grid) {
+        Vec3 position = grid.getWorldPosition();
+        double nearest = Double.MAX_VALUE;
+        for (ServerPlayer player : world.players()) {
+            nearest = Math.min(nearest, player.distanceToSqr(position));
+        }
+        return nearest;
+    }
+
+    // -------------------------------------------
+    // GETTERS
+    // -------------------------------------------
+
+    /**
+     * Substeps the next step will take.
+     */
+    public int getPlannedSubSteps() {
+        return plannedSubSteps;
+    }
+
+    /**
+     * Rolling average wall time of a whole step, in milliseconds.
+     */
+    public double getAverageStepMillis() {
+        return averageStepMillis;
+    }
+
+    /**
+     * Rolling average wall time of one substep, in milliseconds.
+     */
+    public double getAverageSubStepMillis() {
+        return averageSubStepMillis;
+    }
+
+    /**
+     * Substeps the last finished step took.
+     */
+    public int getLastSubSteps() {
+        return lastSubSteps;
+    }
+
+    /**
+     * Number of grids currently frozen to stay within budget.
+     */
+    public int getFrozenGridCount() {
+        return frozenGrids.size();
+    }
+
+    @Override
+    public boolean stardance$isChatLoggingEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean stardance$isConsoleLoggingEnabled() {
+        return true;
+    }
+}
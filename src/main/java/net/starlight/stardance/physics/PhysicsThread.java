@@ -0,0 +1,110 @@
+package net.starlight.stardance.physics;
+
+import net.starlight.stardance.utils.ILoggingControl;
+import net.starlight.stardance.utils.SLogger;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Dedicated worker thread that builds and steps a single PhysicsEngine's Bullet objects.
+ * jBullet hands each object the object pools of the thread that creates it, and those pools
+ * are not synchronized, so the engine's world is only ever built and stepped here.
+ * When pipelined, the server thread hands a step over at the end of its physics tick and
+ * collects it at the start of the next one, so the step overlaps the rest of the server tick.
+ */
+class PhysicsThread implements ILoggingControl {
+
+    private final String name;
+    private final ExecutorService executor;
+    private volatile Future<?> pendingStep;
+
+    /**
+     * Creates a physics thread. The underlying thread is only started on the first task.
+     *
+     * @param name Thread name, used in crash reports and profilers
+     */
+    PhysicsThread(String name) {
+        this.name = name;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a task on the worker and waits for its result.
+     *
+     * @throws IllegalStateException if the task fails or the wait is interrupted
+     */
+    <T> T call(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting on " + name, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Task on " + name + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Hands a step over to the worker. Any previous step must have been collected first.
+     */
+    void submit(Runnable step) {
+        if (pendingStep != null) {
+            throw new IllegalStateException("Previous physics step on " + name + " was not collected");
+        }
+        pendingStep = executor.submit(step);
+    }
+
+    /**
+     * Blocks until the step handed over last tick has finished. This is the tick barrier.
+     */
+    void awaitStep() {
+        Future<?> step = pendingStep;
+        if (step == null) {
+            return;
+        }
+
+        try {
+            step.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            SLogger.log(this, "Physics step on " + name + " failed: " + e.getCause());
+        } finally {
+            pendingStep = null;
+        }
+    }
+
+    /**
+     * Whether a step has been handed over and is still running on the worker.
+     */
+    boolean isStepInFlight() {
+        Future<?> step = pendingStep;
+        return step != null && !step.isDone();
+    }
+
+    /**
+     * Waits for any running step and stops the worker.
+     */
+    void shutdown() {
+        awaitStep();
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean stardance$isChatLoggingEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean stardance$isConsoleLoggingEnabled() {
+        return true;
+    }
+}
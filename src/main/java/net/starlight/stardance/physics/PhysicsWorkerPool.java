@@ -0,0 +1,69 @@
+package net.starlight.stardance.physics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared fork/join pool for physics work that runs beside the server thread,
+ * such as solving simulation islands. Engines themselves step on their own physics threads.
+ * Grid collision merges and terrain shape builds get their own executor, so a long merge
+ * never holds up a step.
+ * Both are created on first use and torn down when the server stops.
+ */
+public final class PhysicsWorkerPool {
+
+    private static ForkJoinPool pool;
+    private static ExecutorService rebuildExecutor;
+
+    private PhysicsWorkerPool() {
+    }
+
+    /**
+     * Gets the pool, creating it if needed.
+     */
+    public static synchronized ForkJoinPool get() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PhysicsConfig.PHYSICS_WORKER_THREADS, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("Stardance Physics Worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    /**
+     * Gets the executor for background grid collision merges and terrain shape builds,
+     * creating it if needed.
+     */
+    public static synchronized ExecutorService getRebuildExecutor() {
+        if (rebuildExecutor == null) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            rebuildExecutor = Executors.newFixedThreadPool(PhysicsConfig.REBUILD_WORKER_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "Stardance Grid Rebuild-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        }
+        return rebuildExecutor;
+    }
+
+    /**
+     * Stops the pool and the rebuild executor. New ones are created if physics work is submitted again.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+            rebuildExecutor = null;
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package net.starlight.stardance.physics;
 
 import com.bulletphysics.dynamics.DynamicsWorld;
+import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
 import net.starlight.stardance.utils.ILoggingControl;
 import net.starlight.stardance.utils.SLogger;  // Assuming you have this logging utility
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class SubchunkManager implements ILoggingControl {
+    private static final long MESH_OVERHEAD_BYTES = 1024;   // Body, shape and bookkeeping of a cached mesh beyond its buffers
+
     private Map<SubchunkCoordinates, SubchunkMesh> subchunkMeshes = new ConcurrentHashMap<>();
     private Map<SubchunkCoordinates, Integer> referenceCounts = new ConcurrentHashMap<>();
+    private final Map<SubchunkCoordinates, Long> inactiveMeshes = new LinkedHashMap<>();  // Cached meshes in order of deactivation, with their accounted size
+    private long inactiveBytes;
+    private final Set<SubchunkCoordinates> cachedBuilds = new LinkedHashSet<>();  // Cached meshes whose background build is still running
+    private final Set<SubchunkCoordinates> pendingMeshes = new LinkedHashSet<>();  // Meshes in use that are dirty or building
     private DynamicsWorld dynamicsWorld;
     private ServerLevel world;
 
@@ -25,12 +36,23 @@ public class SubchunkManager implements ILoggingControl {
     public void activateSubchunk(SubchunkCoordinates coords) {
         SLogger.log(this, "Activating subchunk at coords: " + coords);
         SubchunkMesh mesh = subchunkMeshes.computeIfAbsent(coords, SubchunkMesh::new);
-        mesh.generateMesh(world);
-        referenceCounts.merge(coords, 1, Integer::sum);
+        uncache(coords);
+        int count = referenceCounts.merge(coords, 1, Integer::sum);
 
-        if (referenceCounts.get(coords) == 1) {
-            // First reference, add to physics world
+        if (count == 1) {
+            // First reference: reuse the shape unless terrain it was read from has changed since,
+            // and add it to the physics world. Later references share it; changes queue a rebuild
+            if (mesh.isBuilding()) {
+                mesh.installFinishedBuild();
+            }
+            if (mesh.isDirty()) {
+                rebuild(mesh);
+            }
             mesh.addToPhysicsWorld(dynamicsWorld);
+            refreshBounds(mesh);
+            if (mesh.isDirty() || mesh.isBuilding()) {
+                pendingMeshes.add(coords);
+            }
         }
     }
 
@@ -43,25 +65,230 @@ public class SubchunkManager implements ILoggingControl {
                 SubchunkMesh mesh = subchunkMeshes.get(coords);
                 mesh.removeFromPhysicsWorld(dynamicsWorld);
                 referenceCounts.remove(coords);
+                pendingMeshes.remove(coords);
+                cache(coords, mesh);
+            }
+        }
+    }
+
+    /**
+     * Builds the shape of a subchunk a grid is expected to reach, without adding it to the world,
+     * so activating it later costs little. The mesh waits in the inactive cache until then.
+     * Does nothing for subchunks already in use.
+     */
+    public void warmSubchunk(SubchunkCoordinates coords) {
+        if (isSubchunkActive(coords)) {
+            return;
+        }
+
+        SubchunkMesh mesh = subchunkMeshes.computeIfAbsent(coords, SubchunkMesh::new);
+        if (mesh.isBuilding()) {
+            mesh.installFinishedBuild();
+        }
+        if (mesh.isDirty()) {
+            rebuild(mesh);
+        }
+        uncache(coords);
+        cache(coords, mesh);
+    }
+
+    // ----------------------------------------------
+    // INACTIVE MESH CACHE
+    // ----------------------------------------------
+
+    /**
+     * Keeps a deactivated mesh for reuse, then evicts the longest-inactive meshes until the
+     * cache fits {@link PhysicsConfig#TERRAIN_CACHE_MEGABYTES}. Evicted subchunks are rebuilt
+     * from the world if a grid reaches them again.
+     */
+    private void cache(SubchunkCoordinates coords, SubchunkMesh mesh) {
+        long bytes = mesh.getMemoryBytes() + MESH_OVERHEAD_BYTES;
+        inactiveMeshes.put(coords, bytes);
+        inactiveBytes += bytes;
+        if (mesh.isBuilding()) {
+            cachedBuilds.add(coords);
+        }
+        evictOverBudget();
+    }
+
+    /**
+     * Installs background builds that finished while their mesh was cached, such as those of
+     * warmed subchunks, and accounts the mesh at its new size.
+     */
+    private void installCachedBuilds() {
+        if (cachedBuilds.isEmpty()) {
+            return;
+        }
+
+        boolean grown = false;
+        Iterator<SubchunkCoordinates> building = cachedBuilds.iterator();
+        while (building.hasNext()) {
+            SubchunkCoordinates coords = building.next();
+            SubchunkMesh mesh = subchunkMeshes.get(coords);
+            Long accounted = inactiveMeshes.get(coords);
+            if (mesh == null || accounted == null) {
+                building.remove();
+                continue;
+            }
+            if (!mesh.installFinishedBuild()) {
+                continue;
+            }
+
+            // Replacing the value keeps the mesh's place in the eviction order
+            long bytes = mesh.getMemoryBytes() + MESH_OVERHEAD_BYTES;
+            inactiveMeshes.put(coords, bytes);
+            inactiveBytes += bytes - accounted;
+            grown |= bytes > accounted;
+            building.remove();
+        }
+
+        if (grown) {
+            evictOverBudget();
+        }
+    }
+
+    /**
+     * Evicts the longest-inactive meshes until the cache fits its budget.
+     */
+    private void evictOverBudget() {
+        long budget = (long) PhysicsConfig.TERRAIN_CACHE_MEGABYTES << 20;
+        Iterator<Map.Entry<SubchunkCoordinates, Long>> oldest = inactiveMeshes.entrySet().iterator();
+        while (inactiveBytes > budget && oldest.hasNext()) {
+            Map.Entry<SubchunkCoordinates, Long> entry = oldest.next();
+            oldest.remove();
+            inactiveBytes -= entry.getValue();
+            cachedBuilds.remove(entry.getKey());
+            SubchunkMesh evicted = subchunkMeshes.remove(entry.getKey());
+            if (evicted != null) {
+                evicted.discard();
             }
+            SLogger.log(this, "Evicted inactive subchunk mesh at coords " + entry.getKey());
+        }
+    }
+
+    private void uncache(SubchunkCoordinates coords) {
+        Long bytes = inactiveMeshes.remove(coords);
+        if (bytes != null) {
+            inactiveBytes -= bytes;
         }
+        cachedBuilds.remove(coords);
     }
 
+    /**
+     * Bytes held by meshes no grid is using, as accounted when they were cached or their build finished.
+     */
+    public long getInactiveBytes() {
+        return inactiveBytes;
+    }
+
+    /**
+     * Installs finished background builds and rebuilds changed subchunks that are in use,
+     * in the background when {@link PhysicsConfig#ASYNC_TERRAIN} is on. Only subchunks queued
+     * by a change or a build are visited. Builds that finished for cached meshes are installed too.
+     */
     public void updateDirtySubchunks() {
-        SLogger.log(this, "Updating dirty subchunks.");
-        for (SubchunkMesh mesh : subchunkMeshes.values()) {
-            if (mesh.isDirty() && mesh.isActive()) {
-                SLogger.log(this, "Regenerating mesh for subchunk at coords: " + mesh.getRigidBody());
-                mesh.generateMesh(world);
+        installCachedBuilds();
+
+        Iterator<SubchunkCoordinates> queued = pendingMeshes.iterator();
+        while (queued.hasNext()) {
+            SubchunkCoordinates coords = queued.next();
+            SubchunkMesh mesh = subchunkMeshes.get(coords);
+            if (mesh == null || !isSubchunkActive(coords)) {
+                queued.remove();
+                continue;
+            }
+
+            boolean changed = false;
+            if (mesh.isBuilding() && mesh.installFinishedBuild()) {
+                changed = true;
+            }
+            if (mesh.isDirty() && !mesh.isBuilding()) {
+                SLogger.log(this, "Regenerating mesh for subchunk at coords: " + coords);
+                rebuild(mesh);
+                changed = true;
             }
+            if (changed) {
+                // A subchunk that had nothing solid gets its first body here
+                mesh.addToPhysicsWorld(dynamicsWorld);
+                refreshBounds(mesh);
+            }
+
+            if (!mesh.isDirty() && !mesh.isBuilding()) {
+                queued.remove();
+            }
+        }
+    }
+
+    /**
+     * Reads the subchunk's terrain again and builds its shape. Triangle meshes are built in the
+     * background when {@link PhysicsConfig#ASYNC_TERRAIN} is on, and a build already running is
+     * left to finish. Voxel shapes are always built here: past reading the terrain they are a bit
+     * copy, and a placeholder box standing in for them could enclose a grid that is already there.
+     */
+    private void rebuild(SubchunkMesh mesh) {
+        if (!PhysicsConfig.ASYNC_TERRAIN || PhysicsConfig.VOXEL_TERRAIN) {
+            mesh.generateMesh(world);
+        } else if (!mesh.isBuilding()) {
+            // The old shape, or a box placeholder, stands in until the build is installed
+            mesh.startBuild(world, PhysicsWorkerPool.getRebuildExecutor());
         }
     }
 
+    /**
+     * Static meshes are skipped by the world's per-step bounds update,
+     * so a mesh regenerated while in the world refreshes its broadphase bounds here.
+     */
+    private void refreshBounds(SubchunkMesh mesh) {
+        if (mesh.isActive() && mesh.getRigidBody() != null) {
+            dynamicsWorld.updateSingleAabb(mesh.getRigidBody());
+        }
+    }
+
+    /**
+     * Marks the subchunk holding a changed block dirty, along with any neighbour it borders,
+     * since voxel terrain hides faces against the neighbouring subchunks' blocks.
+     */
+    public void markBlockChanged(BlockPos pos) {
+        int x = pos.getX() >> 4, y = pos.getY() >> 4, z = pos.getZ() >> 4;
+        int localX = pos.getX() & 15, localY = pos.getY() & 15, localZ = pos.getZ() & 15;
+        markSubchunkDirty(new SubchunkCoordinates(x, y, z));
+
+        if (localX == 0) markSubchunkDirty(new SubchunkCoordinates(x - 1, y, z));
+        if (localX == 15) markSubchunkDirty(new SubchunkCoordinates(x + 1, y, z));
+        if (localY == 0) markSubchunkDirty(new SubchunkCoordinates(x, y - 1, z));
+        if (localY == 15) markSubchunkDirty(new SubchunkCoordinates(x, y + 1, z));
+        if (localZ == 0) markSubchunkDirty(new SubchunkCoordinates(x, y, z - 1));
+        if (localZ == 15) markSubchunkDirty(new SubchunkCoordinates(x, y, z + 1));
+    }
+
+    /**
+     * Marks every subchunk of a newly loaded chunk dirty, along with the subchunks beside it,
+     * since any of them may have been read while the chunk was missing.
+     */
+    public void markChunkLoaded(ChunkPos pos) {
+        for (int y = world.getMinSection(); y < world.getMaxSection(); y++) {
+            markSubchunkDirty(new SubchunkCoordinates(pos.x, y, pos.z));
+            markSubchunkDirty(new SubchunkCoordinates(pos.x - 1, y, pos.z));
+            markSubchunkDirty(new SubchunkCoordinates(pos.x + 1, y, pos.z));
+            markSubchunkDirty(new SubchunkCoordinates(pos.x, y, pos.z - 1));
+            markSubchunkDirty(new SubchunkCoordinates(pos.x, y, pos.z + 1));
+        }
+    }
+
+    /**
+     * Bumps the version of a subchunk's mesh, if it has one, and queues it for a rebuild if it
+     * is in use. Meshes not in use rebuild when next activated.
+     */
     public void markSubchunkDirty(SubchunkCoordinates coords) {
-        SLogger.log(this, "Marking subchunk at coords " + coords + " as dirty.");
         SubchunkMesh mesh = subchunkMeshes.get(coords);
-        if (mesh != null) {
-            mesh.markDirty();
+        if (mesh == null) {
+            return;
+        }
+
+        SLogger.log(this, "Marking subchunk at coords " + coords + " as dirty.");
+        mesh.markDirty();
+        if (isSubchunkActive(coords)) {
+            pendingMeshes.add(coords);
         }
     }
 
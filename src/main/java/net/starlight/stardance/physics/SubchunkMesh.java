@@ -1,362 +1,561 @@
 package net.starlight.stardance.physics;
 
 import com.bulletphysics.collision.dispatch.CollisionFlags;
+import com.bulletphysics.collision.shapes.BoxShape;
 import com.bulletphysics.collision.shapes.BvhTriangleMeshShape;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.collision.shapes.IndexedMesh;
+import com.bulletphysics.collision.shapes.StridingMeshInterface;
 import com.bulletphysics.collision.shapes.TriangleIndexVertexArray;
 import com.bulletphysics.dynamics.DynamicsWorld;
 import com.bulletphysics.dynamics.RigidBody;
 import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
 import com.bulletphysics.linearmath.Transform;
-import net.minecraft.core.BlockPos;
+import com.bulletphysics.util.ObjectArrayList;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.starlight.stardance.physics.voxel.VoxelGridShape;
 import net.starlight.stardance.utils.ILoggingControl;
 import net.starlight.stardance.utils.SLogger;  // Assuming you have this logging utility
 
 import javax.vecmath.Vector3f;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static net.starlight.stardance.physics.EngineManager.COLLISION_GROUP_MESH;
 import static net.starlight.stardance.physics.EngineManager.COLLISION_MASK_MESH;
 
 public class SubchunkMesh implements ILoggingControl {
+    private static final int SUBCHUNK_SIZE = 16;
+    private static final int PADDED_SIZE = SUBCHUNK_SIZE + 2;             // Occupancy rows per axis, with a neighbour layer each side
+    private static final int BVH_BYTES_PER_TRIANGLE = 32;                 // Two quantized nodes per triangle
+    private static final int FULL_ROW = ((1 << SUBCHUNK_SIZE) - 1) << 1;  // Occupancy row of 16 solid blocks
+    private static final ThreadLocal<MeshBuilder> MESH_BUILDERS = ThreadLocal.withInitial(MeshBuilder::new);
+
     private SubchunkCoordinates coords;
-    private TriangleIndexVertexArray meshData;
-    private BvhTriangleMeshShape meshShape;
     private RigidBody rigidBody;
-    private boolean isDirty;
+    private DynamicsWorld dynamicsWorld;     // World the body was last added to
+    private int version = 1;                 // Bumped by every terrain change the shape depends on
+    private int builtVersion;                // Version the installed shape was read at
     private boolean isActive;
+    private CompletableFuture<CollisionShape> pendingShape;   // Background build in flight, if any
+    private int pendingVersion;                               // Version the build in flight was read at
+    private long memoryBytes;                                 // Estimated size of the installed shape
 
     public SubchunkMesh(SubchunkCoordinates coords) {
         this.coords = coords;
-        this.isDirty = true;  // Mark as dirty initially
         this.isActive = false;
         SLogger.log(this, "SubchunkMesh created for coords: " + coords);
     }
 
     /**
-     * Generates the collision mesh using a greedy meshing algorithm over all six face directions.
-     * This version generates vertices in local coordinates (0..subchunkSize) and then uses the
-     * rigid body transform to place the mesh in world space.
+     * Builds the subchunk's collision shape from the blocks currently in the world:
+     * voxels read from the chunk section, or a greedy triangle mesh when voxel terrain is off.
      */
     public void generateMesh(ServerLevel world) {
-        SLogger.log(this, "Starting mesh generation for subchunk at coords: " + coords);
-        List<Vector3f> vertices = new ArrayList<>();
-        List<Integer> indices = new ArrayList<>();
-        int subchunkSize = 16; // Assumed dimensions for a subchunk
+        int[] occupancy = readOccupancy(world);
+        builtVersion = version;
+        pendingShape = null;  // Any background build read older terrain
+        CollisionShape shape = buildShape(occupancy, PhysicsConfig.VOXEL_TERRAIN);
+        if (shape != null) {
+            installShape(shape);
+        } else {
+            dropShape();
+        }
+    }
+
+    // ----------------------------------------------
+    // BACKGROUND BUILDS
+    // ----------------------------------------------
+
+    /**
+     * Copies the subchunk's occupancy from the world and builds its shape from the copy on the
+     * executor. Until {@link #installFinishedBuild} picks the shape up, the subchunk keeps the
+     * shape it has, or gets a box around its solid blocks if it has none yet. Only meant for
+     * triangle meshes; voxel shapes are cheap enough to build with {@link #generateMesh}.
+     * Must not be called while {@link #isBuilding}.
+     */
+    public void startBuild(ServerLevel world, Executor executor) {
+        int[] occupancy = readOccupancy(world);
+        pendingVersion = version;
+        if (rigidBody == null) {
+            CollisionShape placeholder = buildPlaceholder(occupancy);
+            if (placeholder != null) {
+                installShape(placeholder);
+            }
+        }
+
+        boolean voxels = PhysicsConfig.VOXEL_TERRAIN;
+        pendingShape = CompletableFuture.supplyAsync(() -> buildShape(occupancy, voxels), executor);
+    }
 
-        // Calculate the base world coordinates for this subchunk.
-        // (They are used later as the rigid body transform.)
-        int baseX = coords.x * subchunkSize;
-        int baseY = coords.y * subchunkSize;
-        int baseZ = coords.z * subchunkSize;
+    /**
+     * Installs the shape of a finished background build. Edits made while it ran leave the
+     * subchunk dirty for the next build.
+     *
+     * @return Whether a build finished, whatever its outcome
+     */
+    public boolean installFinishedBuild() {
+        if (pendingShape == null || !pendingShape.isDone()) {
+            return false;
+        }
+
+        CompletableFuture<CollisionShape> finished = pendingShape;
+        pendingShape = null;
+        try {
+            CollisionShape shape = finished.join();
+            if (shape != null) {
+                installShape(shape);
+            } else {
+                dropShape();
+            }
+            builtVersion = pendingVersion;
+        } catch (CompletionException | CancellationException e) {
+            // The version stays behind, so the subchunk is built again
+            SLogger.log(this, "Background build failed for subchunk at coords " + coords + ": " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Whether a background build is running or waiting to be installed.
+     */
+    public boolean isBuilding() {
+        return pendingShape != null;
+    }
+
+    /**
+     * Builds a collision shape from an occupancy copy. Touches no world or physics state, so it
+     * may run on a worker thread. Returns null for a triangle mesh with no faces.
+     */
+    private CollisionShape buildShape(int[] occupancy, boolean voxels) {
+        return voxels ? buildVoxelShape(occupancy) : buildTriangleMesh(occupancy);
+    }
+
+    /**
+     * One box around the solid blocks of the subchunk, covering at least everything the real
+     * shape will, or null if the subchunk holds no solid blocks.
+     */
+    private static CollisionShape buildPlaceholder(int[] occupancy) {
+        int minX = SUBCHUNK_SIZE, minY = SUBCHUNK_SIZE, minZ = SUBCHUNK_SIZE;
+        int maxX = -1, maxY = -1, maxZ = -1;
+        for (int y = 0; y < SUBCHUNK_SIZE; y++) {
+            for (int z = 0; z < SUBCHUNK_SIZE; z++) {
+                int row = occupancy[index(y, z)] >>> 1 & 0xFFFF;
+                if (row == 0) continue;
+
+                minX = Math.min(minX, Integer.numberOfTrailingZeros(row));
+                maxX = Math.max(maxX, 31 - Integer.numberOfLeadingZeros(row));
+                minY = Math.min(minY, y);
+                maxY = y;
+                minZ = Math.min(minZ, z);
+                maxZ = Math.max(maxZ, z);
+            }
+        }
+        if (maxX < 0) {
+            return null;
+        }
+
+        Vector3f halfExtents = new Vector3f(maxX + 1 - minX, maxY + 1 - minY, maxZ + 1 - minZ);
+        halfExtents.scale(0.5f);
+        Transform boxTransform = new Transform();
+        boxTransform.setIdentity();
+        boxTransform.origin.set(minX + halfExtents.x, minY + halfExtents.y, minZ + halfExtents.z);
+
+        CompoundShape placeholder = new CompoundShape();
+        placeholder.addChildShape(boxTransform, new BoxShape(halfExtents));
+        return placeholder;
+    }
+
+    // ----------------------------------------------
+    // SHAPE BUILDING
+    // ----------------------------------------------
+
+    /**
+     * Builds the subchunk's voxel shape from its occupancy. The layers of the six neighbouring
+     * sections that touch this one become the shape's borders, so faces against solid terrain
+     * next door produce no contacts.
+     */
+    private VoxelGridShape buildVoxelShape(int[] occupancy) {
+        long[] bits = new long[VoxelGridShape.Section.WORDS];
+        long[][] borderBits = new long[6][VoxelGridShape.Section.WORDS];
+        int last = SUBCHUNK_SIZE - 1;
+        for (int y = 0; y < SUBCHUNK_SIZE; y++) {
+            for (int z = 0; z < SUBCHUNK_SIZE; z++) {
+                int row = occupancy[index(y, z)];
+                VoxelGridShape.Section.setRow(bits, y, z, row >>> 1);
+                if ((row & 1) != 0) VoxelGridShape.Section.set(borderBits[Direction.WEST.ordinal()], last, y, z);
+                if ((row & 1 << (SUBCHUNK_SIZE + 1)) != 0) VoxelGridShape.Section.set(borderBits[Direction.EAST.ordinal()], 0, y, z);
+            }
+        }
+        for (int i = 0; i < SUBCHUNK_SIZE; i++) {
+            VoxelGridShape.Section.setRow(borderBits[Direction.DOWN.ordinal()], last, i, occupancy[index(-1, i)] >>> 1);
+            VoxelGridShape.Section.setRow(borderBits[Direction.UP.ordinal()], 0, i, occupancy[index(SUBCHUNK_SIZE, i)] >>> 1);
+            VoxelGridShape.Section.setRow(borderBits[Direction.NORTH.ordinal()], i, last, occupancy[index(i, -1)] >>> 1);
+            VoxelGridShape.Section.setRow(borderBits[Direction.SOUTH.ordinal()], i, 0, occupancy[index(i, SUBCHUNK_SIZE)] >>> 1);
+        }
+
+        VoxelGridShape.Section voxels = VoxelGridShape.Section.of(0, 0, 0, bits);
+        List<VoxelGridShape.Section> borders = new ArrayList<>();
+        for (Direction face : Direction.values()) {
+            VoxelGridShape.Section border = VoxelGridShape.Section.of(
+                    face.getStepX(), face.getStepY(), face.getStepZ(), borderBits[face.ordinal()]);
+            if (border != null) {
+                borders.add(border);
+            }
+        }
+
+        VoxelGridShape shape = new VoxelGridShape(
+                voxels != null ? Collections.singletonList(voxels) : Collections.emptyList(), borders);
+        SLogger.log(this, "Voxel shape for subchunk at coords " + coords + " holds " + shape.getVoxelCount() + " blocks.");
+        return shape;
+    }
+
+    /**
+     * Generates the collision mesh using a greedy meshing algorithm over all six face directions.
+     * Exposed faces come from the occupancy with bitwise ops, a row at a time. Vertices are in
+     * local coordinates (0..16) and the rigid body transform places the mesh in world space.
+     */
+    private BvhTriangleMeshShape buildTriangleMesh(int[] occupancy) {
+        SLogger.log(this, "Starting mesh generation for subchunk at coords: " + coords);
+        MeshBuilder mesh = MESH_BUILDERS.get();
+        mesh.reset();
 
         // Process each face direction using greedy meshing.
+        int[][] masks = mesh.masks;
         for (Direction face : Direction.values()) {
-            SLogger.log(this, "Processing face: " + face);
-            generateGreedyMeshForFace(world, face, baseX, baseY, baseZ, subchunkSize, vertices, indices);
+            buildFaceMasks(occupancy, face, masks);
+            for (int slice = 0; slice < SUBCHUNK_SIZE; slice++) {
+                processMask(masks[slice], face, slice, mesh);
+            }
         }
 
-        SLogger.log(this, "Mesh generation produced " + vertices.size() + " vertices and " + indices.size() + " indices.");
-        if (vertices.isEmpty() || indices.isEmpty()) {
+        int vertexCount = mesh.vertexCount();
+        SLogger.log(this, "Mesh generation produced " + vertexCount + " vertices and " + mesh.indexCount + " indices.");
+        if (mesh.indexCount == 0) {
             SLogger.log(this, "No geometry generated for subchunk at coords: " + coords);
-            isDirty = false;
-            return;
+            return null;
         }
 
         int vertexStride = 3 * 4; // 3 floats per vertex
         int indexStride = 3 * 4;  // 3 ints per triangle
 
-        ByteBuffer vertexByteBuffer = ByteBuffer.allocateDirect(vertices.size() * vertexStride).order(ByteOrder.nativeOrder());
-        for (Vector3f v : vertices) {
-            vertexByteBuffer.putFloat(v.x);
-            vertexByteBuffer.putFloat(v.y);
-            vertexByteBuffer.putFloat(v.z);
-        }
-        vertexByteBuffer.flip();
-
-        ByteBuffer indexByteBuffer = ByteBuffer.allocateDirect(indices.size() * 4).order(ByteOrder.nativeOrder());
-        for (int i : indices) {
-            indexByteBuffer.putInt(i);
-        }
-        indexByteBuffer.flip();
+        // Buffers come from the arena and go back to it when the shape is replaced
+        ByteBuffer vertexByteBuffer = DirectBufferArena.acquire(vertexCount * vertexStride);
+        vertexByteBuffer.asFloatBuffer().put(mesh.vertices, 0, mesh.vertexFloats);
+        ByteBuffer indexByteBuffer = DirectBufferArena.acquire(mesh.indexCount * 4);
+        indexByteBuffer.asIntBuffer().put(mesh.indices, 0, mesh.indexCount);
 
-        meshData = new TriangleIndexVertexArray(
-                indices.size() / 3,
+        TriangleIndexVertexArray meshData = new TriangleIndexVertexArray(
+                mesh.indexCount / 3,
                 indexByteBuffer,
                 indexStride,
-                vertices.size(),
+                vertexCount,
                 vertexByteBuffer,
                 vertexStride
         );
-        meshShape = new BvhTriangleMeshShape(meshData, true);
+        return new BvhTriangleMeshShape(meshData, true);
+    }
 
+    /**
+     * Gives the subchunk's rigid body a new shape, creating the body on first use, and places it
+     * at the subchunk's base world coordinates.
+     */
+    private void installShape(CollisionShape shape) {
+        memoryBytes = estimateBytes(shape);
         if (rigidBody != null) {
-            rigidBody.setCollisionShape(meshShape);
+            retireBuffers(rigidBody.getCollisionShape());
+            if (isActive && dynamicsWorld != null) {
+                // Drop cached algorithms for the old shape before swapping it
+                dynamicsWorld.getBroadphase().getOverlappingPairCache()
+                        .cleanProxyFromPairs(rigidBody.getBroadphaseHandle(), dynamicsWorld.getDispatcher());
+            }
+            rigidBody.setCollisionShape(shape);
             SLogger.log(this, "Updated collision shape for existing rigid body.");
         } else {
-            RigidBodyConstructionInfo rbInfo = new RigidBodyConstructionInfo(0, null, meshShape);
+            RigidBodyConstructionInfo rbInfo = new RigidBodyConstructionInfo(0, null, shape);
             rigidBody = new RigidBody(rbInfo);
             SLogger.log(this, "Created new rigid body for subchunk.");
         }
 
-        // Set the rigid body's transform to the subchunk's base world coordinates.
         Transform transform = new Transform();
         transform.setIdentity();
-        transform.origin.set(new Vector3f(baseX, baseY, baseZ));
+        transform.origin.set(coords.x * SUBCHUNK_SIZE, coords.y * SUBCHUNK_SIZE, coords.z * SUBCHUNK_SIZE);
         rigidBody.setWorldTransform(transform);
-        SLogger.log(this, "Rigid body transform set to (" + baseX + ", " + baseY + ", " + baseZ + ").");
-
-        isDirty = false;
     }
 
     /**
-     * For a given face direction, iterates through the subchunk slices, builds a 2D mask of exposed faces,
-     * and processes that mask with the greedy meshing algorithm.
+     * Fills the exposed faces of one direction, by slice along the face's axis. Bit j of
+     * masks[slice][i] is the face at (i, j) of that slice, in the axes computeQuadVertices uses:
+     * x and z for up and down, x and y for north and south, z and y for west and east.
      */
-    private void generateGreedyMeshForFace(ServerLevel world, Direction face, int baseX, int baseY, int baseZ, int subchunkSize, List<Vector3f> vertices, List<Integer> indices) {
-        switch(face) {
-            case UP:
-                for (int y = 0; y < subchunkSize; y++) {
-                    boolean[][] mask = new boolean[subchunkSize][subchunkSize];
-                    for (int x = 0; x < subchunkSize; x++) {
-                        for (int z = 0; z < subchunkSize; z++) {
-                            BlockPos pos = new BlockPos(baseX + x, baseY + y, baseZ + z);
-                            BlockState state = world.getBlockState(pos);
-                            BlockPos neighborPos = new BlockPos(baseX + x, baseY + y + 1, baseZ + z);
-                            mask[x][z] = (!state.isAir()) && world.getBlockState(neighborPos).isAir();
-                        }
-                    }
-                    processMask(mask, face, baseX, baseY, baseZ, subchunkSize, y, vertices, indices);
-                }
-                break;
-            case DOWN:
-                for (int y = 0; y < subchunkSize; y++) {
-                    boolean[][] mask = new boolean[subchunkSize][subchunkSize];
-                    for (int x = 0; x < subchunkSize; x++) {
-                        for (int z = 0; z < subchunkSize; z++) {
-                            BlockPos pos = new BlockPos(baseX + x, baseY + y, baseZ + z);
-                            BlockState state = world.getBlockState(pos);
-                            BlockPos neighborPos = new BlockPos(baseX + x, baseY + y - 1, baseZ + z);
-                            mask[x][z] = (!state.isAir()) && world.getBlockState(neighborPos).isAir();
-                        }
-                    }
-                    processMask(mask, face, baseX, baseY, baseZ, subchunkSize, y, vertices, indices);
-                }
-                break;
-            case NORTH:
-                for (int z = 0; z < subchunkSize; z++) {
-                    boolean[][] mask = new boolean[subchunkSize][subchunkSize];
-                    for (int x = 0; x < subchunkSize; x++) {
-                        for (int y = 0; y < subchunkSize; y++) {
-                            BlockPos pos = new BlockPos(baseX + x, baseY + y, baseZ + z);
-                            BlockState state = world.getBlockState(pos);
-                            BlockPos neighborPos = new BlockPos(baseX + x, baseY + y, baseZ + z - 1);
-                            mask[x][y] = (!state.isAir()) && world.getBlockState(neighborPos).isAir();
-                        }
+    private static void buildFaceMasks(int[] occupancy, Direction face, int[][] masks) {
+        for (int[] mask : masks) {
+            Arrays.fill(mask, 0);
+        }
+
+        int stepX = face.getStepX();
+        for (int y = 0; y < SUBCHUNK_SIZE; y++) {
+            for (int z = 0; z < SUBCHUNK_SIZE; z++) {
+                int row = occupancy[index(y, z)];
+                int neighbour = stepX > 0 ? row >>> 1
+                        : stepX < 0 ? row << 1
+                        : occupancy[index(y + face.getStepY(), z + face.getStepZ())];
+
+                // A face shows where the block is solid and its neighbour in that direction isn't
+                int exposed = (row & ~neighbour) >>> 1 & 0xFFFF;
+                while (exposed != 0) {
+                    int x = Integer.numberOfTrailingZeros(exposed);
+                    exposed &= exposed - 1;
+                    switch (face.getAxis()) {
+                        case Y -> masks[y][x] |= 1 << z;
+                        case Z -> masks[z][x] |= 1 << y;
+                        default -> masks[x][z] |= 1 << y;
                     }
-                    processMask(mask, face, baseX, baseY, baseZ, subchunkSize, z, vertices, indices);
                 }
-                break;
-            case SOUTH:
-                for (int z = 0; z < subchunkSize; z++) {
-                    boolean[][] mask = new boolean[subchunkSize][subchunkSize];
-                    for (int x = 0; x < subchunkSize; x++) {
-                        for (int y = 0; y < subchunkSize; y++) {
-                            BlockPos pos = new BlockPos(baseX + x, baseY + y, baseZ + z);
-                            BlockState state = world.getBlockState(pos);
-                            BlockPos neighborPos = new BlockPos(baseX + x, baseY + y, baseZ + z + 1);
-                            mask[x][y] = (!state.isAir()) && world.getBlockState(neighborPos).isAir();
-                        }
-                    }
-                    processMask(mask, face, baseX, baseY, baseZ, subchunkSize, z, vertices, indices);
+            }
+        }
+    }
+
+    /**
+     * Covers one slice's faces with quads, greedily: take the first face, grow a run along j,
+     * then grow the run along i while every row under it is full. Clears the mask as it goes.
+     */
+    private static void processMask(int[] mask, Direction face, int slice, MeshBuilder mesh) {
+        for (int i = 0; i < mask.length; i++) {
+            while (mask[i] != 0) {
+                int j = Integer.numberOfTrailingZeros(mask[i]);
+                int height = Integer.numberOfTrailingZeros(~(mask[i] >>> j));
+                int run = ((1 << height) - 1) << j;
+
+                int width = 1;
+                while (i + width < mask.length && (mask[i + width] & run) == run) {
+                    width++;
                 }
-                break;
-            case WEST:
-                for (int x = 0; x < subchunkSize; x++) {
-                    boolean[][] mask = new boolean[subchunkSize][subchunkSize];
-                    for (int z = 0; z < subchunkSize; z++) {
-                        for (int y = 0; y < subchunkSize; y++) {
-                            BlockPos pos = new BlockPos(baseX + x, baseY + y, baseZ + z);
-                            BlockState state = world.getBlockState(pos);
-                            BlockPos neighborPos = new BlockPos(baseX + x - 1, baseY + y, baseZ + z);
-                            mask[z][y] = (!state.isAir()) && world.getBlockState(neighborPos).isAir();
-                        }
-                    }
-                    processMask(mask, face, baseX, baseY, baseZ, subchunkSize, x, vertices, indices);
+                for (int a = i; a < i + width; a++) {
+                    mask[a] &= ~run;
                 }
-                break;
-            case EAST:
-                for (int x = 0; x < subchunkSize; x++) {
-                    boolean[][] mask = new boolean[subchunkSize][subchunkSize];
-                    for (int z = 0; z < subchunkSize; z++) {
-                        for (int y = 0; y < subchunkSize; y++) {
-                            BlockPos pos = new BlockPos(baseX + x, baseY + y, baseZ + z);
-                            BlockState state = world.getBlockState(pos);
-                            BlockPos neighborPos = new BlockPos(baseX + x + 1, baseY + y, baseZ + z);
-                            mask[z][y] = (!state.isAir()) && world.getBlockState(neighborPos).isAir();
-                        }
-                    }
-                    processMask(mask, face, baseX, baseY, baseZ, subchunkSize, x, vertices, indices);
+
+                addQuad(mesh, face, slice, i, j, width, height);
+            }
+        }
+    }
+
+    /**
+     * Adds the quad for a rectangle within a slice's mask, as two triangles.
+     * Vertices are in local coordinates (0..16) so that the rigid body's transform can be used
+     * to position the subchunk in world space.
+     */
+    private static void addQuad(MeshBuilder mesh, Direction face, int slice, int i, int j, int width, int height) {
+        // The face's plane, on the far side of the slice for faces pointing the positive way
+        float plane = face.getAxisDirection() == Direction.AxisDirection.POSITIVE ? slice + 1 : slice;
+        float i0 = i, i1 = i + width;
+        float j0 = j, j1 = j + height;
+        switch (face.getAxis()) {
+            // Local: y = plane, x = i .. i+width, z = j .. j+height
+            case Y -> mesh.addQuad(
+                    i0, plane, j0,
+                    i1, plane, j0,
+                    i1, plane, j1,
+                    i0, plane, j1);
+            // Local: z = plane, x = i .. i+width, y = j .. j+height
+            case Z -> mesh.addQuad(
+                    i0, j0, plane,
+                    i1, j0, plane,
+                    i1, j1, plane,
+                    i0, j1, plane);
+            // Local: x = plane, z = i .. i+width, y = j .. j+height
+            default -> mesh.addQuad(
+                    plane, j0, i0,
+                    plane, j0, i1,
+                    plane, j1, i1,
+                    plane, j1, i0);
+        }
+    }
+
+    /**
+     * Takes the body out of the world and forgets it, for terrain that no longer has anything to
+     * collide with. A later shape creates a new body.
+     */
+    private void dropShape() {
+        if (rigidBody == null) {
+            return;
+        }
+        if (isActive && dynamicsWorld != null) {
+            dynamicsWorld.removeRigidBody(rigidBody);
+        }
+        retireBuffers(rigidBody.getCollisionShape());
+        isActive = false;
+        rigidBody = null;
+        memoryBytes = 0;
+    }
+
+    /**
+     * Forgets a mesh that is out of the world for good, handing its buffers back to the arena.
+     */
+    public void discard() {
+        if (!isActive) {
+            dropShape();
+        }
+        pendingShape = null;
+    }
+
+    /**
+     * Hands the direct buffers of a replaced triangle mesh back to the arena.
+     */
+    private static void retireBuffers(CollisionShape shape) {
+        if (!(shape instanceof BvhTriangleMeshShape)) {
+            return;
+        }
+        StridingMeshInterface meshInterface = ((BvhTriangleMeshShape) shape).getMeshInterface();
+        if (meshInterface instanceof TriangleIndexVertexArray) {
+            ObjectArrayList<IndexedMesh> meshes = ((TriangleIndexVertexArray) meshInterface).getIndexedMeshArray();
+            for (int i = 0; i < meshes.size(); i++) {
+                DirectBufferArena.retire(meshes.getQuick(i).vertexBase);
+                DirectBufferArena.retire(meshes.getQuick(i).triangleIndexBase);
+            }
+        }
+    }
+
+    /**
+     * Rough size of a subchunk shape: the direct vertex and index buffers and the BVH nodes of a
+     * triangle mesh, or the occupancy words of a voxel shape and its border sections.
+     */
+    private static long estimateBytes(CollisionShape shape) {
+        if (shape instanceof BvhTriangleMeshShape) {
+            long bytes = 0;
+            StridingMeshInterface meshInterface = ((BvhTriangleMeshShape) shape).getMeshInterface();
+            if (meshInterface instanceof TriangleIndexVertexArray) {
+                ObjectArrayList<IndexedMesh> meshes = ((TriangleIndexVertexArray) meshInterface).getIndexedMeshArray();
+                for (int i = 0; i < meshes.size(); i++) {
+                    IndexedMesh mesh = meshes.getQuick(i);
+                    bytes += mesh.vertexBase.capacity() + mesh.triangleIndexBase.capacity()
+                            + (long) mesh.numTriangles * BVH_BYTES_PER_TRIANGLE;
                 }
-                break;
+            }
+            return bytes;
+        }
+        if (shape instanceof VoxelGridShape) {
+            VoxelGridShape voxelShape = (VoxelGridShape) shape;
+            long sections = voxelShape.getSectionCount() + voxelShape.getBorderSectionCount();
+            return sections * VoxelGridShape.Section.WORDS * Long.BYTES;
         }
+        return 0;
     }
 
+    // ----------------------------------------------
+    // OCCUPANCY
+    // ----------------------------------------------
+
     /**
-     * Processes a 2D boolean mask using a greedy rectangle extraction algorithm.
-     * The parameters 'i' and 'j' in the mask correspond to block indices in two dimensions.
-     * The parameter 'slice' indicates the fixed coordinate for the current face.
+     * Reads which blocks of the subchunk are solid, plus the one-block layer of each face
+     * neighbour, straight from the chunk sections. Row (y, z) for y and z from -1 to 16 is at
+     * {@link #index}, with block x in bit x + 1; edge and corner cells of the padding stay empty.
+     * Sections holding only air are skipped, sections without air fill whole rows at once, and
+     * unloaded chunks read as air.
      */
-    private void processMask(boolean[][] mask, Direction face, int baseX, int baseY, int baseZ, int subchunkSize, int slice, List<Vector3f> vertices, List<Integer> indices) {
-        int rows = mask.length;
-        int cols = mask[0].length;
-        boolean[][] processed = new boolean[rows][cols];
-        int quadsGenerated = 0;
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (mask[i][j] && !processed[i][j]) {
-                    int width = 1;
-                    while (i + width < rows && mask[i + width][j] && !processed[i + width][j]) {
-                        width++;
-                    }
-                    int height = 1;
-                    outer:
-                    while (j + height < cols) {
-                        for (int k = 0; k < width; k++) {
-                            if (!mask[i + k][j + height] || processed[i + k][j + height]) {
-                                break outer;
-                            }
+    private int[] readOccupancy(ServerLevel world) {
+        int[] occupancy = new int[PADDED_SIZE * PADDED_SIZE];
+
+        LevelChunkSection section = getChunkSection(world, coords.x, coords.y, coords.z);
+        if (section != null && !section.hasOnlyAir()) {
+            boolean solidOnly = !section.maybeHas(BlockState::isAir);
+            for (int y = 0; y < SUBCHUNK_SIZE; y++) {
+                for (int z = 0; z < SUBCHUNK_SIZE; z++) {
+                    int row = FULL_ROW;
+                    if (!solidOnly) {
+                        row = 0;
+                        for (int x = 0; x < SUBCHUNK_SIZE; x++) {
+                            if (!section.getBlockState(x, y, z).isAir()) row |= 1 << (x + 1);
                         }
-                        height++;
                     }
-                    for (int a = 0; a < width; a++) {
-                        for (int b = 0; b < height; b++) {
-                            processed[i + a][j + b] = true;
+                    occupancy[index(y, z)] = row;
+                }
+            }
+        }
+
+        for (Direction face : Direction.values()) {
+            LevelChunkSection neighbour = getChunkSection(world,
+                    coords.x + face.getStepX(), coords.y + face.getStepY(), coords.z + face.getStepZ());
+            if (neighbour == null || neighbour.hasOnlyAir()) {
+                continue;
+            }
+
+            // The neighbour's layer on the shared face: its low side if it lies in the positive direction
+            boolean positive = face.getAxisDirection() == Direction.AxisDirection.POSITIVE;
+            int layer = positive ? 0 : SUBCHUNK_SIZE - 1;
+            int outside = positive ? SUBCHUNK_SIZE : -1;
+            for (int i = 0; i < SUBCHUNK_SIZE; i++) {
+                for (int j = 0; j < SUBCHUNK_SIZE; j++) {
+                    switch (face.getAxis()) {
+                        case X -> {
+                            if (!neighbour.getBlockState(layer, i, j).isAir()) occupancy[index(i, j)] |= 1 << (outside + 1);
+                        }
+                        case Y -> {
+                            if (!neighbour.getBlockState(i, layer, j).isAir()) occupancy[index(outside, j)] |= 1 << (i + 1);
+                        }
+                        default -> {
+                            if (!neighbour.getBlockState(i, j, layer).isAir()) occupancy[index(j, outside)] |= 1 << (i + 1);
                         }
                     }
-                    // Compute quad vertices in local space.
-                    Vector3f[] quad = computeQuadVertices(face, baseX, baseY, baseZ, slice, i, j, width, height);
-                    int startIndex = vertices.size();
-                    vertices.add(quad[0]);
-                    vertices.add(quad[1]);
-                    vertices.add(quad[2]);
-                    vertices.add(quad[3]);
-                    indices.add(startIndex);
-                    indices.add(startIndex + 1);
-                    indices.add(startIndex + 2);
-                    indices.add(startIndex);
-                    indices.add(startIndex + 2);
-                    indices.add(startIndex + 3);
-                    quadsGenerated++;
                 }
             }
         }
-        SLogger.log(this, "Slice " + slice + " for face " + face + " generated " + quadsGenerated + " quads.");
+        return occupancy;
     }
 
     /**
-     * Computes the four vertices for a quad given the face direction and the rectangle within the mask.
-     * This version produces vertices in local coordinates (0..subchunkSize) so that the rigid body's
-     * transform can be used to position the subchunk in world space.
+     * Position of row (y, z) in an occupancy array, for y and z from -1 to 16.
      */
-    private Vector3f[] computeQuadVertices(Direction face, int baseX, int baseY, int baseZ, int slice, int i, int j, int width, int height) {
-        Vector3f[] quad = new Vector3f[4];
-        switch(face) {
-            case UP: {
-                // Local: y = slice + 1, x = i .. i+width, z = j .. j+height
-                float y = slice + 1;
-                float x0 = i;
-                float x1 = i + width;
-                float z0 = j;
-                float z1 = j + height;
-                quad[0] = new Vector3f(x0, y, z0);
-                quad[1] = new Vector3f(x1, y, z0);
-                quad[2] = new Vector3f(x1, y, z1);
-                quad[3] = new Vector3f(x0, y, z1);
-                break;
-            }
-            case DOWN: {
-                // Local: y = slice, x = i .. i+width, z = j .. j+height
-                float y = slice;
-                float x0 = i;
-                float x1 = i + width;
-                float z0 = j;
-                float z1 = j + height;
-                quad[0] = new Vector3f(x0, y, z0);
-                quad[1] = new Vector3f(x1, y, z0);
-                quad[2] = new Vector3f(x1, y, z1);
-                quad[3] = new Vector3f(x0, y, z1);
-                break;
-            }
-            case NORTH: {
-                // Local: z = slice, x = i .. i+width, y = j .. j+height
-                float z = slice;
-                float x0 = i;
-                float x1 = i + width;
-                float y0 = j;
-                float y1 = j + height;
-                quad[0] = new Vector3f(x0, y0, z);
-                quad[1] = new Vector3f(x1, y0, z);
-                quad[2] = new Vector3f(x1, y1, z);
-                quad[3] = new Vector3f(x0, y1, z);
-                break;
-            }
-            case SOUTH: {
-                // Local: z = slice + 1, x = i .. i+width, y = j .. j+height
-                float z = slice + 1;
-                float x0 = i;
-                float x1 = i + width;
-                float y0 = j;
-                float y1 = j + height;
-                quad[0] = new Vector3f(x0, y0, z);
-                quad[1] = new Vector3f(x1, y0, z);
-                quad[2] = new Vector3f(x1, y1, z);
-                quad[3] = new Vector3f(x0, y1, z);
-                break;
-            }
-            case WEST: {
-                // Local: x = slice, z = i .. i+width, y = j .. j+height
-                float x = slice;
-                float z0 = i;
-                float z1 = i + width;
-                float y0 = j;
-                float y1 = j + height;
-                quad[0] = new Vector3f(x, y0, z0);
-                quad[1] = new Vector3f(x, y0, z1);
-                quad[2] = new Vector3f(x, y1, z1);
-                quad[3] = new Vector3f(x, y1, z0);
-                break;
-            }
-            case EAST: {
-                // Local: x = slice + 1, z = i .. i+width, y = j .. j+height
-                float x = slice + 1;
-                float z0 = i;
-                float z1 = i + width;
-                float y0 = j;
-                float y1 = j + height;
-                quad[0] = new Vector3f(x, y0, z0);
-                quad[1] = new Vector3f(x, y0, z1);
-                quad[2] = new Vector3f(x, y1, z1);
-                quad[3] = new Vector3f(x, y1, z0);
-                break;
-            }
+    private static int index(int y, int z) {
+        return (y + 1) * PADDED_SIZE + (z + 1);
+    }
+
+    /**
+     * The loaded chunk section at section coordinates, or null if its chunk isn't loaded or it
+     * lies outside the world's height.
+     */
+    private static LevelChunkSection getChunkSection(ServerLevel world, int sectionX, int sectionY, int sectionZ) {
+        LevelChunk chunk = world.getChunkSource().getChunkNow(sectionX, sectionZ);
+        if (chunk == null) {
+            return null;
+        }
+        int index = world.getSectionIndexFromSectionY(sectionY);
+        if (index < 0 || index >= chunk.getSectionsCount()) {
+            return null;
         }
-        return quad;
+        return chunk.getSection(index);
     }
 
     // Getters and helper methods.
+    public SubchunkCoordinates getCoords() {
+        return coords;
+    }
+
     public RigidBody getRigidBody() {
         return rigidBody;
     }
 
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Whether terrain changed since the installed shape was read.
+     */
     public boolean isDirty() {
-        return isDirty;
+        return version != builtVersion;
     }
 
     public boolean isActive() {
@@ -364,7 +563,7 @@ public class SubchunkMesh implements ILoggingControl {
     }
 
     public void markDirty(){
-        isDirty = true;
+        version++;
         SLogger.log(this, "SubchunkMesh marked dirty for coords: " + coords);
     }
 
@@ -378,6 +577,7 @@ public class SubchunkMesh implements ILoggingControl {
 
             // Add to dynamics world
             dynamicsWorld.addRigidBody(rigidBody);
+            this.dynamicsWorld = dynamicsWorld;
 
             rigidBody.getBroadphaseProxy().collisionFilterGroup = COLLISION_GROUP_MESH;
             rigidBody.getBroadphaseProxy().collisionFilterMask = COLLISION_MASK_MESH;
@@ -403,4 +603,58 @@ public class SubchunkMesh implements ILoggingControl {
     public boolean stardance$isConsoleLoggingEnabled() {
         return false;
     }
+
+    // ----------------------------------------------
+    // NESTED CLASSES
+    // ----------------------------------------------
+
+    /**
+     * Growable primitive vertex and index arrays for one mesh build, plus the face masks.
+     * One per thread, reused across builds.
+     */
+    private static final class MeshBuilder {
+        final int[][] masks = new int[SUBCHUNK_SIZE][SUBCHUNK_SIZE];
+        float[] vertices = new float[3 * 1024];
+        int vertexFloats;
+        int[] indices = new int[1536];
+        int indexCount;
+
+        void reset() {
+            vertexFloats = 0;
+            indexCount = 0;
+        }
+
+        int vertexCount() {
+            return vertexFloats / 3;
+        }
+
+        void addQuad(float x0, float y0, float z0, float x1, float y1, float z1,
+                     float x2, float y2, float z2, float x3, float y3, float z3) {
+            if (vertexFloats + 12 > vertices.length) {
+                vertices = Arrays.copyOf(vertices, vertices.length * 2);
+            }
+            if (indexCount + 6 > indices.length) {
+                indices = Arrays.copyOf(indices, indices.length * 2);
+            }
+
+            int start = vertexCount();
+            float[] v = vertices;
+            int n = vertexFloats;
+            v[n] = x0; v[n + 1] = y0; v[n + 2] = z0;
+            v[n + 3] = x1; v[n + 4] = y1; v[n + 5] = z1;
+            v[n + 6] = x2; v[n + 7] = y2; v[n + 8] = z2;
+            v[n + 9] = x3; v[n + 10] = y3; v[n + 11] = z3;
+            vertexFloats = n + 12;
+
+            int[] idx = indices;
+            int k = indexCount;
+            idx[k] = start;
+            idx[k + 1] = start + 1;
+            idx[k + 2] = start + 2;
+            idx[k + 3] = start;
+            idx[k + 4] = start + 2;
+            idx[k + 5] = start + 3;
+            indexCount = k + 6;
+        }
+    }
 }
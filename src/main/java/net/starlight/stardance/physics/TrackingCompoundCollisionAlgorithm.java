@@ -0,0 +1,215 @@
+package net.starlight.stardance.physics;
+
+import com.bulletphysics.collision.broadphase.BroadphaseNativeType;
+import com.bulletphysics.collision.broadphase.CollisionAlgorithm;
+import com.bulletphysics.collision.broadphase.CollisionAlgorithmConstructionInfo;
+import com.bulletphysics.collision.broadphase.DispatcherInfo;
+import com.bulletphysics.collision.dispatch.CollisionAlgorithmCreateFunc;
+import com.bulletphysics.collision.dispatch.CollisionDispatcher;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.ManifoldResult;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.util.ObjectArrayList;
+
+/**
+ * Bullet's compound algorithm, made to survive a compound's children being swapped out.
+ * <p>
+ * Bullet creates one child algorithm per child when a pair first overlaps, and keeps using them
+ * for as long as the pair lives, so a body whose compound changes has to have all its pairs
+ * cleaned. Grid edits swap only the child of the section they touch, so this algorithm remembers
+ * which child shape each child algorithm was made for and replaces only the ones whose child
+ * changed. The other children keep their algorithms and manifolds. A child replaced by a new
+ * shape of the same non-compound type keeps its algorithm as well, since those read the shape
+ * from the object on every call.
+ */
+public class TrackingCompoundCollisionAlgorithm extends CollisionAlgorithm {
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private final ObjectArrayList<CollisionAlgorithm> childAlgorithms = new ObjectArrayList<>();
+    private final ObjectArrayList<CollisionShape> childShapes = new ObjectArrayList<>();   // Child each algorithm was made for
+    private boolean swapped;
+
+    // Scratch, reused across children
+    private final Transform compoundWorld = new Transform();
+    private final Transform compoundInterpolation = new Transform();
+    private final Transform childLocal = new Transform();
+    private final Transform childWorld = new Transform();
+
+    public void init(CollisionAlgorithmConstructionInfo ci, CollisionObject body0, CollisionObject body1, boolean swapped) {
+        super.init(ci);
+        this.swapped = swapped;
+
+        CollisionObject compoundObject = swapped ? body1 : body0;
+        CollisionObject otherObject = swapped ? body0 : body1;
+        syncChildren(compoundObject, otherObject);
+    }
+
+    // -------------------------------------------
+    // COLLISION ALGORITHM
+    // -------------------------------------------
+
+    @Override
+    public void destroy() {
+        for (int i = 0; i < childAlgorithms.size(); i++) {
+            dispatcher.freeCollisionAlgorithm(childAlgorithms.getQuick(i));
+        }
+        childAlgorithms.clear();
+        childShapes.clear();
+    }
+
+    @Override
+    public void processCollision(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut) {
+        CollisionObject compoundObject = swapped ? body1 : body0;
+        CollisionObject otherObject = swapped ? body0 : body1;
+        CompoundShape compound = syncChildren(compoundObject, otherObject);
+
+        compoundObject.getWorldTransform(compoundWorld);
+        compoundObject.getInterpolationWorldTransform(compoundInterpolation);
+        CollisionShape original = compoundObject.getCollisionShape();
+
+        for (int i = 0; i < childAlgorithms.size(); i++) {
+            childWorld.mul(compoundWorld, compound.getChildTransform(i, childLocal));
+            compoundObject.setWorldTransform(childWorld);
+            compoundObject.setInterpolationWorldTransform(childWorld);
+            compoundObject.internalSetTemporaryCollisionShape(compound.getChildShape(i));
+
+            childAlgorithms.getQuick(i).processCollision(compoundObject, otherObject, dispatchInfo, resultOut);
+
+            compoundObject.internalSetTemporaryCollisionShape(original);
+            compoundObject.setWorldTransform(compoundWorld);
+            compoundObject.setInterpolationWorldTransform(compoundInterpolation);
+        }
+    }
+
+    @Override
+    public float calculateTimeOfImpact(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut) {
+        CollisionObject compoundObject = swapped ? body1 : body0;
+        CollisionObject otherObject = swapped ? body0 : body1;
+        CompoundShape compound = syncChildren(compoundObject, otherObject);
+
+        compoundObject.getWorldTransform(compoundWorld);
+        CollisionShape original = compoundObject.getCollisionShape();
+
+        float hitFraction = 1.0f;
+        for (int i = 0; i < childAlgorithms.size(); i++) {
+            childWorld.mul(compoundWorld, compound.getChildTransform(i, childLocal));
+            compoundObject.setWorldTransform(childWorld);
+            compoundObject.internalSetTemporaryCollisionShape(compound.getChildShape(i));
+
+            hitFraction = Math.min(hitFraction,
+                    childAlgorithms.getQuick(i).calculateTimeOfImpact(compoundObject, otherObject, dispatchInfo, resultOut));
+
+            compoundObject.internalSetTemporaryCollisionShape(original);
+            compoundObject.setWorldTransform(compoundWorld);
+        }
+        return hitFraction;
+    }
+
+    @Override
+    public void getAllContactManifolds(ObjectArrayList<PersistentManifold> manifoldArray) {
+        for (int i = 0; i < childAlgorithms.size(); i++) {
+            childAlgorithms.getQuick(i).getAllContactManifolds(manifoldArray);
+        }
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    /**
+     * Brings the child algorithms in line with the compound's current children, replacing only
+     * those whose child changed in a way its algorithm can't follow.
+     *
+     * @return The compound
+     */
+    private CompoundShape syncChildren(CollisionObject compoundObject, CollisionObject otherObject) {
+        CompoundShape compound = (CompoundShape) compoundObject.getCollisionShape();
+        int count = compound.getNumChildShapes();
+
+        for (int i = 0; i < count; i++) {
+            CollisionShape child = compound.getChildShape(i);
+            if (i < childShapes.size()) {
+                CollisionShape previous = childShapes.getQuick(i);
+                if (previous == child) continue;
+                childShapes.setQuick(i, child);
+                if (followsShape(previous, child)) continue;
+
+                dispatcher.freeCollisionAlgorithm(childAlgorithms.getQuick(i));
+                childAlgorithms.setQuick(i, createChildAlgorithm(compoundObject, otherObject, child));
+            } else {
+                childShapes.add(child);
+                childAlgorithms.add(createChildAlgorithm(compoundObject, otherObject, child));
+            }
+        }
+        while (childAlgorithms.size() > count) {
+            int last = childAlgorithms.size() - 1;
+            dispatcher.freeCollisionAlgorithm(childAlgorithms.getQuick(last));
+            childAlgorithms.removeQuick(last);
+            childShapes.removeQuick(last);
+        }
+        return compound;
+    }
+
+    private CollisionAlgorithm createChildAlgorithm(CollisionObject compoundObject, CollisionObject otherObject, CollisionShape child) {
+        CollisionShape original = compoundObject.getCollisionShape();
+        compoundObject.internalSetTemporaryCollisionShape(child);
+        CollisionAlgorithm algorithm = dispatcher.findAlgorithm(compoundObject, otherObject);
+        compoundObject.internalSetTemporaryCollisionShape(original);
+        return algorithm;
+    }
+
+    /**
+     * Whether the algorithm made for one child still fits a new one in its place. Compound
+     * algorithms are laid out for their children, so a new compound always needs a new one.
+     */
+    private static boolean followsShape(CollisionShape previous, CollisionShape child) {
+        return previous.getShapeType() == child.getShapeType() && !child.isCompound();
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Creates the algorithm for pairs with a compound on one side.
+     */
+    public static class CreateFunc extends CollisionAlgorithmCreateFunc {
+        @Override
+        public CollisionAlgorithm createCollisionAlgorithm(CollisionAlgorithmConstructionInfo ci, CollisionObject body0, CollisionObject body1) {
+            TrackingCompoundCollisionAlgorithm algorithm = new TrackingCompoundCollisionAlgorithm();
+            algorithm.init(ci, body0, body1, swapped);
+            return algorithm;
+        }
+
+        @Override
+        public void releaseCollisionAlgorithm(CollisionAlgorithm algorithm) {
+        }
+    }
+
+    /**
+     * Routes every pair with a compound to this algorithm, in place of Bullet's.
+     * Compound against compound puts the first body's compound on the outside, as Bullet does.
+     */
+    public static void register(CollisionDispatcher dispatcher) {
+        CreateFunc createFunc = new CreateFunc();
+        CreateFunc swappedFunc = new CreateFunc();
+        swappedFunc.swapped = true;
+
+        int compound = BroadphaseNativeType.COMPOUND_SHAPE_PROXYTYPE.ordinal();
+        for (BroadphaseNativeType type : BroadphaseNativeType.values()) {
+            if (type == BroadphaseNativeType.MAX_BROADPHASE_COLLISION_TYPES) {
+                continue;
+            }
+            dispatcher.registerCollisionCreateFunc(compound, type.ordinal(), createFunc);
+            if (type != BroadphaseNativeType.COMPOUND_SHAPE_PROXYTYPE) {
+                dispatcher.registerCollisionCreateFunc(type.ordinal(), compound, swappedFunc);
+            }
+        }
+    }
+}
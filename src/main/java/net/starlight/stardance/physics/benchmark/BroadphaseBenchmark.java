@@ -0,0 +1,178 @@
+package net.starlight.stardance.physics.benchmark;
+
+import com.bulletphysics.collision.dispatch.CollisionDispatcher;
+import com.bulletphysics.collision.dispatch.DefaultCollisionConfiguration;
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
+import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
+import com.bulletphysics.linearmath.DefaultMotionState;
+import com.bulletphysics.linearmath.Transform;
+import net.starlight.stardance.physics.BroadphaseType;
+import net.starlight.stardance.physics.IslandParallelDynamicsWorld;
+
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares broadphase backends on a workload shaped like a busy dimension:
+ * subchunk-sized static bodies churning in and out of the world while grids fall onto them.
+ * Runs outside of any PhysicsEngine, so it is safe to call from a command thread.
+ */
+public class BroadphaseBenchmark {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    public static final int DEFAULT_STATIC_BODIES = 2000;
+    public static final int DEFAULT_DYNAMIC_BODIES = 50;
+    public static final int DEFAULT_ITERATIONS = 200;
+
+    private static final int WARMUP_ITERATIONS = 100;
+    private static final int CHURN_PER_ITERATION = 64;   // Subchunks (de)activated per tick
+    private static final float SPREAD = 8000f;           // Within AXIS_SWEEP bounds so every backend is comparable
+    private static final float SUBCHUNK_HALF_EXTENT = 8f;
+    private static final float TICK_DELTA = 1f / 20f;
+    private static final int MAX_SUB_STEPS = 5;
+    private static final long SEED = 0x5EED;
+
+    private BroadphaseBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark for every backend.
+     */
+    public static List<Result> runAll(int staticBodies, int dynamicBodies, int iterations) {
+        // Warm every backend up first so the one measured first isn't penalised by the JIT
+        for (BroadphaseType type : BroadphaseType.values()) {
+            run(type, staticBodies, dynamicBodies, 0);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (BroadphaseType type : BroadphaseType.values()) {
+            results.add(run(type, staticBodies, dynamicBodies, iterations));
+        }
+        return results;
+    }
+
+    /**
+     * Runs the benchmark for one backend.
+     */
+    public static Result run(BroadphaseType type, int staticBodies, int dynamicBodies, int iterations) {
+        Random random = new Random(SEED);
+
+        DefaultCollisionConfiguration configuration = new DefaultCollisionConfiguration();
+        CollisionDispatcher dispatcher = new CollisionDispatcher(configuration);
+        IslandParallelDynamicsWorld world = new IslandParallelDynamicsWorld(dispatcher, type.create(),
+                new SequentialImpulseConstraintSolver(), configuration);
+        world.setGravity(new Vector3f(0, -36.2f, 0));
+
+        BoxShape subchunkShape = new BoxShape(new Vector3f(SUBCHUNK_HALF_EXTENT, SUBCHUNK_HALF_EXTENT, SUBCHUNK_HALF_EXTENT));
+        BoxShape gridShape = new BoxShape(new Vector3f(1.5f, 1.5f, 1.5f));
+
+        List<RigidBody> statics = new ArrayList<>(staticBodies);
+        long insertStart = System.nanoTime();
+        for (int i = 0; i < staticBodies; i++) {
+            RigidBody body = createStatic(subchunkShape, random);
+            world.addRigidBody(body);
+            statics.add(body);
+        }
+        long initialInsertNanos = System.nanoTime() - insertStart;
+
+        // Drop grids onto random subchunks so there is real narrowphase and solver work
+        for (int i = 0; i < dynamicBodies; i++) {
+            Transform anchor = new Transform();
+            statics.get(random.nextInt(statics.size())).getWorldTransform(anchor);
+            world.addRigidBody(createDynamic(gridShape, anchor.origin));
+        }
+
+        long churnNanos = 0;
+        long stepNanos = 0;
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS + iterations; iteration++) {
+            long churnStart = System.nanoTime();
+            for (int i = 0; i < CHURN_PER_ITERATION && !statics.isEmpty(); i++) {
+                int index = random.nextInt(statics.size());
+                world.removeRigidBody(statics.get(index));
+                RigidBody replacement = createStatic(subchunkShape, random);
+                world.addRigidBody(replacement);
+                statics.set(index, replacement);
+            }
+            long stepStart = System.nanoTime();
+            world.stepSimulation(TICK_DELTA, MAX_SUB_STEPS);
+            long stepEnd = System.nanoTime();
+
+            if (iteration >= WARMUP_ITERATIONS) {
+                churnNanos += stepStart - churnStart;
+                stepNanos += stepEnd - stepStart;
+            }
+        }
+
+        int measured = Math.max(1, iterations);
+        return new Result(type,
+                initialInsertNanos / 1000.0 / Math.max(1, staticBodies),
+                churnNanos / 1000.0 / (measured * (double) CHURN_PER_ITERATION),
+                stepNanos / 1_000_000.0 / measured,
+                (churnNanos + stepNanos) / 1_000_000.0 / measured);
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    private static RigidBody createStatic(BoxShape shape, Random random) {
+        Transform transform = new Transform();
+        transform.setIdentity();
+        transform.origin.set(
+                snapToSubchunk((random.nextFloat() * 2f - 1f) * SPREAD),
+                snapToSubchunk(random.nextFloat() * 256f - 64f),
+                snapToSubchunk((random.nextFloat() * 2f - 1f) * SPREAD));
+        return new RigidBody(new RigidBodyConstructionInfo(0f, new DefaultMotionState(transform), shape, new Vector3f()));
+    }
+
+    private static RigidBody createDynamic(BoxShape shape, Vector3f above) {
+        Transform transform = new Transform();
+        transform.setIdentity();
+        transform.origin.set(above.x, above.y + SUBCHUNK_HALF_EXTENT + 4f, above.z);
+
+        float mass = 100f;
+        Vector3f inertia = new Vector3f();
+        shape.calculateLocalInertia(mass, inertia);
+        return new RigidBody(new RigidBodyConstructionInfo(mass, new DefaultMotionState(transform), shape, inertia));
+    }
+
+    private static float snapToSubchunk(float value) {
+        return (float) Math.floor(value / 16f) * 16f + SUBCHUNK_HALF_EXTENT;
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Timings for one backend.
+     */
+    public static class Result {
+        public final BroadphaseType type;
+        public final double insertMicros;        // Average initial insert per static body
+        public final double churnMicros;         // Average remove + insert per churned body
+        public final double stepMillis;          // Average stepSimulation per tick
+        public final double tickMillis;          // Average churn + step per tick
+
+        public Result(BroadphaseType type, double insertMicros, double churnMicros, double stepMillis, double tickMillis) {
+            this.type = type;
+            this.insertMicros = insertMicros;
+            this.churnMicros = churnMicros;
+            this.stepMillis = stepMillis;
+            this.tickMillis = tickMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: insert %.2f us, churn %.2f us, step %.3f ms, tick %.3f ms",
+                    type, insertMicros, churnMicros, stepMillis, tickMillis);
+        }
+    }
+}
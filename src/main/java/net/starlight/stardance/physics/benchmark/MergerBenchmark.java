@@ -0,0 +1,296 @@
+package net.starlight.stardance.physics.benchmark;
+
+import net.minecraft.core.BlockPos;
+import net.starlight.stardance.core.OccupancyMerger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the bit-packed {@link OccupancyMerger} with the boolean-array merger it replaced,
+ * on the grids of a running world and on a few synthetic shapes.
+ * Reports time, box count and occupancy memory per shape. Runs on copies of block positions,
+ * so it is safe to call from a command thread.
+ */
+public class MergerBenchmark {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    public static final int DEFAULT_ITERATIONS = 20;
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final long SEED = 0x5EED;
+
+    private MergerBenchmark() {
+    }
+
+    /**
+     * Runs every merger on every sample.
+     */
+    public static List<Result> runAll(List<Sample> samples, int iterations) {
+        List<Result> results = new ArrayList<>();
+        for (Sample sample : samples) {
+            results.add(run(sample, iterations));
+        }
+        return results;
+    }
+
+    /**
+     * Runs every merger on one sample.
+     */
+    public static Result run(Sample sample, int iterations) {
+        int measured = Math.max(1, iterations);
+
+        int legacyBoxes = 0;
+        long legacyNanos = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS + measured; i++) {
+            long start = System.nanoTime();
+            legacyBoxes = legacyMerge(sample);
+            if (i >= WARMUP_ITERATIONS) legacyNanos += System.nanoTime() - start;
+        }
+
+        int greedyBoxes = 0;
+        long greedyNanos = 0;
+        int thoroughBoxes = 0;
+        long thoroughNanos = 0;
+        long bitsetBytes = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS + measured; i++) {
+            long start = System.nanoTime();
+            OccupancyMerger occupancy = fill(sample);
+            greedyBoxes = occupancy.merge(false).size();
+            long middle = System.nanoTime();
+            thoroughBoxes = fill(sample).merge(true).size();
+            long end = System.nanoTime();
+
+            bitsetBytes = occupancy.getMemoryBytes();
+            if (i >= WARMUP_ITERATIONS) {
+                greedyNanos += middle - start;
+                thoroughNanos += end - middle;
+            }
+        }
+
+        // The old merger held a blockMap and a visited array, one byte per cell each
+        long legacyBytes = 2L * sample.sizeX * sample.sizeY * sample.sizeZ;
+
+        return new Result(sample.name, sample.cells.length / 3,
+                legacyNanos / 1_000_000.0 / measured, legacyBoxes, legacyBytes,
+                greedyNanos / 1_000_000.0 / measured, greedyBoxes,
+                thoroughNanos / 1_000_000.0 / measured, thoroughBoxes, bitsetBytes);
+    }
+
+    /**
+     * Shapes that stress the mergers differently: a hollow hull, a deck with hatches,
+     * a long sparse spar and random rubble.
+     */
+    public static List<Sample> syntheticSamples() {
+        List<Sample> samples = new ArrayList<>();
+        Random random = new Random(SEED);
+
+        List<int[]> hull = new ArrayList<>();
+        for (int x = 0; x < 48; x++) {
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 96; z++) {
+                    if (x == 0 || x == 47 || y == 0 || y == 15 || z == 0 || z == 95) hull.add(new int[]{x, y, z});
+                }
+            }
+        }
+        samples.add(Sample.of("hull 48x16x96", hull));
+
+        List<int[]> deck = new ArrayList<>();
+        for (int x = 0; x < 64; x++) {
+            for (int z = 0; z < 64; z++) {
+                if (x % 8 != 3 || z % 8 != 3) deck.add(new int[]{x, 0, z});
+            }
+        }
+        samples.add(Sample.of("deck 64x64", deck));
+
+        List<int[]> spar = new ArrayList<>();
+        for (int x = 0; x < 2048; x++) {
+            if (x % 17 != 0) spar.add(new int[]{x, x % 3, (x / 64) % 5});
+        }
+        samples.add(Sample.of("spar 2048", spar));
+
+        List<int[]> rubble = new ArrayList<>();
+        for (int x = 0; x < 32; x++) {
+            for (int y = 0; y < 32; y++) {
+                for (int z = 0; z < 32; z++) {
+                    if (random.nextFloat() < 0.6f) rubble.add(new int[]{x, y, z});
+                }
+            }
+        }
+        samples.add(Sample.of("rubble 32^3", rubble));
+        return samples;
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    private static OccupancyMerger fill(Sample sample) {
+        OccupancyMerger occupancy = new OccupancyMerger(sample.sizeX, sample.sizeY, sample.sizeZ);
+        int[] cells = sample.cells;
+        for (int i = 0; i < cells.length; i += 3) {
+            occupancy.set(cells[i], cells[i + 1], cells[i + 2]);
+        }
+        return occupancy;
+    }
+
+    /**
+     * The merger GridBlockMerger used before the bitset: X run, then Z, then Y, over boolean arrays.
+     */
+    private static int legacyMerge(Sample sample) {
+        int sizeX = sample.sizeX, sizeY = sample.sizeY, sizeZ = sample.sizeZ;
+        boolean[][][] blockMap = new boolean[sizeX][sizeY][sizeZ];
+        int[] cells = sample.cells;
+        for (int i = 0; i < cells.length; i += 3) {
+            blockMap[cells[i]][cells[i + 1]][cells[i + 2]] = true;
+        }
+
+        boolean[][][] visited = new boolean[sizeX][sizeY][sizeZ];
+        int boxes = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    if (!blockMap[x][y][z] || visited[x][y][z]) continue;
+
+                    int width = 1, height = 1, depth = 1;
+                    while (x + width < sizeX && blockMap[x + width][y][z] && !visited[x + width][y][z]) {
+                        width++;
+                    }
+
+                    boolean canExtendZ = true;
+                    while (z + depth < sizeZ && canExtendZ) {
+                        for (int i = x; i < x + width; i++) {
+                            if (!blockMap[i][y][z + depth] || visited[i][y][z + depth]) {
+                                canExtendZ = false;
+                                break;
+                            }
+                        }
+                        if (canExtendZ) depth++;
+                    }
+
+                    boolean canExtendY = true;
+                    while (y + height < sizeY && canExtendY) {
+                        for (int i = x; i < x + width && canExtendY; i++) {
+                            for (int j = z; j < z + depth; j++) {
+                                if (!blockMap[i][y + height][j] || visited[i][y + height][j]) {
+                                    canExtendY = false;
+                                    break;
+                                }
+                            }
+                        }
+                        if (canExtendY) height++;
+                    }
+
+                    for (int i = x; i < x + width; i++) {
+                        for (int j = y; j < y + height; j++) {
+                            for (int k = z; k < z + depth; k++) {
+                                visited[i][j][k] = true;
+                            }
+                        }
+                    }
+                    boxes++;
+                }
+            }
+        }
+        return boxes;
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Occupied cells of one shape, shifted so its bounds start at zero.
+     */
+    public static class Sample {
+        public final String name;
+        final int sizeX, sizeY, sizeZ;
+        final int[] cells;      // x, y, z triples
+
+        private Sample(String name, int sizeX, int sizeY, int sizeZ, int[] cells) {
+            this.name = name;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.cells = cells;
+        }
+
+        /**
+         * Sample from the block positions of a grid.
+         */
+        public static Sample ofPositions(String name, Collection<BlockPos> positions) {
+            List<int[]> cells = new ArrayList<>(positions.size());
+            for (BlockPos pos : positions) {
+                cells.add(new int[]{pos.getX(), pos.getY(), pos.getZ()});
+            }
+            return of(name, cells);
+        }
+
+        static Sample of(String name, List<int[]> points) {
+            if (points.isEmpty()) {
+                return new Sample(name, 1, 1, 1, new int[0]);
+            }
+
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+            for (int[] point : points) {
+                minX = Math.min(minX, point[0]);
+                minY = Math.min(minY, point[1]);
+                minZ = Math.min(minZ, point[2]);
+                maxX = Math.max(maxX, point[0]);
+                maxY = Math.max(maxY, point[1]);
+                maxZ = Math.max(maxZ, point[2]);
+            }
+
+            int[] cells = new int[points.size() * 3];
+            for (int i = 0; i < points.size(); i++) {
+                cells[i * 3] = points.get(i)[0] - minX;
+                cells[i * 3 + 1] = points.get(i)[1] - minY;
+                cells[i * 3 + 2] = points.get(i)[2] - minZ;
+            }
+            return new Sample(name, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1, cells);
+        }
+    }
+
+    /**
+     * Timings, box counts and occupancy memory of every merger on one sample.
+     */
+    public static class Result {
+        public final String name;
+        public final int blocks;
+        public final double legacyMillis;
+        public final int legacyBoxes;
+        public final long legacyBytes;
+        public final double greedyMillis;
+        public final int greedyBoxes;
+        public final double thoroughMillis;
+        public final int thoroughBoxes;
+        public final long bitsetBytes;
+
+        public Result(String name, int blocks, double legacyMillis, int legacyBoxes, long legacyBytes,
+                      double greedyMillis, int greedyBoxes, double thoroughMillis, int thoroughBoxes, long bitsetBytes) {
+            this.name = name;
+            this.blocks = blocks;
+            this.legacyMillis = legacyMillis;
+            this.legacyBoxes = legacyBoxes;
+            this.legacyBytes = legacyBytes;
+            this.greedyMillis = greedyMillis;
+            this.greedyBoxes = greedyBoxes;
+            this.thoroughMillis = thoroughMillis;
+            this.thoroughBoxes = thoroughBoxes;
+            this.bitsetBytes = bitsetBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d blocks): legacy %.3f ms / %d boxes / %d KiB, bitset %.3f ms / %d boxes, thorough %.3f ms / %d boxes / %d KiB",
+                    name, blocks, legacyMillis, legacyBoxes, legacyBytes / 1024,
+                    greedyMillis, greedyBoxes, thoroughMillis, thoroughBoxes, bitsetBytes / 1024);
+        }
+    }
+}
@@ -258,8 +258,17 @@ public class ContactDetector implements ILoggingControl {
             dispatcherInfo.allowedCcdPenetration = 0.0f;
             dispatcherInfo.enableSatConvex = false;
 
-            // 1. Check for collisions with grids
-            for (LocalGrid grid : physicsEngine.getGrids()) {
+            // 1. Check for collisions with grids whose bounds reach the entity
+            Vector3f entityMin = new Vector3f();
+            Vector3f entityMax = new Vector3f();
+            entityCollisionObject.getCollisionShape().getAabb(
+                    entityCollisionObject.getWorldTransform(new Transform()), entityMin, entityMax);
+
+            List<LocalGrid> nearbyGrids = physicsEngine.getGridIndex().queryAabb(
+                    entityMin.x - SWEEP_TEST_MARGIN, entityMin.y - SWEEP_TEST_MARGIN, entityMin.z - SWEEP_TEST_MARGIN,
+                    entityMax.x + SWEEP_TEST_MARGIN, entityMax.y + SWEEP_TEST_MARGIN, entityMax.z + SWEEP_TEST_MARGIN);
+
+            for (LocalGrid grid : nearbyGrids) {
                 RigidBody gridBody = grid.getRigidBody();
                 if (gridBody == null) continue;
 
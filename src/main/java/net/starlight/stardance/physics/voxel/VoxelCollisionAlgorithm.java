@@ -0,0 +1,478 @@
+package net.starlight.stardance.physics.voxel;
+
+import com.bulletphysics.collision.broadphase.BroadphaseNativeType;
+import com.bulletphysics.collision.broadphase.CollisionAlgorithm;
+import com.bulletphysics.collision.broadphase.CollisionAlgorithmConstructionInfo;
+import com.bulletphysics.collision.broadphase.DispatcherInfo;
+import com.bulletphysics.collision.dispatch.CollisionAlgorithmCreateFunc;
+import com.bulletphysics.collision.dispatch.CollisionDispatcher;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.ManifoldResult;
+import com.bulletphysics.collision.narrowphase.DiscreteCollisionDetectorInterface;
+import com.bulletphysics.collision.narrowphase.GjkEpaPenetrationDepthSolver;
+import com.bulletphysics.collision.narrowphase.GjkPairDetector;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.collision.narrowphase.VoronoiSimplexSolver;
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.ConcaveShape;
+import com.bulletphysics.collision.shapes.ConvexShape;
+import com.bulletphysics.collision.shapes.TriangleCallback;
+import com.bulletphysics.collision.shapes.TriangleShape;
+import com.bulletphysics.linearmath.AabbUtil2;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.util.ObjectArrayList;
+
+import javax.vecmath.Matrix3f;
+import javax.vecmath.Vector3f;
+
+/**
+ * Narrowphase for a {@link VoxelGridShape} against convex shapes, concave meshes and other voxel grids.
+ * <p>
+ * Only voxels inside the other shape's bounds are looked at, found through the shape's section and
+ * brick masks, and each is tested as a unit box with GJK. Contacts whose normal points into a solid
+ * neighbour are dropped, so objects sliding across a flat voxel surface don't catch on the seams
+ * between voxels. Like Bullet's convex-concave algorithm, one manifold collects the contacts of
+ * every voxel in the pair, created with the voxel object as body 0.
+ * <p>
+ * A pair needing more than {@link #MAX_VOXEL_TESTS} tests runs an evenly spread share of them each
+ * step, picked by voxel position and rotated from step to step. The manifold keeps only a few
+ * points, and they come from the whole overlap rather than whichever end the walk reaches first.
+ */
+public class VoxelCollisionAlgorithm extends CollisionAlgorithm {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    private static final float VOXEL_MARGIN = 0.01f;
+    static final BoxShape UNIT_BOX = createUnitBox();   // Shared by every voxel test; never modified
+
+    // Distance from a voxel's center to its corners
+    private static final float VOXEL_RADIUS = (float) Math.sqrt(3.0) * 0.5f;
+
+    // GJK runs per pair and step, buried voxels not counted; larger overlaps are sampled down to this
+    private static final int MAX_VOXEL_TESTS = 2048;
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private PersistentManifold manifold;
+    private boolean ownManifold;
+    private boolean swapped;
+
+    // Narrowphase scratch, reused across voxels
+    private final GjkPairDetector gjk = new GjkPairDetector();
+    private final VoronoiSimplexSolver simplexSolver = new VoronoiSimplexSolver();
+    private final GjkEpaPenetrationDepthSolver depthSolver = new GjkEpaPenetrationDepthSolver();
+    private final DiscreteCollisionDetectorInterface.ClosestPointInput input =
+            new DiscreteCollisionDetectorInterface.ClosestPointInput();
+    private final FaceFilter faceFilter = new FaceFilter();
+    private final TriangleShape triangle = new TriangleShape();
+    private final TriangleCollector triangleCollector = new TriangleCollector();
+
+    private final Transform voxelWorld = new Transform();
+    private final Transform otherWorld = new Transform();
+    private final Transform toVoxelLocal = new Transform();
+    private final Transform toOtherLocal = new Transform();
+    private final Transform otherBoxWorld = new Transform();
+    private final Vector3f queryMin = new Vector3f();
+    private final Vector3f queryMax = new Vector3f();
+    private final Vector3f scratch = new Vector3f();
+    private final Vector3f center = new Vector3f();
+    private final Vector3f reachMin = new Vector3f();
+    private final Vector3f reachMax = new Vector3f();
+
+    // State of the pair being processed, read by the visitors
+    private VoxelGridShape voxels;
+    private VoxelGridShape otherVoxels;
+    private ConvexShape convex;
+    private ManifoldResult result;
+    private float threshold;
+    private int currentX, currentY, currentZ, currentFaces;
+    private final Vector3f currentInOther = new Vector3f();
+
+    // Test budget: every stride-th test by position runs, from a phase that moves on each step
+    private int stride;         // 0 until the pair's tests have been counted once
+    private int phase;
+    private int candidates;     // Tests the pair needed, sampled or not
+    private boolean counting;   // Dry run: count tests without running them
+
+    private final VoxelGridShape.VoxelVisitor convexVisitor = this::testConvex;
+    private final VoxelGridShape.VoxelVisitor voxelVisitorA = this::visitVoxelA;
+    private final VoxelGridShape.VoxelVisitor voxelVisitorB = this::testVoxelPair;
+
+    public void init(CollisionAlgorithmConstructionInfo ci, boolean swapped) {
+        super.init(ci);
+        this.manifold = ci.manifold;
+        this.ownManifold = false;
+        this.swapped = swapped;
+    }
+
+    // -------------------------------------------
+    // COLLISION ALGORITHM
+    // -------------------------------------------
+
+    @Override
+    public void destroy() {
+        if (ownManifold && manifold != null) {
+            dispatcher.releaseManifold(manifold);
+        }
+        manifold = null;
+        ownManifold = false;
+    }
+
+    @Override
+    public void processCollision(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut) {
+        CollisionObject voxelObject = swapped ? body1 : body0;
+        CollisionObject otherObject = swapped ? body0 : body1;
+
+        if (manifold == null) {
+            manifold = dispatcher.getNewManifold(voxelObject, otherObject);
+            ownManifold = true;
+        }
+        resultOut.setPersistentManifold(manifold);
+
+        voxels = (VoxelGridShape) voxelObject.getCollisionShape();
+        CollisionShape otherShape = otherObject.getCollisionShape();
+        voxelObject.getWorldTransform(voxelWorld);
+        otherObject.getWorldTransform(otherWorld);
+        toVoxelLocal.inverse(voxelWorld);
+        toVoxelLocal.mul(otherWorld);
+
+        result = resultOut;
+        threshold = manifold.getContactBreakingThreshold();
+
+        if (stride == 0) {
+            // New pair: count its tests first so a large overlap is sampled from the first step on
+            counting = true;
+            collide(otherShape);
+            counting = false;
+            stride = strideFor(candidates);
+        }
+        phase++;
+        collide(otherShape);
+        stride = strideFor(candidates);
+
+        voxels = null;
+        otherVoxels = null;
+        convex = null;
+        result = null;
+
+        if (ownManifold) {
+            resultOut.refreshContactPoints();
+        }
+    }
+
+    @Override
+    public float calculateTimeOfImpact(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut) {
+        // Fast grids are swept by the world's convex sweeps instead, see VoxelQueries
+        return 1.0f;
+    }
+
+    @Override
+    public void getAllContactManifolds(ObjectArrayList<PersistentManifold> manifoldArray) {
+        if (manifold != null && ownManifold) {
+            manifoldArray.add(manifold);
+        }
+    }
+
+    private void collide(CollisionShape otherShape) {
+        candidates = 0;
+        if (otherShape instanceof VoxelGridShape) {
+            collideVoxels((VoxelGridShape) otherShape);
+        } else if (otherShape instanceof ConvexShape) {
+            collideConvex((ConvexShape) otherShape);
+        } else if (otherShape instanceof ConcaveShape) {
+            collideConcave((ConcaveShape) otherShape);
+        }
+    }
+
+    // -------------------------------------------
+    // CONVEX
+    // -------------------------------------------
+
+    private void collideConvex(ConvexShape shape) {
+        convex = shape;
+        shape.getAabb(toVoxelLocal, queryMin, queryMax);
+        expand(queryMin, queryMax, threshold);
+        voxels.forEachSolid(queryMin, queryMax, convexVisitor);
+    }
+
+    private boolean testConvex(int x, int y, int z) {
+        int faces = voxels.getExposedFaces(x, y, z);
+        if (faces == 0 || !sample(hash(x, y, z))) return true;
+
+        runGjk(x, y, z, faces, convex, otherWorld, null, 0);
+        return true;
+    }
+
+    // -------------------------------------------
+    // CONCAVE
+    // -------------------------------------------
+
+    private void collideConcave(ConcaveShape shape) {
+        // Overlap of the two bounds, in the mesh's space
+        voxels.getAabb(voxelWorld, queryMin, queryMax);
+        expand(queryMin, queryMax, threshold);
+        Transform toMeshLocal = new Transform();
+        toMeshLocal.inverse(otherWorld);
+        AabbUtil2.transformAabb(new Vector3f(queryMin), new Vector3f(queryMax), 0.0f, toMeshLocal, queryMin, queryMax);
+
+        triangle.setMargin(shape.getMargin());
+        shape.processAllTriangles(triangleCollector, queryMin, queryMax);
+    }
+
+    /**
+     * Tests each mesh triangle against the voxels under its bounds.
+     */
+    private class TriangleCollector extends TriangleCallback {
+        private final Vector3f min = new Vector3f();
+        private final Vector3f max = new Vector3f();
+
+        @Override
+        public void processTriangle(Vector3f[] triangleVertices, int partId, int triangleIndex) {
+            min.set(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+            max.set(-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE);
+            for (Vector3f vertex : triangleVertices) {
+                scratch.set(vertex);
+                toVoxelLocal.transform(scratch);
+                min.x = Math.min(min.x, scratch.x);
+                min.y = Math.min(min.y, scratch.y);
+                min.z = Math.min(min.z, scratch.z);
+                max.x = Math.max(max.x, scratch.x);
+                max.y = Math.max(max.y, scratch.y);
+                max.z = Math.max(max.z, scratch.z);
+            }
+            expand(min, max, threshold + triangle.getMargin());
+
+            triangle.init(triangleVertices[0], triangleVertices[1], triangleVertices[2]);
+            convex = triangle;
+            voxels.forEachSolid(min, max, convexVisitor);
+        }
+    }
+
+    // -------------------------------------------
+    // VOXELS
+    // -------------------------------------------
+
+    private void collideVoxels(VoxelGridShape shape) {
+        otherVoxels = shape;
+
+        // Only voxels of this grid inside the other grid's bounds can touch it
+        toOtherLocal.inverse(toVoxelLocal);
+        shape.getAabb(toVoxelLocal, queryMin, queryMax);
+        expand(queryMin, queryMax, threshold);
+        voxels.forEachSolid(queryMin, queryMax, voxelVisitorA);
+    }
+
+    private boolean visitVoxelA(int x, int y, int z) {
+        int faces = voxels.getExposedFaces(x, y, z);
+        if (faces == 0) return true;
+
+        // Voxels of the other grid within reach of this voxel's center
+        scratch.set(x + 0.5f, y + 0.5f, z + 0.5f);
+        toOtherLocal.transform(scratch);
+        float reach = VOXEL_RADIUS + threshold;
+        reachMin.set(scratch.x - reach, scratch.y - reach, scratch.z - reach);
+        reachMax.set(scratch.x + reach, scratch.y + reach, scratch.z + reach);
+
+        currentX = x;
+        currentY = y;
+        currentZ = z;
+        currentFaces = faces;
+        currentInOther.set(scratch);
+        return otherVoxels.forEachSolid(reachMin, reachMax, voxelVisitorB);
+    }
+
+    private boolean testVoxelPair(int x, int y, int z) {
+        int faces = otherVoxels.getExposedFaces(x, y, z);
+        if (faces == 0) return true;
+
+        // Only voxels on the open side of each other's exposed faces; any other contact is filtered out
+        if (!facesToward(faces, currentInOther.x - (x + 0.5f), currentInOther.y - (y + 0.5f), currentInOther.z - (z + 0.5f))) {
+            return true;
+        }
+        scratch.set(x + 0.5f, y + 0.5f, z + 0.5f);
+        toVoxelLocal.transform(scratch);
+        if (!facesToward(currentFaces, scratch.x - (currentX + 0.5f), scratch.y - (currentY + 0.5f), scratch.z - (currentZ + 0.5f))) {
+            return true;
+        }
+        if (!sample(31 * hash(currentX, currentY, currentZ) + hash(x, y, z))) return true;
+
+        voxelTransform(otherWorld, x, y, z, otherBoxWorld);
+        runGjk(currentX, currentY, currentZ, currentFaces, UNIT_BOX, otherBoxWorld, otherWorld.basis, faces);
+        return true;
+    }
+
+    // -------------------------------------------
+    // PRIVATE METHODS
+    // -------------------------------------------
+
+    /**
+     * Counts a test the pair needs and tells whether it runs this step.
+     */
+    private boolean sample(int hash) {
+        candidates++;
+        return !counting && (stride <= 1 || Math.floorMod(hash + phase, stride) == 0);
+    }
+
+    private static int strideFor(int candidates) {
+        return Math.max(1, (candidates + MAX_VOXEL_TESTS - 1) / MAX_VOXEL_TESTS);
+    }
+
+    /**
+     * Spreads neighbouring voxels over different residues, so every stride-th one is an even scatter.
+     */
+    private static int hash(int x, int y, int z) {
+        return (x * 73856093) ^ (y * 19349663) ^ (z * 83492791);
+    }
+
+    /**
+     * Whether an offset from a voxel's center points out through one of its exposed faces.
+     */
+    private static boolean facesToward(int faces, float dx, float dy, float dz) {
+        return (dx > 0 ? (faces & VoxelGridShape.Face.POS_X) != 0 : dx < 0 && (faces & VoxelGridShape.Face.NEG_X) != 0)
+                || (dy > 0 ? (faces & VoxelGridShape.Face.POS_Y) != 0 : dy < 0 && (faces & VoxelGridShape.Face.NEG_Y) != 0)
+                || (dz > 0 ? (faces & VoxelGridShape.Face.POS_Z) != 0 : dz < 0 && (faces & VoxelGridShape.Face.NEG_Z) != 0);
+    }
+
+    /**
+     * Runs GJK between one voxel of this grid and a convex shape, keeping contacts on exposed faces.
+     *
+     * @param otherBasis Rotation of the other grid when the convex shape is one of its voxels, else null
+     * @param otherFaces Exposed faces of that voxel
+     */
+    private void runGjk(int x, int y, int z, int faces, ConvexShape other, Transform otherTransform,
+                        Matrix3f otherBasis, int otherFaces) {
+        input.init();
+        voxelTransform(voxelWorld, x, y, z, input.transformA);
+        input.transformB.set(otherTransform);
+        float distance = UNIT_BOX.getMargin() + other.getMargin() + threshold;
+        input.maximumDistanceSquared = distance * distance;
+
+        faceFilter.set(result, voxelWorld.basis, faces, otherBasis, otherFaces);
+        gjk.init(UNIT_BOX, other, simplexSolver, depthSolver);
+        gjk.getClosestPoints(input, faceFilter, null, false);
+    }
+
+    /**
+     * World transform of the unit box of a voxel.
+     */
+    private Transform voxelTransform(Transform gridWorld, int x, int y, int z, Transform out) {
+        out.set(gridWorld);
+        center.set(x + 0.5f, y + 0.5f, z + 0.5f);
+        gridWorld.transform(center);
+        out.origin.set(center);
+        return out;
+    }
+
+    private static void expand(Vector3f min, Vector3f max, float amount) {
+        min.x -= amount;
+        min.y -= amount;
+        min.z -= amount;
+        max.x += amount;
+        max.y += amount;
+        max.z += amount;
+    }
+
+    private static BoxShape createUnitBox() {
+        BoxShape box = new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f));
+        box.setMargin(VOXEL_MARGIN);
+        return box;
+    }
+
+    /**
+     * Face bit of the box face whose outward normal is closest to a grid-local direction.
+     */
+    private static int faceOf(Matrix3f basis, Vector3f worldDirection, float sign) {
+        // Transpose of the basis takes world directions into grid space
+        float x = sign * (basis.m00 * worldDirection.x + basis.m10 * worldDirection.y + basis.m20 * worldDirection.z);
+        float y = sign * (basis.m01 * worldDirection.x + basis.m11 * worldDirection.y + basis.m21 * worldDirection.z);
+        float z = sign * (basis.m02 * worldDirection.x + basis.m12 * worldDirection.y + basis.m22 * worldDirection.z);
+        float ax = Math.abs(x), ay = Math.abs(y), az = Math.abs(z);
+        if (ax >= ay && ax >= az) {
+            return x > 0 ? VoxelGridShape.Face.POS_X : VoxelGridShape.Face.NEG_X;
+        }
+        if (ay >= az) {
+            return y > 0 ? VoxelGridShape.Face.POS_Y : VoxelGridShape.Face.NEG_Y;
+        }
+        return z > 0 ? VoxelGridShape.Face.POS_Z : VoxelGridShape.Face.NEG_Z;
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Passes GJK contacts on to the manifold unless they sit on a face covered by a solid neighbour.
+     * The normal points from B towards A, so A's touching face faces along its negation and B's along it.
+     */
+    private static class FaceFilter extends DiscreteCollisionDetectorInterface.Result {
+        private ManifoldResult target;
+        private Matrix3f basisA;
+        private int facesA;
+        private Matrix3f basisB;
+        private int facesB;
+
+        void set(ManifoldResult target, Matrix3f basisA, int facesA, Matrix3f basisB, int facesB) {
+            this.target = target;
+            this.basisA = basisA;
+            this.facesA = facesA;
+            this.basisB = basisB;
+            this.facesB = facesB;
+        }
+
+        @Override
+        public void setShapeIdentifiers(int partId0, int index0, int partId1, int index1) {
+        }
+
+        @Override
+        public void addContactPoint(Vector3f normalOnBInWorld, Vector3f pointInWorld, float depth) {
+            if ((facesA & faceOf(basisA, normalOnBInWorld, -1.0f)) == 0) {
+                return;
+            }
+            if (basisB != null && (facesB & faceOf(basisB, normalOnBInWorld, 1.0f)) == 0) {
+                return;
+            }
+            target.addContactPoint(normalOnBInWorld, pointInWorld, depth);
+        }
+    }
+
+    /**
+     * Creates the algorithm for pairs with a voxel grid on one side.
+     */
+    public static class CreateFunc extends CollisionAlgorithmCreateFunc {
+        @Override
+        public CollisionAlgorithm createCollisionAlgorithm(CollisionAlgorithmConstructionInfo ci, CollisionObject body0, CollisionObject body1) {
+            VoxelCollisionAlgorithm algorithm = new VoxelCollisionAlgorithm();
+            algorithm.init(ci, swapped);
+            return algorithm;
+        }
+
+        @Override
+        public void releaseCollisionAlgorithm(CollisionAlgorithm algorithm) {
+        }
+    }
+
+    /**
+     * Routes voxel pairs with convex, concave and voxel shapes to this algorithm.
+     * Pairs with compounds keep Bullet's compound algorithm, which reaches the voxel child through here.
+     */
+    public static void register(CollisionDispatcher dispatcher) {
+        CreateFunc createFunc = new CreateFunc();
+        CreateFunc swappedFunc = new CreateFunc();
+        swappedFunc.swapped = true;
+
+        int voxel = VoxelGridShape.SHAPE_TYPE.ordinal();
+        dispatcher.registerCollisionCreateFunc(voxel, voxel, createFunc);
+        for (BroadphaseNativeType type : BroadphaseNativeType.values()) {
+            if (type == VoxelGridShape.SHAPE_TYPE || type.isCompound() || !(type.isConvex() || type.isConcave())) {
+                continue;
+            }
+            dispatcher.registerCollisionCreateFunc(voxel, type.ordinal(), createFunc);
+            dispatcher.registerCollisionCreateFunc(type.ordinal(), voxel, swappedFunc);
+        }
+    }
+}
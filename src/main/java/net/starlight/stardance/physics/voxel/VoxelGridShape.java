@@ -0,0 +1,568 @@
+package net.starlight.stardance.physics.voxel;
+
+import com.bulletphysics.collision.broadphase.BroadphaseNativeType;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.linearmath.AabbUtil2;
+import com.bulletphysics.linearmath.Transform;
+
+import javax.vecmath.Vector3f;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collision shape made of unit voxels, read straight from occupancy bits.
+ * <p>
+ * Voxels are stored in sparse 16x16x16 sections of 4096 bits, each with a 64-bit mask of the
+ * 4x4x4 bricks that hold anything, so a query skips empty sections, then empty bricks, and only
+ * then looks at bits. Voxel (x, y, z) fills the unit cube from (x, y, z) to (x + 1, y + 1, z + 1)
+ * in shape-local space. Shapes are immutable once built, like every shape readers may snapshot.
+ * <p>
+ * Bullet's own algorithms don't know this shape: pairs go through {@link VoxelCollisionAlgorithm},
+ * and ray and sweep queries through {@link VoxelQueries}.
+ */
+public class VoxelGridShape extends CollisionShape {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    /**
+     * Shape type the dispatcher routes to {@link VoxelCollisionAlgorithm}. jBullet has a closed
+     * set of types and never uses the soft body one, and its queries skip shapes that are neither
+     * convex, concave nor compound, which is what keeps Bullet's own ray and sweep code away from this shape.
+     */
+    public static final BroadphaseNativeType SHAPE_TYPE = BroadphaseNativeType.SOFTBODY_SHAPE_PROXYTYPE;
+
+    public static final int SECTION_SIZE = 16;
+    static final int SECTION_SHIFT = 4;
+    static final int SECTION_MASK = SECTION_SIZE - 1;
+
+    private static final float DEFAULT_MARGIN = 0.01f;
+
+    // -------------------------------------------
+    // FIELDS
+    // -------------------------------------------
+
+    private final Map<Long, Section> sections;
+    private final Map<Long, Section> borders;       // Occupancy outside the shape, for exposed faces only
+    private final Section[] sectionList;
+    private final int voxelCount;
+
+    // Bounds of every solid voxel, in shape-local space
+    private final Vector3f localMin = new Vector3f();
+    private final Vector3f localMax = new Vector3f();
+
+    private float margin = DEFAULT_MARGIN;
+
+    /**
+     * @param sections Non-empty sections, each at a distinct section coordinate
+     */
+    public VoxelGridShape(Collection<Section> sections) {
+        this(sections, Collections.emptyList());
+    }
+
+    /**
+     * @param sections Non-empty sections, each at a distinct section coordinate
+     * @param borders Voxels around the shape that belong to other objects. They never collide
+     *                here, but faces they cover count as hidden, so seams between neighbouring
+     *                shapes don't produce contacts
+     */
+    public VoxelGridShape(Collection<Section> sections, Collection<Section> borders) {
+        this.borders = new HashMap<>();
+        for (Section border : borders) {
+            this.borders.put(key(border.sx, border.sy, border.sz), border);
+        }
+        this.sections = new HashMap<>(sections.size() * 2);
+        this.sectionList = sections.toArray(new Section[0]);
+
+        int count = 0;
+        localMin.set(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+        localMax.set(-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE);
+        for (Section section : sectionList) {
+            this.sections.put(key(section.sx, section.sy, section.sz), section);
+            count += section.count;
+
+            int originX = section.sx << SECTION_SHIFT;
+            int originY = section.sy << SECTION_SHIFT;
+            int originZ = section.sz << SECTION_SHIFT;
+            localMin.x = Math.min(localMin.x, originX + section.minX);
+            localMin.y = Math.min(localMin.y, originY + section.minY);
+            localMin.z = Math.min(localMin.z, originZ + section.minZ);
+            localMax.x = Math.max(localMax.x, originX + section.maxX + 1);
+            localMax.y = Math.max(localMax.y, originY + section.maxY + 1);
+            localMax.z = Math.max(localMax.z, originZ + section.maxZ + 1);
+        }
+        if (count == 0) {
+            localMin.set(0, 0, 0);
+            localMax.set(0, 0, 0);
+        }
+        this.voxelCount = count;
+    }
+
+    // -------------------------------------------
+    // OCCUPANCY
+    // -------------------------------------------
+
+    public boolean isSolid(int x, int y, int z) {
+        Section section = sections.get(key(x >> SECTION_SHIFT, y >> SECTION_SHIFT, z >> SECTION_SHIFT));
+        return section != null && section.get(x & SECTION_MASK, y & SECTION_MASK, z & SECTION_MASK);
+    }
+
+    /**
+     * Whether a voxel is solid in this shape or in its borders.
+     */
+    private boolean isCovered(int x, int y, int z) {
+        if (isSolid(x, y, z)) {
+            return true;
+        }
+        if (borders.isEmpty()) {
+            return false;
+        }
+        Section border = borders.get(key(x >> SECTION_SHIFT, y >> SECTION_SHIFT, z >> SECTION_SHIFT));
+        return border != null && border.get(x & SECTION_MASK, y & SECTION_MASK, z & SECTION_MASK);
+    }
+
+    /**
+     * Faces of a solid voxel that no solid neighbour or border voxel covers, as a mask of {@link Face} bits.
+     */
+    public int getExposedFaces(int x, int y, int z) {
+        int faces = 0;
+        if (!isCovered(x - 1, y, z)) faces |= Face.NEG_X;
+        if (!isCovered(x + 1, y, z)) faces |= Face.POS_X;
+        if (!isCovered(x, y - 1, z)) faces |= Face.NEG_Y;
+        if (!isCovered(x, y + 1, z)) faces |= Face.POS_Y;
+        if (!isCovered(x, y, z - 1)) faces |= Face.NEG_Z;
+        if (!isCovered(x, y, z + 1)) faces |= Face.POS_Z;
+        return faces;
+    }
+
+    /**
+     * Visits every solid voxel in an inclusive box of voxel coordinates.
+     * Sections and bricks with nothing inside the box are skipped without reading their bits.
+     *
+     * @return Whether the visitor let the walk finish
+     */
+    public boolean forEachSolid(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, VoxelVisitor visitor) {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            return true;
+        }
+
+        int minSX = minX >> SECTION_SHIFT, maxSX = maxX >> SECTION_SHIFT;
+        int minSY = minY >> SECTION_SHIFT, maxSY = maxY >> SECTION_SHIFT;
+        int minSZ = minZ >> SECTION_SHIFT, maxSZ = maxZ >> SECTION_SHIFT;
+        long spanned = (long) (maxSX - minSX + 1) * (maxSY - minSY + 1) * (maxSZ - minSZ + 1);
+
+        if (spanned > sectionList.length) {
+            // Large query over a sparse grid: filter the sections instead of probing every slot
+            for (Section section : sectionList) {
+                if (section.sx < minSX || section.sx > maxSX || section.sy < minSY || section.sy > maxSY
+                        || section.sz < minSZ || section.sz > maxSZ) {
+                    continue;
+                }
+                if (!section.forEach(minX, minY, minZ, maxX, maxY, maxZ, visitor)) return false;
+            }
+            return true;
+        }
+
+        for (int sx = minSX; sx <= maxSX; sx++) {
+            for (int sy = minSY; sy <= maxSY; sy++) {
+                for (int sz = minSZ; sz <= maxSZ; sz++) {
+                    Section section = sections.get(key(sx, sy, sz));
+                    if (section != null && !section.forEach(minX, minY, minZ, maxX, maxY, maxZ, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits every solid voxel overlapping a shape-local box.
+     */
+    public boolean forEachSolid(Vector3f min, Vector3f max, VoxelVisitor visitor) {
+        int minX = (int) Math.floor(Math.max(min.x, localMin.x));
+        int minY = (int) Math.floor(Math.max(min.y, localMin.y));
+        int minZ = (int) Math.floor(Math.max(min.z, localMin.z));
+        int maxX = (int) Math.floor(Math.min(max.x, localMax.x - 0.5f));
+        int maxY = (int) Math.floor(Math.min(max.y, localMax.y - 0.5f));
+        int maxZ = (int) Math.floor(Math.min(max.z, localMax.z - 0.5f));
+        return forEachSolid(minX, minY, minZ, maxX, maxY, maxZ, visitor);
+    }
+
+    // -------------------------------------------
+    // RAY CAST
+    // -------------------------------------------
+
+    /**
+     * Walks the voxels a shape-local segment passes through and stops at the first solid one.
+     *
+     * @param from Segment start in shape-local space
+     * @param to Segment end in shape-local space
+     * @param maxFraction Hits further along than this are ignored
+     * @param hit Receives the fraction along the segment and the local normal of the face entered
+     * @return Whether a voxel was hit before maxFraction
+     */
+    public boolean rayTest(Vector3f from, Vector3f to, float maxFraction, RayHit hit) {
+        float dx = to.x - from.x, dy = to.y - from.y, dz = to.z - from.z;
+
+        // Clip the segment to the bounds so the walk never crosses empty space outside the grid
+        float[] range = {0.0f, maxFraction};
+        if (!clip(from.x, dx, localMin.x, localMax.x, range)
+                || !clip(from.y, dy, localMin.y, localMax.y, range)
+                || !clip(from.z, dz, localMin.z, localMax.z, range)) {
+            return false;
+        }
+        float t = range[0];
+        float tEnd = range[1];
+
+        int x = (int) Math.floor(from.x + dx * t);
+        int y = (int) Math.floor(from.y + dy * t);
+        int z = (int) Math.floor(from.z + dz * t);
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+
+        // Clipping can land exactly on the far side of a boundary voxel
+        x = Math.min(Math.max(x, (int) localMin.x), (int) localMax.x - 1);
+        y = Math.min(Math.max(y, (int) localMin.y), (int) localMax.y - 1);
+        z = Math.min(Math.max(z, (int) localMin.z), (int) localMax.z - 1);
+
+        float deltaX = dx != 0 ? Math.abs(1.0f / dx) : Float.MAX_VALUE;
+        float deltaY = dy != 0 ? Math.abs(1.0f / dy) : Float.MAX_VALUE;
+        float deltaZ = dz != 0 ? Math.abs(1.0f / dz) : Float.MAX_VALUE;
+        float nextX = dx != 0 ? ((stepX > 0 ? x + 1 : x) - from.x) / dx : Float.MAX_VALUE;
+        float nextY = dy != 0 ? ((stepY > 0 ? y + 1 : y) - from.y) / dy : Float.MAX_VALUE;
+        float nextZ = dz != 0 ? ((stepZ > 0 ? z + 1 : z) - from.z) / dz : Float.MAX_VALUE;
+
+        // Normal of the face the walk entered the current voxel through; the bounds face at the start
+        int axis = entryAxis(from, dx, dy, dz, t);
+
+        while (t <= tEnd) {
+            if (isSolid(x, y, z)) {
+                hit.fraction = t;
+                hit.normal.set(0, 0, 0);
+                if (axis == 0) hit.normal.x = -stepX;
+                else if (axis == 1) hit.normal.y = -stepY;
+                else hit.normal.z = -stepZ;
+                return true;
+            }
+
+            if (nextX <= nextY && nextX <= nextZ) {
+                x += stepX;
+                t = nextX;
+                nextX += deltaX;
+                axis = 0;
+            } else if (nextY <= nextZ) {
+                y += stepY;
+                t = nextY;
+                nextY += deltaY;
+                axis = 1;
+            } else {
+                z += stepZ;
+                t = nextZ;
+                nextZ += deltaZ;
+                axis = 2;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Narrows [range[0], range[1]] to where one coordinate of the segment lies within [min, max].
+     */
+    private static boolean clip(float start, float delta, float min, float max, float[] range) {
+        if (delta == 0) {
+            return start >= min && start <= max;
+        }
+        float t0 = (min - start) / delta;
+        float t1 = (max - start) / delta;
+        if (t0 > t1) {
+            float swap = t0;
+            t0 = t1;
+            t1 = swap;
+        }
+        range[0] = Math.max(range[0], t0);
+        range[1] = Math.min(range[1], t1);
+        return range[0] <= range[1];
+    }
+
+    /**
+     * Axis whose bounds face the clipped segment starts on, or the dominant axis if it starts inside.
+     */
+    private int entryAxis(Vector3f from, float dx, float dy, float dz, float t) {
+        float x = from.x + dx * t, y = from.y + dy * t, z = from.z + dz * t;
+        if (t > 0) {
+            if (x == localMin.x || x == localMax.x) return 0;
+            if (y == localMin.y || y == localMax.y) return 1;
+            if (z == localMin.z || z == localMax.z) return 2;
+        }
+        float ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+        return ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+    }
+
+    // -------------------------------------------
+    // COLLISION SHAPE
+    // -------------------------------------------
+
+    @Override
+    public void getAabb(Transform transform, Vector3f aabbMin, Vector3f aabbMax) {
+        AabbUtil2.transformAabb(localMin, localMax, margin, transform, aabbMin, aabbMax);
+    }
+
+    @Override
+    public BroadphaseNativeType getShapeType() {
+        return SHAPE_TYPE;
+    }
+
+    /**
+     * Voxels are always one block; scaling is ignored.
+     */
+    @Override
+    public void setLocalScaling(Vector3f scaling) {
+    }
+
+    @Override
+    public Vector3f getLocalScaling(Vector3f out) {
+        out.set(1, 1, 1);
+        return out;
+    }
+
+    /**
+     * Inertia of the solid bounding box. Grids take their real inertia from their blocks.
+     */
+    @Override
+    public void calculateLocalInertia(float mass, Vector3f inertia) {
+        float lx = localMax.x - localMin.x;
+        float ly = localMax.y - localMin.y;
+        float lz = localMax.z - localMin.z;
+        inertia.set(
+                mass / 12.0f * (ly * ly + lz * lz),
+                mass / 12.0f * (lx * lx + lz * lz),
+                mass / 12.0f * (lx * lx + ly * ly));
+    }
+
+    @Override
+    public String getName() {
+        return "VoxelGrid";
+    }
+
+    @Override
+    public void setMargin(float margin) {
+        this.margin = margin;
+    }
+
+    @Override
+    public float getMargin() {
+        return margin;
+    }
+
+    // -------------------------------------------
+    // GETTERS
+    // -------------------------------------------
+
+    public int getVoxelCount() {
+        return voxelCount;
+    }
+
+    public int getSectionCount() {
+        return sectionList.length;
+    }
+
+    /**
+     * Number of border sections kept around the shape for exposed faces.
+     */
+    public int getBorderSectionCount() {
+        return borders.size();
+    }
+
+    /**
+     * Bounds of every solid voxel in shape-local space.
+     */
+    public void getLocalBounds(Vector3f min, Vector3f max) {
+        min.set(localMin);
+        max.set(localMax);
+    }
+
+    private static long key(int sx, int sy, int sz) {
+        return ((long) sx & 0x1FFFFF) << 42 | ((long) sy & 0x1FFFFF) << 21 | ((long) sz & 0x1FFFFF);
+    }
+
+    // -------------------------------------------
+    // NESTED CLASSES
+    // -------------------------------------------
+
+    /**
+     * Receives solid voxels from {@link #forEachSolid}.
+     */
+    public interface VoxelVisitor {
+        /**
+         * @return Whether to keep visiting
+         */
+        boolean visit(int x, int y, int z);
+    }
+
+    /**
+     * Result of {@link #rayTest}.
+     */
+    public static final class RayHit {
+        public float fraction;
+        public final Vector3f normal = new Vector3f();
+    }
+
+    /**
+     * Face bits for {@link #getExposedFaces}.
+     */
+    public static final class Face {
+        public static final int NEG_X = 1;
+        public static final int POS_X = 1 << 1;
+        public static final int NEG_Y = 1 << 2;
+        public static final int POS_Y = 1 << 3;
+        public static final int NEG_Z = 1 << 4;
+        public static final int POS_Z = 1 << 5;
+
+        private Face() {
+        }
+    }
+
+    /**
+     * The occupancy of one 16x16x16 section. Row (y, z) is the 16 bits starting at bit
+     * (y * 16 + z) * 16, four rows to a word, and bit (by * 4 + bz) * 4 + bx of the brick
+     * mask is set when the 4x4x4 brick at (bx, by, bz) holds a solid voxel.
+     */
+    public static final class Section {
+        public static final int WORDS = SECTION_SIZE * SECTION_SIZE * SECTION_SIZE / 64;
+
+        final int sx, sy, sz;
+        private final long[] bits;
+        private final long brickMask;
+        final int count;
+
+        // Bounds of the solid voxels, section-local and inclusive
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        private Section(int sx, int sy, int sz, long[] bits) {
+            this.sx = sx;
+            this.sy = sy;
+            this.sz = sz;
+            this.bits = bits;
+
+            long bricks = 0;
+            int solid = 0;
+            int lowX = SECTION_SIZE, lowY = SECTION_SIZE, lowZ = SECTION_SIZE;
+            int highX = -1, highY = -1, highZ = -1;
+            for (int y = 0; y < SECTION_SIZE; y++) {
+                for (int z = 0; z < SECTION_SIZE; z++) {
+                    int row = row(y, z);
+                    if (row == 0) continue;
+
+                    solid += Integer.bitCount(row);
+                    lowX = Math.min(lowX, Integer.numberOfTrailingZeros(row));
+                    highX = Math.max(highX, 31 - Integer.numberOfLeadingZeros(row));
+                    lowY = Math.min(lowY, y);
+                    highY = y;
+                    lowZ = Math.min(lowZ, z);
+                    highZ = Math.max(highZ, z);
+                    for (int bx = 0; bx < 4; bx++) {
+                        if ((row >>> (bx << 2) & 0xF) != 0) {
+                            bricks |= 1L << brick(bx, y >> 2, z >> 2);
+                        }
+                    }
+                }
+            }
+            this.brickMask = bricks;
+            this.count = solid;
+            this.minX = lowX;
+            this.minY = lowY;
+            this.minZ = lowZ;
+            this.maxX = highX;
+            this.maxY = highY;
+            this.maxZ = highZ;
+        }
+
+        /**
+         * Wraps filled bits as a section, or returns null if none are set.
+         * The array is kept, so the caller must not touch it afterwards.
+         *
+         * @param bits {@link #WORDS} words filled with {@link #set}
+         */
+        public static Section of(int sx, int sy, int sz, long[] bits) {
+            Section section = new Section(sx, sy, sz, bits);
+            return section.count > 0 ? section : null;
+        }
+
+        /**
+         * Sets the bit of a section-local voxel in an array of {@link #WORDS} words.
+         */
+        public static void set(long[] bits, int x, int y, int z) {
+            int bit = ((y << SECTION_SHIFT | z) << SECTION_SHIFT) | x;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+
+        /**
+         * Sets a section-local row of voxels along X, voxel x in bit x of the low 16 bits.
+         */
+        public static void setRow(long[] bits, int y, int z, int row) {
+            int bit = (y << SECTION_SHIFT | z) << SECTION_SHIFT;
+            bits[bit >>> 6] |= (long) (row & 0xFFFF) << (bit & 63);
+        }
+
+        boolean get(int x, int y, int z) {
+            int bit = ((y << SECTION_SHIFT | z) << SECTION_SHIFT) | x;
+            return (bits[bit >>> 6] & 1L << bit) != 0;
+        }
+
+        private int row(int y, int z) {
+            int bit = (y << SECTION_SHIFT | z) << SECTION_SHIFT;
+            return (int) (bits[bit >>> 6] >>> (bit & 63)) & 0xFFFF;
+        }
+
+        private static int brick(int bx, int by, int bz) {
+            return (by << 2 | bz) << 2 | bx;
+        }
+
+        /**
+         * Visits the solid voxels of this section inside an inclusive box of shape-local coordinates.
+         */
+        boolean forEach(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, VoxelVisitor visitor) {
+            int originX = sx << SECTION_SHIFT, originY = sy << SECTION_SHIFT, originZ = sz << SECTION_SHIFT;
+            int x0 = Math.max(minX - originX, this.minX), x1 = Math.min(maxX - originX, this.maxX);
+            int y0 = Math.max(minY - originY, this.minY), y1 = Math.min(maxY - originY, this.maxY);
+            int z0 = Math.max(minZ - originZ, this.minZ), z1 = Math.min(maxZ - originZ, this.maxZ);
+            if (x0 > x1 || y0 > y1 || z0 > z1) {
+                return true;
+            }
+
+            int rangeMask = (0xFFFF >>> (15 - x1)) & (0xFFFF << x0);
+            for (int by = y0 >> 2; by <= y1 >> 2; by++) {
+                for (int bz = z0 >> 2; bz <= z1 >> 2; bz++) {
+                    // Skip whole rows of empty bricks
+                    boolean any = false;
+                    for (int bx = x0 >> 2; bx <= x1 >> 2; bx++) {
+                        if ((brickMask & 1L << brick(bx, by, bz)) != 0) {
+                            any = true;
+                            break;
+                        }
+                    }
+                    if (!any) continue;
+
+                    int yEnd = Math.min(y1, (by << 2) + 3);
+                    int zEnd = Math.min(z1, (bz << 2) + 3);
+                    for (int y = Math.max(y0, by << 2); y <= yEnd; y++) {
+                        for (int z = Math.max(z0, bz << 2); z <= zEnd; z++) {
+                            int row = row(y, z) & rangeMask;
+                            while (row != 0) {
+                                int x = Integer.numberOfTrailingZeros(row);
+                                row &= row - 1;
+                                if (!visitor.visit(originX + x, originY + y, originZ + z)) {
+                                    return false;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package net.starlight.stardance.physics.voxel;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.CollisionWorld;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.collision.shapes.ConvexShape;
+import com.bulletphysics.linearmath.Transform;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Ray and convex sweep queries against {@link VoxelGridShape}s.
+ * Bullet's own query code skips shapes it doesn't know, so callers run these next to it.
+ * Shapes of other types are ignored here, and compounds are searched for voxel children.
+ */
+public final class VoxelQueries {
+
+    // -------------------------------------------
+    // CONSTANTS
+    // -------------------------------------------
+
+    // Voxels swept per shape and query; long sweeps over big grids give up past this
+    private static final int MAX_SWEPT_VOXELS = 4096;
+
+    private VoxelQueries() {
+    }
+
+    // -------------------------------------------
+    // RAY CAST
+    // -------------------------------------------
+
+    /**
+     * Casts a world-space ray against the voxels in a shape and reports the first hit to the callback,
+     * the same way {@link CollisionWorld#rayTestSingle} does for Bullet's shapes.
+     */
+    public static void rayTest(Transform rayFrom, Transform rayTo, CollisionObject collisionObject,
+                               CollisionShape shape, Transform worldTransform, CollisionWorld.RayResultCallback callback) {
+        if (shape instanceof CompoundShape) {
+            CompoundShape compound = (CompoundShape) shape;
+            Transform childTransform = new Transform();
+            Transform childWorld = new Transform();
+            for (int i = 0; i < compound.getNumChildShapes(); i++) {
+                CollisionShape child = compound.getChildShape(i);
+                if (!(child instanceof VoxelGridShape) && !(child instanceof CompoundShape)) continue;
+
+                compound.getChildTransform(i, childTransform);
+                childWorld.mul(worldTransform, childTransform);
+                rayTest(rayFrom, rayTo, collisionObject, child, childWorld, callback);
+            }
+            return;
+        }
+        if (!(shape instanceof VoxelGridShape)) {
+            return;
+        }
+
+        Transform toLocal = new Transform();
+        toLocal.inverse(worldTransform);
+        Vector3f from = new Vector3f(rayFrom.origin);
+        Vector3f to = new Vector3f(rayTo.origin);
+        toLocal.transform(from);
+        toLocal.transform(to);
+
+        VoxelGridShape.RayHit hit = new VoxelGridShape.RayHit();
+        if (((VoxelGridShape) shape).rayTest(from, to, callback.closestHitFraction, hit)) {
+            Vector3f normal = new Vector3f(hit.normal);
+            worldTransform.basis.transform(normal);
+            callback.addSingleResult(new CollisionWorld.LocalRayResult(collisionObject, null, normal, hit.fraction), true);
+        }
+    }
+
+    // -------------------------------------------
+    // CONVEX SWEEP
+    // -------------------------------------------
+
+    /**
+     * Sweeps a convex shape against the exposed voxels in a shape, reporting hits to the callback
+     * through {@link CollisionWorld#objectQuerySingle} with each voxel as a unit box.
+     */
+    public static void convexSweepTest(ConvexShape castShape, Transform convexFromWorld, Transform convexToWorld,
+                                       CollisionObject collisionObject, CollisionShape shape, Transform worldTransform,
+                                       CollisionWorld.ConvexResultCallback callback, float allowedPenetration) {
+        if (shape instanceof CompoundShape) {
+            CompoundShape compound = (CompoundShape) shape;
+            Transform childTransform = new Transform();
+            Transform childWorld = new Transform();
+            for (int i = 0; i < compound.getNumChildShapes(); i++) {
+                CollisionShape child = compound.getChildShape(i);
+                if (!(child instanceof VoxelGridShape) && !(child instanceof CompoundShape)) continue;
+
+                compound.getChildTransform(i, childTransform);
+                childWorld.mul(worldTransform, childTransform);
+                convexSweepTest(castShape, convexFromWorld, convexToWorld, collisionObject, child, childWorld,
+                        callback, allowedPenetration);
+            }
+            return;
+        }
+        if (!(shape instanceof VoxelGridShape)) {
+            return;
+        }
+        VoxelGridShape voxels = (VoxelGridShape) shape;
+
+        // Bounds of the whole sweep in the grid's space
+        Transform toLocal = new Transform();
+        toLocal.inverse(worldTransform);
+        Transform local = new Transform();
+        Vector3f min = new Vector3f();
+        Vector3f max = new Vector3f();
+        Vector3f endMin = new Vector3f();
+        Vector3f endMax = new Vector3f();
+        local.mul(toLocal, convexFromWorld);
+        castShape.getAabb(local, min, max);
+        local.mul(toLocal, convexToWorld);
+        castShape.getAabb(local, endMin, endMax);
+        min.set(Math.min(min.x, endMin.x), Math.min(min.y, endMin.y), Math.min(min.z, endMin.z));
+        max.set(Math.max(max.x, endMax.x), Math.max(max.y, endMax.y), Math.max(max.z, endMax.z));
+
+        Transform boxWorld = new Transform();
+        Vector3f center = new Vector3f();
+        int[] swept = {0};
+        voxels.forEachSolid(min, max, (x, y, z) -> {
+            if (voxels.getExposedFaces(x, y, z) == 0) return true;
+
+            boxWorld.set(worldTransform);
+            center.set(x + 0.5f, y + 0.5f, z + 0.5f);
+            worldTransform.transform(center);
+            boxWorld.origin.set(center);
+            CollisionWorld.objectQuerySingle(castShape, convexFromWorld, convexToWorld, collisionObject,
+                    VoxelCollisionAlgorithm.UNIT_BOX, boxWorld, callback, allowedPenetration);
+            return ++swept[0] < MAX_SWEPT_VOXELS;
+        });
+    }
+}
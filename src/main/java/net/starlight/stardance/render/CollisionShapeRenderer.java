@@ -1,17 +1,14 @@
 package net.starlight.stardance.render;
 
-import com.bulletphysics.collision.dispatch.CollisionObject;
 import com.bulletphysics.collision.shapes.*;
-import com.bulletphysics.dynamics.DynamicsWorld;
 import com.bulletphysics.linearmath.Transform;
-import com.bulletphysics.util.ObjectArrayList;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.world.phys.Vec3;
 import net.starlight.stardance.core.LocalGrid;
-import net.starlight.stardance.physics.PhysicsEngine;
+import net.starlight.stardance.physics.PhysicsSnapshot;
 import net.starlight.stardance.utils.ILoggingControl;
 import net.starlight.stardance.utils.SLogger;
 import org.joml.Matrix4f;
@@ -19,6 +16,7 @@ import org.joml.Quaternionf;
 
 import javax.vecmath.Quat4f;
 import javax.vecmath.Vector3f;
+import java.nio.ByteBuffer;
 
 /**
  * Renders outlines of Bullet {@link CollisionShape}s (Boxes, Compounds, Meshes, etc.)
@@ -62,34 +60,25 @@ public class CollisionShapeRenderer implements ILoggingControl {
     // ----------------------------------------------
 
     /**
-     * Main entry to render collision shapes for all Bullet {@link CollisionObject}s
-     * in the provided {@link DynamicsWorld}.
+     * Main entry to render collision shapes for every collision object captured
+     * in the given {@link PhysicsSnapshot}. Reads only the snapshot, so the render
+     * thread never waits on the physics lock.
      *
-     * @param dynamicsWorld   the bullet world containing collision objects
+     * @param snapshot        the latest snapshot of the physics world
      * @param matrices        the current matrix stack
      * @param vertexConsumers the vertex consumer providers
      * @param tickDelta       partial tick for interpolation
-     * @param engine          reference to the {@link PhysicsEngine}, used for locking
      */
-    public void render(DynamicsWorld dynamicsWorld,
+    public void render(PhysicsSnapshot snapshot,
                        PoseStack matrices,
                        MultiBufferSource vertexConsumers,
-                       float tickDelta,
-                       PhysicsEngine engine) {
+                       float tickDelta) {
 
         if (!ENABLED) return;
 
-        // Synchronize to avoid modifying bullet objects while rendering them
-        synchronized (engine.getPhysicsLock()) {
-            ObjectArrayList<CollisionObject> snapshot = new ObjectArrayList<>();
-            snapshot.addAll(dynamicsWorld.getCollisionObjectArray());
-
-            // Render each collision object
-            int numObjects = dynamicsWorld.getNumCollisionObjects();
-            for (int i = 0; i < numObjects; i++) {
-                CollisionObject collisionObject = snapshot.getQuick(i);
-                renderCollisionObject(collisionObject, matrices, vertexConsumers);
-            }
+        // Render each collision object
+        for (PhysicsSnapshot.BodyState body : snapshot.getBodies()) {
+            renderCollisionObject(body, matrices, vertexConsumers);
         }
 
         // If there's an interactedGrid, draw a debug line from eyePos -> eyePos + lookVec
@@ -111,16 +100,15 @@ public class CollisionShapeRenderer implements ILoggingControl {
     // ----------------------------------------------
 
     /**
-     * Renders a single Bullet {@link CollisionObject} by applying its transform
+     * Renders a single captured collision object by applying its transform
      * and drawing its CollisionShape.
      */
-    private void renderCollisionObject(CollisionObject collisionObject,
+    private void renderCollisionObject(PhysicsSnapshot.BodyState body,
                                        PoseStack matrices,
                                        MultiBufferSource vertexConsumers) {
 
-        CollisionShape shape = collisionObject.getCollisionShape();
-        Transform transform = new Transform();
-        collisionObject.getWorldTransform(transform);
+        CollisionShape shape = body.getShape();
+        Transform transform = body.getWorldTransform(new Transform());
 
         matrices.pushPose(); // Save matrix state
 
@@ -241,46 +229,49 @@ public class CollisionShapeRenderer implements ILoggingControl {
     }
 
     /**
-     * Renders a {@link BvhTriangleMeshShape} by iterating all triangles
-     * via a {@link TriangleCallback} and drawing each edge as lines.
+     * Renders a {@link BvhTriangleMeshShape} by reading its triangles straight from the
+     * vertex and index buffers and drawing each edge as lines. Uses absolute buffer reads
+     * only, since the shape's own triangle callbacks are not safe off the physics thread.
      */
     private void renderBvhTriangleMeshShape(BvhTriangleMeshShape meshShape,
                                             Transform transform,
                                             PoseStack matrices,
                                             VertexConsumer vertexConsumer) {
 
+        if (!(meshShape.getMeshInterface() instanceof TriangleIndexVertexArray)) {
+            return;
+        }
+
         PoseStack.Pose entry = matrices.last();
         Matrix4f modelMatrix = entry.pose();
-
-        // Process all triangles. If needed, you could limit the AABB
-        // for efficiency, but here it's set to the entire shape.
-        meshShape.processAllTriangles(
-                new TriangleCallback() {
-                    @Override
-                    public void processTriangle(Vector3f[] triangle, int partId, int triangleIndex) {
-                        // 'triangle' is now a Vector3f[] array
-                        Vector3f v0 = new Vector3f(triangle[0]);
-                        Vector3f v1 = new Vector3f(triangle[1]);
-                        Vector3f v2 = new Vector3f(triangle[2]);
-
-                        // Apply transform if not identity
-                        if (!transform.equals(new Transform())) {
-                            transform.transform(v0);
-                            transform.transform(v1);
-                            transform.transform(v2);
-                        }
-
-                        // Triangle color
-                        int red = 0, green = 255, blue = 0, alpha = 255;
-
-                        // Draw 3 edges
-                        drawLine(vertexConsumer, modelMatrix, v0, v1, red, green, blue, alpha);
-                        drawLine(vertexConsumer, modelMatrix, v1, v2, red, green, blue, alpha);
-                        drawLine(vertexConsumer, modelMatrix, v2, v0, red, green, blue, alpha);                    }
-                },
-                new Vector3f(-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE),
-                new Vector3f(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE)
-        );
+        boolean identity = transform.equals(new Transform());
+
+        // Triangle color
+        int red = 0, green = 255, blue = 0, alpha = 255;
+
+        Vector3f[] triangle = {new Vector3f(), new Vector3f(), new Vector3f()};
+        for (IndexedMesh mesh : ((TriangleIndexVertexArray) meshShape.getMeshInterface()).getIndexedMeshArray()) {
+            ByteBuffer indices = mesh.triangleIndexBase;
+            ByteBuffer vertices = mesh.vertexBase;
+
+            for (int t = 0; t < mesh.numTriangles; t++) {
+                for (int k = 0; k < 3; k++) {
+                    int index = indices.getInt(t * mesh.triangleIndexStride + k * 4);
+                    int offset = index * mesh.vertexStride;
+                    triangle[k].set(vertices.getFloat(offset), vertices.getFloat(offset + 4), vertices.getFloat(offset + 8));
+
+                    // Apply transform if not identity
+                    if (!identity) {
+                        transform.transform(triangle[k]);
+                    }
+                }
+
+                // Draw 3 edges
+                drawLine(vertexConsumer, modelMatrix, triangle[0], triangle[1], red, green, blue, alpha);
+                drawLine(vertexConsumer, modelMatrix, triangle[1], triangle[2], red, green, blue, alpha);
+                drawLine(vertexConsumer, modelMatrix, triangle[2], triangle[0], red, green, blue, alpha);
+            }
+        }
     }
 
     // ----------------------------------------------
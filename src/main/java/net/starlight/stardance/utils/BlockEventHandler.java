@@ -1,61 +1,54 @@
 package net.starlight.stardance.utils;
 
-import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
-import net.fabricmc.fabric.api.event.player.UseBlockCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.world.InteractionHand;
-import net.minecraft.world.InteractionResult;
-import net.minecraft.world.item.BlockItem;
+import net.minecraft.world.level.ChunkPos;
 import net.starlight.stardance.physics.PhysicsEngine;
-import net.starlight.stardance.physics.SubchunkCoordinates;
-import net.starlight.stardance.physics.SubchunkManager;
 
 import static net.starlight.stardance.Stardance.engineManager;
 
+/**
+ * Routes terrain changes in a server level to that level's physics engine.
+ * Block changes arrive from every source through the LevelChunk mixin: players, pistons,
+ * explosions, fluids and commands alike. Chunk loads are listened for as well, since a
+ * subchunk built while its chunk was unloaded read it as air.
+ */
+public final class BlockEventHandler {
 
-public class BlockEventHandler {
-    private final SubchunkManager subchunkManager;
-
-    public BlockEventHandler(SubchunkManager subchunkManager) {
-        this.subchunkManager = subchunkManager;
-
-        // Register block break event
-        PlayerBlockBreakEvents.AFTER.register((world, player, pos, state, blockEntity) -> {
-            if (!world.isClientSide) {
-                onBlockUpdate(pos, (ServerLevel) world);
-            }
-        });
-
-        // Register block place event
-        UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> {
-            if (!world.isClientSide && hand == InteractionHand.MAIN_HAND) {
-                if (player.getItemInHand(hand).getItem() instanceof BlockItem) {
-                    // Wait until the next tick to check if a block was placed
-                    world.getServer().execute(() -> {
-                        BlockPos pos = hitResult.getBlockPos().relative(hitResult.getDirection());
-                        onBlockUpdate(pos, (ServerLevel) world);
-                    });
-                }
-            }
-            return InteractionResult.PASS;
-        });
+    private BlockEventHandler() {
     }
 
-    private SubchunkCoordinates getSubchunkCoordinates(BlockPos pos) {
-        int x = pos.getX() >> 4;
-        int y = pos.getY() >> 4;
-        int z = pos.getZ() >> 4;
-        return new SubchunkCoordinates(x, y, z);
+    /**
+     * Registers the chunk load listener. Called once on mod initialization.
+     */
+    public static void register() {
+        ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> onChunkLoaded(world, chunk.getPos()));
     }
 
-    // In your BlockEventHandler
-    public void onBlockUpdate(BlockPos pos, ServerLevel world) {
-        SubchunkCoordinates coords = getSubchunkCoordinates(pos);
-        subchunkManager.markSubchunkDirty(coords);
+    /**
+     * Called after a block in a loaded chunk of the level changed state.
+     * Off the server thread, the update is handed to the server to apply.
+     */
+    public static void onBlockChanged(ServerLevel world, BlockPos pos) {
+        if (!world.getServer().isSameThread()) {
+            BlockPos immutablePos = pos.immutable();
+            world.getServer().execute(() -> onBlockChanged(world, immutablePos));
+            return;
+        }
 
         PhysicsEngine physicsEngine = engineManager.getEngine(world);
+        if (physicsEngine == null) {
+            return;
+        }
+        physicsEngine.getSubchunkManager().markBlockChanged(pos);
         physicsEngine.onBlockUpdate(pos);
     }
 
+    private static void onChunkLoaded(ServerLevel world, ChunkPos pos) {
+        PhysicsEngine physicsEngine = engineManager.getEngine(world);
+        if (physicsEngine != null) {
+            physicsEngine.getSubchunkManager().markChunkLoaded(pos);
+        }
+    }
 }
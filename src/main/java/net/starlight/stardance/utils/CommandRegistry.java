@@ -31,11 +31,19 @@ import net.starlight.stardance.gridspace.GridSpaceManager;
 import net.starlight.stardance.gridspace.GridSpaceRegion;
 import net.starlight.stardance.gridspace.utils.GridSpaceRaycastUtils;
 import net.starlight.stardance.physics.EngineManager;
+import net.starlight.stardance.physics.GridCommandBuffer;
+import net.starlight.stardance.physics.PhysicsConfig;
 import net.starlight.stardance.physics.PhysicsEngine;
+import net.starlight.stardance.physics.PhysicsLodScheduler;
+import net.starlight.stardance.physics.PhysicsStepGovernor;
+import net.starlight.stardance.physics.benchmark.BroadphaseBenchmark;
+import net.starlight.stardance.physics.benchmark.MergerBenchmark;
 import net.starlight.stardance.render.DebugRenderer;
 
 import javax.vecmath.Vector3d;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static net.minecraft.commands.Commands.literal;
@@ -159,10 +167,120 @@ public class CommandRegistry implements ILoggingControl {
                                             .executes(CommandRegistry::startLiveDistanceMonitoring))
                             )
                     )
+                    .then(literal("stats")
+                            .then(literal("physics")
+                                    .executes(CommandRegistry::executePhysicsStats)))
+                    .then(literal("benchmark")
+                            .then(literal("broadphase")
+                                    .executes(context -> executeBroadphaseBenchmark(context, BroadphaseBenchmark.DEFAULT_STATIC_BODIES))
+                                    .then(Commands.argument("statics", IntegerArgumentType.integer(100, 50000))
+                                            .executes(context -> executeBroadphaseBenchmark(context,
+                                                    IntegerArgumentType.getInteger(context, "statics")))))
+                            .then(literal("merger")
+                                    .executes(CommandRegistry::executeMergerBenchmark))
+                    )
             );
         });
     }
 
+    /**
+     * Reports per-dimension step timings and governor state.
+     */
+    private static int executePhysicsStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        source.sendSuccess(() -> Component.literal("§6=== Physics Stats ==="), false);
+        source.sendSuccess(() -> Component.literal("§eBudget: §f" + PhysicsConfig.STEP_BUDGET_MILLIS + " ms/tick"
+                + (PhysicsConfig.STEP_GOVERNOR ? "" : " §c(governor off)")), false);
+
+        for (ServerLevel level : source.getServer().getAllLevels()) {
+            PhysicsEngine engine = engineManager.getEngine(level);
+            if (engine == null) {
+                continue;
+            }
+
+            PhysicsStepGovernor governor = engine.getStepGovernor();
+            String line = String.format("§a%s§f: %d grids, step %.2f ms (%.2f ms x %d substeps), %d contacts, %d frozen",
+                    level.dimension().location(), engine.getGrids().size(),
+                    governor.getAverageStepMillis(), governor.getAverageSubStepMillis(), governor.getLastSubSteps(),
+                    engine.getContactManifoldCount(), governor.getFrozenGridCount());
+            source.sendSuccess(() -> Component.literal(line), false);
+
+            PhysicsLodScheduler lod = engine.getLodScheduler();
+            String lodLine = String.format("  §7LOD: %d full, %d reduced, %d parked",
+                    lod.countAt(PhysicsLodScheduler.Level.FULL), lod.countAt(PhysicsLodScheduler.Level.REDUCED),
+                    lod.countAt(PhysicsLodScheduler.Level.FROZEN));
+            source.sendSuccess(() -> Component.literal(lodLine), false);
+
+            GridCommandBuffer commands = engine.getCommandBuffer();
+            String commandLine = String.format("  §7Commands: %d last batch, %d pending",
+                    commands.getLastBatchSize(), commands.getPendingCount());
+            source.sendSuccess(() -> Component.literal(commandLine), false);
+
+            String shapeLine = String.format("  §7Shapes: %d pooled box sizes", engine.getBoxShapePool().size());
+            source.sendSuccess(() -> Component.literal(shapeLine), false);
+        }
+        return 1;
+    }
+
+    /**
+     * Runs the broadphase benchmark on a background thread and reports the results in chat.
+     */
+    private static int executeBroadphaseBenchmark(CommandContext<CommandSourceStack> context, int staticBodies) {
+        CommandSourceStack source = context.getSource();
+        source.sendSuccess(() -> Component.literal("§6=== Broadphase Benchmark ==="), false);
+        source.sendSuccess(() -> Component.literal("§e" + staticBodies + " static bodies, "
+                + BroadphaseBenchmark.DEFAULT_DYNAMIC_BODIES + " grids, running..."), false);
+
+        Thread benchmarkThread = new Thread(() -> {
+            List<BroadphaseBenchmark.Result> results = BroadphaseBenchmark.runAll(staticBodies,
+                    BroadphaseBenchmark.DEFAULT_DYNAMIC_BODIES, BroadphaseBenchmark.DEFAULT_ITERATIONS);
+            source.getServer().execute(() -> {
+                for (BroadphaseBenchmark.Result result : results) {
+                    String marker = result.type == PhysicsConfig.BROADPHASE ? "§a" : "§f";
+                    source.sendSuccess(() -> Component.literal(marker + result), false);
+                }
+            });
+        }, "Stardance Broadphase Benchmark");
+        benchmarkThread.setDaemon(true);
+        benchmarkThread.start();
+        return 1;
+    }
+
+    /**
+     * Runs the box merger benchmark on the loaded grids and synthetic shapes, off the server thread.
+     */
+    private static int executeMergerBenchmark(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        source.sendSuccess(() -> Component.literal("§6=== Merger Benchmark ==="), false);
+
+        // Copy block positions here, grids are only safe to read on the server thread
+        List<MergerBenchmark.Sample> samples = new ArrayList<>();
+        for (ServerLevel level : source.getServer().getAllLevels()) {
+            PhysicsEngine engine = engineManager.getEngine(level);
+            if (engine == null) {
+                continue;
+            }
+            for (LocalGrid grid : engine.getGrids()) {
+                samples.add(MergerBenchmark.Sample.ofPositions("grid " + grid.getGridId().toString().substring(0, 8),
+                        new ArrayList<>(grid.getBlocks().keySet())));
+            }
+        }
+        samples.addAll(MergerBenchmark.syntheticSamples());
+        source.sendSuccess(() -> Component.literal("§e" + samples.size() + " shapes, running..."), false);
+
+        Thread benchmarkThread = new Thread(() -> {
+            List<MergerBenchmark.Result> results = MergerBenchmark.runAll(samples, MergerBenchmark.DEFAULT_ITERATIONS);
+            source.getServer().execute(() -> {
+                for (MergerBenchmark.Result result : results) {
+                    source.sendSuccess(() -> Component.literal("§f" + result), false);
+                }
+            });
+        }, "Stardance Merger Benchmark");
+        benchmarkThread.setDaemon(true);
+        benchmarkThread.start();
+        return 1;
+    }
+
     /**
      * Comprehensive distance system test.
      */